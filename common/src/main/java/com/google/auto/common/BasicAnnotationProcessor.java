@@ -26,11 +26,16 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Multimaps.filterKeys;
 import static java.util.Objects.requireNonNull;
+import static javax.lang.model.element.ElementKind.CONSTRUCTOR;
+import static javax.lang.model.element.ElementKind.METHOD;
 import static javax.lang.model.element.ElementKind.PACKAGE;
 import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.Diagnostic.Kind.NOTE;
 
 import com.google.common.base.Ascii;
+import com.google.common.base.Enums;
 import com.google.common.base.Predicates;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -40,7 +45,11 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import java.lang.annotation.Annotation;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -49,7 +58,10 @@ import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
@@ -103,9 +115,33 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * <p>However, if {@code A} references {@code B} only indirectly (for example, from within a method
  * body), then the well-formedness check will not defer processing {@code A}, but a processing step
  * can reject {@code A}.
+ *
+ * <h3>Finding annotated elements</h3>
+ *
+ * <p>By default, the annotated elements of each round are found by calling {@link
+ * RoundEnvironment#getElementsAnnotatedWith(TypeElement)} once for each annotation supported by any
+ * step. Processors with many steps or supported annotations can instead override {@link
+ * #indexElementsInSinglePass()} so that the round's root elements are walked only once.
+ *
+ * <h3>Metrics</h3>
+ *
+ * <p>After each round, the time taken to find and validate elements, and the number of elements
+ * each step processed and deferred, are reported to any {@link MetricsListener} returned by {@link
+ * #metricsListeners()}. If the {@code -A}{@value #METRICS_OPTION} option is passed to javac, a
+ * summary of these metrics for the whole compilation is also reported as a note.
  */
 public abstract class BasicAnnotationProcessor extends AbstractProcessor {
 
+  // TODO(user): reference ElementKind.MODULE directly once we build with -source 9 or later.
+  private static final @Nullable ElementKind MODULE =
+      Enums.getIfPresent(ElementKind.class, "MODULE").orNull();
+
+  /**
+   * If this option is passed to javac, each {@code BasicAnnotationProcessor} reports a summary of
+   * its {@linkplain MetricsListener metrics} as a note at the end of the compilation.
+   */
+  public static final String METRICS_OPTION = "com.google.auto.common.ReportStepMetrics";
+
   private final Set<ElementName> deferredElementNames = new LinkedHashSet<>();
   private final SetMultimap<Step, ElementName> elementsDeferredBySteps =
       LinkedHashMultimap.create();
@@ -113,6 +149,10 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
   private Elements elements;
   private Messager messager;
   private ImmutableList<? extends Step> steps;
+  private boolean indexElementsInSinglePass;
+  private ImmutableList<MetricsListener> metricsListeners;
+  private @Nullable MetricsSummary metricsSummary;
+  private int round;
 
   @Override
   public final synchronized void init(ProcessingEnvironment processingEnv) {
@@ -120,6 +160,14 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     this.elements = processingEnv.getElementUtils();
     this.messager = processingEnv.getMessager();
     this.steps = ImmutableList.copyOf(steps());
+    this.indexElementsInSinglePass = indexElementsInSinglePass();
+    ImmutableList.Builder<MetricsListener> metricsListeners = ImmutableList.builder();
+    metricsListeners.addAll(metricsListeners());
+    if (processingEnv.getOptions().containsKey(METRICS_OPTION)) {
+      this.metricsSummary = new MetricsSummary();
+      metricsListeners.add(metricsSummary);
+    }
+    this.metricsListeners = metricsListeners.build();
   }
 
   /**
@@ -159,6 +207,27 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     }
   }
 
+  /**
+   * Returns true if the annotated elements of each round should be found by walking the round's
+   * {@linkplain RoundEnvironment#getRootElements() root elements} once, collecting the elements
+   * annotated with the annotations of all steps in a single pass, rather than by calling {@link
+   * RoundEnvironment#getElementsAnnotatedWith(TypeElement)} once per supported annotation. The
+   * elements passed to each {@link Step} are the same in either case.
+   *
+   * <p>This is called once, when the processor is initialized. The default is {@code false}.
+   */
+  protected boolean indexElementsInSinglePass() {
+    return false;
+  }
+
+  /**
+   * Returns the {@linkplain MetricsListener listeners} that are told about the work done in each
+   * round. This is called once, when the processor is initialized. The default is none.
+   */
+  protected Iterable<? extends MetricsListener> metricsListeners() {
+    return ImmutableList.of();
+  }
+
   private ImmutableSet<TypeElement> getSupportedAnnotationTypeElements() {
     checkState(steps != null);
     return steps.stream()
@@ -183,6 +252,18 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     return steps.stream().flatMap(step -> step.annotations().stream()).collect(toImmutableSet());
   }
 
+  /**
+   * Returns the options recognized by this processor, which include {@value #METRICS_OPTION}.
+   * Subclasses that override this method should include the options returned by the superclass.
+   */
+  @Override
+  public Set<String> getSupportedOptions() {
+    return ImmutableSet.<String>builder()
+        .addAll(super.getSupportedOptions())
+        .add(METRICS_OPTION)
+        .build();
+  }
+
   @Override
   public final boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     checkState(elements != null);
@@ -201,18 +282,43 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
                 .addAll(elementsDeferredBySteps.values())
                 .build());
       }
+      if (metricsSummary != null) {
+        messager.printMessage(NOTE, metricsSummary.summary(getClass().getCanonicalName()));
+      }
       return false;
     }
 
-    process(validElements(roundEnv));
+    round++;
+    Stopwatch validationStopwatch = Stopwatch.createStarted();
+    ImmutableSetMultimap<TypeElement, Element> validElements = validElements(roundEnv);
+    Duration validationTime = validationStopwatch.elapsed();
+    ImmutableList<StepMetrics> stepMetrics = process(validElements);
+    if (!metricsListeners.isEmpty()) {
+      RoundMetrics roundMetrics =
+          new RoundMetrics(
+              round,
+              validElements.size(),
+              deferredElementNames.size(),
+              validationTime,
+              stepMetrics);
+      for (MetricsListener metricsListener : metricsListeners) {
+        metricsListener.roundProcessed(roundMetrics);
+      }
+    }
 
     postRound(roundEnv);
 
     return false;
   }
 
-  /** Processes the valid elements, including those previously deferred by each step. */
-  private void process(ImmutableSetMultimap<TypeElement, Element> validElements) {
+  /**
+   * Processes the valid elements, including those previously deferred by each step, and returns
+   * metrics for each step that was given elements to process.
+   */
+  @SuppressWarnings("try")
+  private ImmutableList<StepMetrics> process(
+      ImmutableSetMultimap<TypeElement, Element> validElements) {
+    ImmutableList.Builder<StepMetrics> stepMetrics = ImmutableList.builder();
     for (Step step : steps) {
       ImmutableSet<TypeElement> annotationTypes = getSupportedAnnotationTypeElements(step);
       ImmutableSetMultimap<TypeElement, Element> stepElements =
@@ -223,12 +329,23 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
       if (stepElements.isEmpty()) {
         elementsDeferredBySteps.removeAll(step);
       } else {
-        Set<? extends Element> rejectedElements =
-            step.process(toClassNameKeyedMultimap(stepElements));
+        Stopwatch stepStopwatch = Stopwatch.createStarted();
+        Set<? extends Element> rejectedElements;
+        try (ProcessorEvents.Span span =
+            ProcessorEvents.processStep(this, stepName(step), stepElements.size())) {
+          rejectedElements = step.process(toClassNameKeyedMultimap(stepElements));
+        }
+        stepMetrics.add(
+            new StepMetrics(
+                step, stepElements.size(), rejectedElements.size(), stepStopwatch.elapsed()));
         elementsDeferredBySteps.replaceValues(
             step, transform(rejectedElements, ElementName::forAnnotatedElement));
+        for (ElementName rejectedElementName : elementsDeferredBySteps.get(step)) {
+          ProcessorEvents.deferElement(this, rejectedElementName.name());
+        }
       }
     }
+    return stepMetrics.build();
   }
 
   private void reportMissingElements(Set<ElementName> missingElementNames) {
@@ -262,15 +379,14 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     ImmutableSet<ElementName> prevDeferredElementNames = ImmutableSet.copyOf(deferredElementNames);
     deferredElementNames.clear();
 
+    ImmutableSet<TypeElement> supportedAnnotationTypes = getSupportedAnnotationTypeElements();
     ImmutableSetMultimap.Builder<TypeElement, Element> deferredElementsByAnnotationBuilder =
         ImmutableSetMultimap.builder();
     for (ElementName deferredElementName : prevDeferredElementNames) {
       Optional<? extends Element> deferredElement = deferredElementName.getElement(elements);
       if (deferredElement.isPresent()) {
         findAnnotatedElements(
-            deferredElement.get(),
-            getSupportedAnnotationTypeElements(),
-            deferredElementsByAnnotationBuilder);
+            deferredElement.get(), supportedAnnotationTypes, deferredElementsByAnnotationBuilder);
       } else {
         deferredElementNames.add(deferredElementName);
       }
@@ -278,6 +394,8 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
 
     ImmutableSetMultimap<TypeElement, Element> deferredElementsByAnnotation =
         deferredElementsByAnnotationBuilder.build();
+    ImmutableSetMultimap<TypeElement, Element> roundElementsByAnnotation =
+        roundElementsByAnnotation(roundEnv, supportedAnnotationTypes);
 
     ImmutableSetMultimap.Builder<TypeElement, Element> validElements =
         ImmutableSetMultimap.builder();
@@ -285,8 +403,8 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     Set<ElementName> validElementNames = new LinkedHashSet<>();
 
     // Look at the elements we've found and the new elements from this round and validate them.
-    for (TypeElement annotationType : getSupportedAnnotationTypeElements()) {
-      Set<? extends Element> roundElements = roundEnv.getElementsAnnotatedWith(annotationType);
+    for (TypeElement annotationType : supportedAnnotationTypes) {
+      ImmutableSet<Element> roundElements = roundElementsByAnnotation.get(annotationType);
       ImmutableSet<Element> prevRoundElements = deferredElementsByAnnotation.get(annotationType);
       for (Element element : Sets.union(roundElements, prevRoundElements)) {
         ElementName elementName = ElementName.forAnnotatedElement(element);
@@ -298,8 +416,8 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
         if (isValidElement) {
           validElements.put(annotationType, element);
           validElementNames.add(elementName);
-        } else {
-          deferredElementNames.add(elementName);
+        } else if (deferredElementNames.add(elementName)) {
+          ProcessorEvents.deferElement(this, elementName.name());
         }
       }
     }
@@ -307,6 +425,72 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     return validElements.build();
   }
 
+  /** Returns the elements of the current round annotated with each of {@code annotationTypes}. */
+  private ImmutableSetMultimap<TypeElement, Element> roundElementsByAnnotation(
+      RoundEnvironment roundEnv, ImmutableSet<TypeElement> annotationTypes) {
+    ImmutableSetMultimap.Builder<TypeElement, Element> roundElements =
+        ImmutableSetMultimap.builder();
+    if (indexElementsInSinglePass) {
+      ImmutableMap<String, TypeElement> annotationTypesByName =
+          annotationTypes.stream()
+              .collect(toImmutableMap(a -> a.getQualifiedName().toString(), a -> a));
+      for (Element rootElement : roundEnv.getRootElements()) {
+        findAnnotatedRootElements(rootElement, annotationTypesByName, roundElements);
+      }
+    } else {
+      for (TypeElement annotationType : annotationTypes) {
+        roundElements.putAll(annotationType, roundEnv.getElementsAnnotatedWith(annotationType));
+      }
+    }
+    return roundElements.build();
+  }
+
+  /**
+   * Adds {@code element} and everything it encloses to {@code annotatedElements} if they are
+   * annotated with any of the annotations in {@code annotationTypesByName}, reading each element's
+   * annotations only once. Unlike {@link #findAnnotatedElements}, this traverses member types,
+   * parameters and type parameters, and honors {@linkplain java.lang.annotation.Inherited
+   * inherited} annotations on types, so that it finds the same elements as {@link
+   * RoundEnvironment#getElementsAnnotatedWith(TypeElement)}. Like that method, it does not traverse
+   * the contents of packages or modules, whose enclosed types are themselves root elements.
+   */
+  private void findAnnotatedRootElements(
+      Element element,
+      ImmutableMap<String, TypeElement> annotationTypesByName,
+      ImmutableSetMultimap.Builder<TypeElement, Element> annotatedElements) {
+    List<? extends AnnotationMirror> annotationMirrors =
+        MoreElements.isType(element)
+            ? elements.getAllAnnotationMirrors(element)
+            : element.getAnnotationMirrors();
+    for (AnnotationMirror annotationMirror : annotationMirrors) {
+      TypeElement annotationType =
+          annotationTypesByName.get(
+              MoreElements.asType(annotationMirror.getAnnotationType().asElement())
+                  .getQualifiedName()
+                  .toString());
+      if (annotationType != null) {
+        annotatedElements.put(annotationType, element);
+      }
+    }
+
+    ElementKind kind = element.getKind();
+    if (kind.equals(PACKAGE) || kind.equals(MODULE)) {
+      return;
+    }
+    ImmutableList.Builder<Element> enclosedElements = ImmutableList.builder();
+    // element.getEnclosedElements() does NOT return parameter or type parameter elements
+    if (kind.equals(METHOD) || kind.equals(CONSTRUCTOR)) {
+      ExecutableElement executable = asExecutable(element);
+      enclosedElements.addAll(executable.getTypeParameters()).addAll(executable.getParameters());
+    } else if (MoreElements.isType(element)) {
+      enclosedElements.addAll(MoreElements.asType(element).getTypeParameters());
+    }
+    enclosedElements.addAll(element.getEnclosedElements());
+    for (Element enclosedElement : enclosedElements.build()) {
+      findAnnotatedRootElements(enclosedElement, annotationTypesByName, annotatedElements);
+    }
+  }
+
   private ImmutableSetMultimap<TypeElement, Element> indexByAnnotation(
       Set<ElementName> annotatedElements, ImmutableSet<TypeElement> annotationTypes) {
     ImmutableSetMultimap.Builder<TypeElement, Element> deferredElements =
@@ -505,6 +689,195 @@ public abstract class BasicAnnotationProcessor extends AbstractProcessor {
     }
   }
 
+  /**
+   * Receives {@linkplain RoundMetrics metrics} about the work done by a {@link
+   * BasicAnnotationProcessor} in each round. Listeners are returned from {@link
+   * BasicAnnotationProcessor#metricsListeners()}.
+   */
+  public interface MetricsListener {
+
+    /**
+     * Called after the steps of the processor have run in a round. Not called for the final round,
+     * in which no steps run.
+     */
+    void roundProcessed(RoundMetrics metrics);
+  }
+
+  /** Measurements of the work done by a {@link BasicAnnotationProcessor} in one round. */
+  public static final class RoundMetrics {
+    private final int round;
+    private final int validElementCount;
+    private final int deferredElementCount;
+    private final Duration validationTime;
+    private final ImmutableList<StepMetrics> stepMetrics;
+
+    RoundMetrics(
+        int round,
+        int validElementCount,
+        int deferredElementCount,
+        Duration validationTime,
+        ImmutableList<StepMetrics> stepMetrics) {
+      this.round = round;
+      this.validElementCount = validElementCount;
+      this.deferredElementCount = deferredElementCount;
+      this.validationTime = validationTime;
+      this.stepMetrics = stepMetrics;
+    }
+
+    /** The number of the round, starting from 1 for the first round. */
+    public int round() {
+      return round;
+    }
+
+    /**
+     * The number of annotated elements, from this round or deferred from earlier rounds, that were
+     * found to be well-formed and so were passed on to the steps. An element annotated with more
+     * than one supported annotation is counted once for each.
+     */
+    public int validElementCount() {
+      return validElementCount;
+    }
+
+    /**
+     * The number of packages and types that were deferred to a later round because they were not
+     * well-formed.
+     */
+    public int deferredElementCount() {
+      return deferredElementCount;
+    }
+
+    /** The time taken to find annotated elements and check that they are well-formed. */
+    public Duration validationTime() {
+      return validationTime;
+    }
+
+    /**
+     * Metrics for each step that was given elements to process in this round, in the order the
+     * steps ran.
+     */
+    public ImmutableList<StepMetrics> stepMetrics() {
+      return stepMetrics;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "RoundMetrics{round=%d, validElementCount=%d, deferredElementCount=%d, "
+              + "validationTime=%s, stepMetrics=%s}",
+          round, validElementCount, deferredElementCount, validationTime, stepMetrics);
+    }
+  }
+
+  /** Measurements of the work done by one {@link Step} in one round. */
+  public static final class StepMetrics {
+    private final Step step;
+    private final int elementCount;
+    private final int deferredElementCount;
+    private final Duration processingTime;
+
+    StepMetrics(Step step, int elementCount, int deferredElementCount, Duration processingTime) {
+      this.step = step;
+      this.elementCount = elementCount;
+      this.deferredElementCount = deferredElementCount;
+      this.processingTime = processingTime;
+    }
+
+    /** The step that these metrics are about. */
+    public Step step() {
+      return step;
+    }
+
+    /**
+     * The number of annotated elements passed to {@link Step#process}. An element annotated with
+     * more than one of the step's annotations is counted once for each.
+     */
+    public int elementCount() {
+      return elementCount;
+    }
+
+    /** The number of elements that the step deferred to a later round. */
+    public int deferredElementCount() {
+      return deferredElementCount;
+    }
+
+    /** The time taken by {@link Step#process}. */
+    public Duration processingTime() {
+      return processingTime;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "StepMetrics{step=%s, elementCount=%d, deferredElementCount=%d, processingTime=%s}",
+          stepName(step), elementCount, deferredElementCount, processingTime);
+    }
+  }
+
+  /**
+   * Returns the name of the class of {@code step}, or of the {@link ProcessingStep} that it wraps,
+   * which identifies the step in metrics and events.
+   */
+  static String stepName(Step step) {
+    return step instanceof ProcessingStepAsStep
+        ? ((ProcessingStepAsStep) step).processingStep.getClass().getName()
+        : step.getClass().getName();
+  }
+
+  /**
+   * Accumulates metrics over all rounds, for the summary reported when {@value #METRICS_OPTION} is
+   * set.
+   */
+  private static final class MetricsSummary implements MetricsListener {
+    private final Map<Step, StepTotals> stepTotals = new LinkedHashMap<>();
+    private int rounds;
+    private Duration validationTime = Duration.ZERO;
+
+    private static final class StepTotals {
+      int rounds;
+      int elementCount;
+      int deferredElementCount;
+      Duration processingTime = Duration.ZERO;
+    }
+
+    @Override
+    public void roundProcessed(RoundMetrics metrics) {
+      rounds++;
+      validationTime = validationTime.plus(metrics.validationTime());
+      for (StepMetrics stepMetrics : metrics.stepMetrics()) {
+        StepTotals totals = stepTotals.computeIfAbsent(stepMetrics.step(), s -> new StepTotals());
+        totals.rounds++;
+        totals.elementCount += stepMetrics.elementCount();
+        totals.deferredElementCount += stepMetrics.deferredElementCount();
+        totals.processingTime = totals.processingTime.plus(stepMetrics.processingTime());
+      }
+    }
+
+    String summary(String processorName) {
+      StringBuilder summary =
+          new StringBuilder(processorName)
+              .append(": ")
+              .append(rounds)
+              .append(" rounds, validation ")
+              .append(validationTime.toMillis())
+              .append(" ms");
+      stepTotals.forEach(
+          (step, totals) ->
+              summary
+                  .append("\n  ")
+                  .append(stepName(step))
+                  .append(": ")
+                  .append(totals.rounds)
+                  .append(" rounds, ")
+                  .append(totals.elementCount)
+                  .append(" elements, ")
+                  .append(totals.deferredElementCount)
+                  .append(" deferred, ")
+                  .append(totals.processingTime.toMillis())
+                  .append(" ms"));
+      return summary.toString();
+    }
+  }
+
   /**
    * A package or type name.
    *
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by {@link BasicAnnotationProcessor}: {@code
+ * com.google.auto.common.ProcessStep} for each call to {@link
+ * BasicAnnotationProcessor.Step#process} and {@code com.google.auto.common.DeferElement} for each
+ * element deferred to a later round.
+ *
+ * <p>If an event is not being recorded, the corresponding method returns without allocating. If the
+ * {@code jdk.jfr} API does not exist, as in JDK 8 releases before 8u262, the methods do nothing.
+ */
+final class ProcessorEvents {
+  private ProcessorEvents() {}
+
+  /** A timed operation. Closing it commits its event, if that event is being recorded. */
+  interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_SPAN = () -> {};
+
+  private static final boolean JFR_AVAILABLE = jfrAvailable();
+
+  private static boolean jfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, ProcessorEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Starts timing a call to the step called {@code stepName} from {@code processor} with {@code
+   * elementCount}.
+   */
+  static Span processStep(Object processor, String stepName, int elementCount) {
+    return JFR_AVAILABLE ? Recorder.processStep(processor, stepName, elementCount) : NO_SPAN;
+  }
+
+  /** Records that {@code processor} deferred the element called {@code elementName}. */
+  static void deferElement(Object processor, String elementName) {
+    if (JFR_AVAILABLE) {
+      Recorder.deferElement(processor, elementName);
+    }
+  }
+
+  /** Only loaded if {@link #JFR_AVAILABLE}, since it references subclasses of {@link Event}. */
+  private static final class Recorder {
+    static Span processStep(Object processor, String stepName, int elementCount) {
+      ProcessStepEvent event = new ProcessStepEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.processor = processor.getClass().getName();
+      event.step = stepName;
+      event.elementCount = elementCount;
+      event.begin();
+      return event::commit;
+    }
+
+    static void deferElement(Object processor, String elementName) {
+      DeferElementEvent event = new DeferElementEvent();
+      if (event.isEnabled()) {
+        event.processor = processor.getClass().getName();
+        event.element = elementName;
+        event.commit();
+      }
+    }
+  }
+
+  @Name("com.google.auto.common.ProcessStep")
+  @Label("Process Step")
+  @Category({"Annotation Processing", "BasicAnnotationProcessor"})
+  @Description("A call to a BasicAnnotationProcessor.Step with the valid elements of a round")
+  static final class ProcessStepEvent extends Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("Step")
+    String step;
+
+    @Label("Element Count")
+    int elementCount;
+  }
+
+  @Name("com.google.auto.common.DeferElement")
+  @Label("Defer Element")
+  @Category({"Annotation Processing", "BasicAnnotationProcessor"})
+  @Description("An element deferred to a later round by validation or by a step")
+  static final class DeferElementEvent extends Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("Element")
+    String element;
+  }
+}
@@ -21,8 +21,11 @@ import static com.google.testing.compile.CompilationSubject.assertThat;
 import static com.google.testing.compile.Compiler.javac;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
+import com.google.auto.common.BasicAnnotationProcessor.MetricsListener;
 import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
+import com.google.auto.common.BasicAnnotationProcessor.RoundMetrics;
 import com.google.auto.common.BasicAnnotationProcessor.Step;
+import com.google.auto.common.BasicAnnotationProcessor.StepMetrics;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -36,6 +39,8 @@ import java.io.PrintWriter;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.processing.Filer;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
@@ -223,6 +228,48 @@ public class BasicAnnotationProcessorTest {
     }
   }
 
+  /**
+   * Records the elements passed to each of its two steps, one for {@link AnAnnotation} and one for
+   * {@link ReferencesAClass}.
+   */
+  private static class RecordingProcessor extends BaseAnnotationProcessor {
+
+    private final boolean singlePass;
+    final ImmutableSetMultimap.Builder<String, Element> processedElements =
+        ImmutableSetMultimap.builder();
+
+    RecordingProcessor(boolean singlePass) {
+      this.singlePass = singlePass;
+    }
+
+    @Override
+    protected boolean indexElementsInSinglePass() {
+      return singlePass;
+    }
+
+    @Override
+    protected Iterable<? extends Step> steps() {
+      return ImmutableList.of(
+          recordingStep(AnAnnotation.class), recordingStep(ReferencesAClass.class));
+    }
+
+    private Step recordingStep(Class<? extends Annotation> annotation) {
+      return new Step() {
+        @Override
+        public ImmutableSet<? extends Element> process(
+            ImmutableSetMultimap<String, Element> elementsByAnnotation) {
+          processedElements.putAll(elementsByAnnotation);
+          return ImmutableSet.of();
+        }
+
+        @Override
+        public ImmutableSet<String> annotations() {
+          return ImmutableSet.of(annotation.getCanonicalName());
+        }
+      };
+    }
+  }
+
   @SuppressWarnings("deprecation") // Deprecated ProcessingStep is being explicitly tested.
   static final class MultiAnnotationProcessingStep implements ProcessingStep {
 
@@ -407,6 +454,153 @@ public class BasicAnnotationProcessorTest {
         "is equivalent comparing multimap values by `toString()` to");
   }
 
+  @Test
+  public void singlePassIndexing_findsSameElements() {
+    String anAnnotation = "@" + AnAnnotation.class.getCanonicalName();
+    String referencesAClass = "@" + ReferencesAClass.class.getCanonicalName() + "(String.class)";
+    JavaFileObject classAFileObject =
+        JavaFileObjects.forSourceLines(
+            "test.ClassA",
+            "package test;",
+            "",
+            anAnnotation,
+            "public class ClassA<T> {",
+            "  " + referencesAClass + " Object field;",
+            "  " + anAnnotation + " ClassA() {}",
+            "  " + anAnnotation,
+            "  <U> void method(" + anAnnotation + " int param) {}",
+            "  " + referencesAClass,
+            "  static class Nested {",
+            "    " + anAnnotation + " interface DoublyNested {}",
+            "  }",
+            "}");
+    JavaFileObject packageFileObject =
+        JavaFileObjects.forSourceLines("test.package-info", referencesAClass, "package test;");
+
+    RecordingProcessor perAnnotationProcessor = new RecordingProcessor(false);
+    assertThat(
+            javac()
+                .withProcessors(perAnnotationProcessor)
+                .compile(classAFileObject, packageFileObject))
+        .succeeded();
+    RecordingProcessor singlePassProcessor = new RecordingProcessor(true);
+    assertThat(
+            javac()
+                .withProcessors(singlePassProcessor)
+                .compile(classAFileObject, packageFileObject))
+        .succeeded();
+
+    ImmutableSetMultimap<String, String> perAnnotationElements =
+        ImmutableSetMultimap.copyOf(
+            transformValues(perAnnotationProcessor.processedElements.build(), Object::toString));
+    assertThat(perAnnotationElements).hasSize(8);
+    assertThat(
+            ImmutableSetMultimap.copyOf(
+                transformValues(singlePassProcessor.processedElements.build(), Object::toString)))
+        .isEqualTo(perAnnotationElements);
+  }
+
+  @Test
+  public void singlePassIndexing_properlyDefersProcessing() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceLines(
+            "test.ValidInRound2",
+            "package test;",
+            "",
+            "@" + AnAnnotation.class.getCanonicalName(),
+            "public class ValidInRound2 {",
+            "  ValidInRound1XYZ vir1xyz;",
+            "  @" + AnAnnotation.class.getCanonicalName(),
+            "  static class ValidInRound1 {}",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(
+                new AnAnnotationProcessor() {
+                  @Override
+                  protected boolean indexElementsInSinglePass() {
+                    return true;
+                  }
+                })
+            .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).generatedSourceFile("test.ValidInRound1XYZ");
+    assertThat(compilation).generatedSourceFile("test.ValidInRound2XYZ");
+  }
+
+  @Test
+  public void metricsListener_reportsStepsAndDeferrals() {
+    JavaFileObject classAFileObject =
+        JavaFileObjects.forSourceLines(
+            "test.ClassA",
+            "package test;",
+            "",
+            "@" + RequiresGeneratedCode.class.getCanonicalName(),
+            "public class ClassA {",
+            "  @" + AnAnnotation.class.getCanonicalName(),
+            "  public void method() {}",
+            "}");
+    JavaFileObject classBFileObject =
+        JavaFileObjects.forSourceLines(
+            "test.ClassB",
+            "package test;",
+            "",
+            "@" + GeneratesCode.class.getCanonicalName(),
+            "public class ClassB {}");
+    List<RoundMetrics> roundMetrics = new ArrayList<>();
+    RequiresGeneratedCodeProcessor requiresGeneratedCodeProcessor =
+        new RequiresGeneratedCodeProcessor() {
+          @Override
+          protected Iterable<? extends MetricsListener> metricsListeners() {
+            return ImmutableList.of(roundMetrics::add);
+          }
+        };
+    Compilation compilation =
+        javac()
+            .withProcessors(requiresGeneratedCodeProcessor, new GeneratesCodeProcessor())
+            .compile(classAFileObject, classBFileObject);
+    assertThat(compilation).succeeded();
+
+    // Round 1: both steps run, and the RequiresGeneratedCode step defers ClassA.
+    // Round 2: only the RequiresGeneratedCode step runs, on the deferred ClassA.
+    // Round 3: nothing left to process.
+    assertThat(roundMetrics).hasSize(3);
+    assertThat(roundMetrics.get(0).round()).isEqualTo(1);
+    assertThat(roundMetrics.get(0).validElementCount()).isEqualTo(2);
+    assertThat(roundMetrics.get(0).deferredElementCount()).isEqualTo(0);
+    assertThat(roundMetrics.get(0).stepMetrics()).hasSize(2);
+    StepMetrics firstStepMetrics = roundMetrics.get(0).stepMetrics().get(0);
+    assertThat(firstStepMetrics.elementCount()).isEqualTo(1);
+    assertThat(firstStepMetrics.deferredElementCount()).isEqualTo(1);
+    assertThat(roundMetrics.get(1).stepMetrics()).hasSize(1);
+    StepMetrics secondRoundMetrics = roundMetrics.get(1).stepMetrics().get(0);
+    assertThat(secondRoundMetrics.step()).isSameInstanceAs(firstStepMetrics.step());
+    assertThat(secondRoundMetrics.elementCount()).isEqualTo(1);
+    assertThat(secondRoundMetrics.deferredElementCount()).isEqualTo(0);
+    assertThat(roundMetrics.get(2).stepMetrics()).isEmpty();
+  }
+
+  @Test
+  public void metricsOption_reportsSummary() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceLines(
+            "test.ClassA",
+            "package test;",
+            "",
+            "@" + AnAnnotation.class.getCanonicalName(),
+            "public class ClassA {}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AnAnnotationProcessor())
+            .withOptions("-A" + BasicAnnotationProcessor.METRICS_OPTION)
+            .compile(source);
+    assertThat(compilation).succeeded();
+    assertThat(compilation).hadNoteCount(1);
+    assertThat(compilation)
+        .hadNoteContaining(AnAnnotationProcessor.class.getCanonicalName() + ": 2 rounds");
+    assertThat(compilation).hadNoteContaining("1 rounds, 1 elements, 0 deferred");
+  }
+
   @Test
   public void properlySkipsMissingAnnotations_generatesClass() {
     JavaFileObject source =
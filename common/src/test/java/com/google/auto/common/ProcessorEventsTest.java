@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.auto.common.BasicAnnotationProcessorTest.AnAnnotation;
+import com.google.auto.common.BasicAnnotationProcessorTest.AnAnnotationProcessor;
+import com.google.auto.common.BasicAnnotationProcessorTest.MultiAnnotationProcessingStep;
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.annotation.processing.Processor;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaFileObject;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that {@link BasicAnnotationProcessor} emits the JFR events in {@link ProcessorEvents}. */
+@RunWith(JUnit4.class)
+public class ProcessorEventsTest {
+  @Test
+  public void eventsRecorded() throws Exception {
+    // ValidInRound2 is deferred in the first round, because ValidInRound1XYZ does not exist yet.
+    JavaFileObject source =
+        JavaFileObjects.forSourceLines(
+            "test.ValidInRound2",
+            "package test;",
+            "",
+            "@" + AnAnnotation.class.getCanonicalName(),
+            "public class ValidInRound2 {",
+            "  ValidInRound1XYZ vir1xyz;",
+            "  @" + AnAnnotation.class.getCanonicalName(),
+            "  static class ValidInRound1 {}",
+            "}");
+    List<RecordedEvent> events = recordEvents(new AnAnnotationProcessor(), source);
+
+    ImmutableList<RecordedEvent> processSteps = eventsNamed(events, "ProcessStep");
+    assertThat(processSteps).hasSize(2);
+    for (RecordedEvent processStep : processSteps) {
+      assertThat(processStep.getString("processor"))
+          .isEqualTo(AnAnnotationProcessor.class.getName());
+      assertThat(processStep.getInt("elementCount")).isEqualTo(1);
+    }
+    ImmutableList<RecordedEvent> deferElements = eventsNamed(events, "DeferElement");
+    assertThat(deferElements).hasSize(1);
+    assertThat(deferElements.get(0).getString("element")).isEqualTo("test.ValidInRound2");
+  }
+
+  @Test
+  public void processingStepNamedForItsClass() throws Exception {
+    JavaFileObject source =
+        JavaFileObjects.forSourceLines(
+            "test.Annotated",
+            "package test;",
+            "",
+            "@" + AnAnnotation.class.getCanonicalName(),
+            "public class Annotated {}");
+    List<RecordedEvent> events = recordEvents(new ProcessingStepProcessor(), source);
+
+    ImmutableList<RecordedEvent> processSteps = eventsNamed(events, "ProcessStep");
+    assertThat(processSteps).hasSize(1);
+    assertThat(processSteps.get(0).getString("step"))
+        .isEqualTo(MultiAnnotationProcessingStep.class.getName());
+  }
+
+  /** A processor with a {@link BasicAnnotationProcessor.ProcessingStep}, the older kind of step. */
+  private static final class ProcessingStepProcessor extends BasicAnnotationProcessor {
+    @Override
+    protected Iterable<? extends Step> steps() {
+      return ImmutableList.of(asStep(new MultiAnnotationProcessingStep()));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+  }
+
+  /** Compiles {@code sources} with {@code processor}, and returns the events it emitted. */
+  private static List<RecordedEvent> recordEvents(Processor processor, JavaFileObject... sources)
+      throws IOException {
+    try (Recording recording = new Recording()) {
+      recording.enable("com.google.auto.common.ProcessStep");
+      recording.enable("com.google.auto.common.DeferElement");
+      recording.start();
+      Compilation compilation = javac().withProcessors(processor).compile(sources);
+      recording.stop();
+      assertThat(compilation).succeeded();
+      Path recordingFile = Files.createTempFile("processor-events", ".jfr");
+      try {
+        recording.dump(recordingFile);
+        return RecordingFile.readAllEvents(recordingFile);
+      } finally {
+        Files.delete(recordingFile);
+      }
+    }
+  }
+
+  private static ImmutableList<RecordedEvent> eventsNamed(
+      List<RecordedEvent> events, String simpleName) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals("com.google.auto.common." + simpleName))
+        .collect(ImmutableList.toImmutableList());
+  }
+}
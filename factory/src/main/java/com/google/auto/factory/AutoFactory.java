@@ -17,6 +17,7 @@ package com.google.auto.factory;
 
 import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.TYPE;
 
 import java.lang.annotation.Target;
@@ -64,6 +65,62 @@ public @interface AutoFactory {
    */
   boolean allowSubclasses() default false;
 
+  /**
+   * Whether the generated factory should inject each {@link Provided} dependency itself, rather
+   * than a {@code Provider} for it. Defaults to injecting a {@code Provider}, whose {@code get()}
+   * method is called each time the factory creates an instance.
+   *
+   * <p>When this is true, each dependency is obtained once, when the factory is constructed, and
+   * passed to every instance that the factory creates. That avoids a {@code get()} call and a null
+   * check per instance, but is only appropriate when every instance may share the same value, for
+   * example because the dependency is a singleton. A parameter whose type is itself a {@code
+   * Provider<T>} still gets a {@code Provider} injected.
+   */
+  boolean injectProvidedInstances() default false;
+
+  /**
+   * Whether the generated factory should have a batch method for each of its factory methods. For
+   * example, next to {@code SomeClass create(String depB)}, there would be {@code List<SomeClass>
+   * createAll(int count, String depB)}, returning {@code count} new instances, all created with the
+   * same arguments. Defaults to no batch methods.
+   *
+   * <p>A batch method obtains each {@link Provided} dependency from its {@code Provider} once, and
+   * passes the same value to every instance in the batch, where calling {@code create} {@code
+   * count} times would obtain a value for each instance. It throws {@link
+   * IllegalArgumentException} if {@code count} is negative.
+   */
+  boolean batchMethods() default false;
+
+  /**
+   * The number of released instances that the generated factory keeps for reuse, or 0, the
+   * default, for a factory that always creates new instances.
+   *
+   * <p>With a positive pool size, the factory has a {@code release(T)} method, which puts an
+   * instance that its caller no longer uses into a bounded, thread-safe pool, unless the pool is
+   * full. A factory method takes an instance from the pool, if there is one, and initializes it
+   * again by calling the method annotated with {@link Reset @Reset} that has the same parameter
+   * types as the constructor, with the arguments that the constructor would have received.
+   * Otherwise it calls the constructor. The factory also has {@code poolHitCount()} and {@code
+   * poolMissCount()} methods that return how many instances came from the pool and how many had to
+   * be constructed. Batch methods always construct new instances.
+   *
+   * <p>Every constructor of a pooled class must have a matching {@code @Reset} method, which can be
+   * inherited but cannot throw checked exceptions that the constructor does not throw. The class
+   * cannot be generic, and all the constructors of one factory must belong to the same class.
+   *
+   * <p>The pool does not check whether an instance is already in it. An instance must be released
+   * only once for each time a factory method returned it, and not used after it is released;
+   * otherwise two callers can receive the same instance.
+   */
+  int poolSize() default 0;
+
+  /**
+   * Marks the method that a pooled factory calls to initialize a released instance again. See
+   * {@link #poolSize()}.
+   */
+  @Target(METHOD)
+  @interface Reset {}
+
   /**
    * Specifies that an annotation should be used to determine how to annotate generated AutoFactory
    * classes. For example, suppose you have this annotation:
@@ -45,6 +45,22 @@ final class AnnotationValues {
         null);
   }
 
+  static int asInt(AnnotationValue value) {
+    return value.accept(
+        new SimpleAnnotationValueVisitor6<Integer, Void>() {
+          @Override
+          protected Integer defaultAction(Object o, Void p) {
+            throw new IllegalArgumentException();
+          }
+
+          @Override
+          public Integer visitInt(int i, Void p) {
+            return i;
+          }
+        },
+        null);
+  }
+
   static TypeElement asType(AnnotationValue value) {
     return value.accept(
         new SimpleAnnotationValueVisitor6<TypeElement, Void>() {
@@ -71,6 +71,12 @@ abstract class AutoFactoryDeclaration {
 
   abstract boolean allowSubclasses();
 
+  abstract boolean injectProvidedInstances();
+
+  abstract boolean batchMethods();
+
+  abstract int poolSize();
+
   abstract AnnotationMirror mirror();
 
   abstract ImmutableMap<String, AnnotationValue> valuesMap();
@@ -188,6 +194,20 @@ abstract class AutoFactoryDeclaration {
       AnnotationValue allowSubclassesValue = checkNotNull(values.get("allowSubclasses"));
       boolean allowSubclasses = AnnotationValues.asBoolean(allowSubclassesValue);
 
+      AnnotationValue injectProvidedInstancesValue =
+          checkNotNull(values.get("injectProvidedInstances"));
+      boolean injectProvidedInstances = AnnotationValues.asBoolean(injectProvidedInstancesValue);
+
+      AnnotationValue batchMethodsValue = checkNotNull(values.get("batchMethods"));
+      boolean batchMethods = AnnotationValues.asBoolean(batchMethodsValue);
+
+      AnnotationValue poolSizeValue = checkNotNull(values.get("poolSize"));
+      int poolSize = AnnotationValues.asInt(poolSizeValue);
+      if (poolSize < 0) {
+        messager.printMessage(ERROR, "poolSize cannot be negative", element, mirror, poolSizeValue);
+        return Optional.empty();
+      }
+
       return Optional.<AutoFactoryDeclaration>of(
           new AutoValue_AutoFactoryDeclaration(
               getAnnotatedType(element),
@@ -197,6 +217,9 @@ abstract class AutoFactoryDeclaration {
               extendingType,
               implementingTypes,
               allowSubclasses,
+              injectProvidedInstances,
+              batchMethods,
+              poolSize,
               mirror,
               ImmutableMap.copyOf(values)));
     }
@@ -36,12 +36,14 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -120,7 +122,7 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
     providedChecker = new ProvidedChecker(messager);
     declarationFactory = new AutoFactoryDeclaration.Factory(elements, messager);
     factoryDescriptorGenerator =
-        new FactoryDescriptorGenerator(messager, types, declarationFactory, injectApi);
+        new FactoryDescriptorGenerator(messager, elements, types, declarationFactory, injectApi);
   }
 
   @Override
@@ -141,6 +143,7 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
     return false;
   }
 
+  @SuppressWarnings("try")
   private void doProcess(RoundEnvironment roundEnv) {
     for (Element element : roundEnv.getElementsAnnotatedWith(Provided.class)) {
       providedChecker.checkProvidedParameter(element);
@@ -157,22 +160,24 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
         implementationMethodDescriptorsBuilder = ImmutableSetMultimap.builder();
     // Iterate over the classes and constructors that are annotated with @AutoFactory.
     for (Element element : roundEnv.getElementsAnnotatedWith(AutoFactory.class)) {
-      Optional<AutoFactoryDeclaration> declaration = declarationFactory.createIfValid(element);
-      if (declaration.isPresent()) {
-        PackageAndClass factoryName = declaration.get().getFactoryName();
-        TypeElement extendingType = declaration.get().extendingType();
-        implementationMethodDescriptorsBuilder.putAll(
-            factoryName, implementationMethods(extendingType, element));
-        for (TypeElement implementingType : declaration.get().implementingTypes()) {
+      try (ProcessorEvents.Span span = ProcessorEvents.processElement(element)) {
+        Optional<AutoFactoryDeclaration> declaration = declarationFactory.createIfValid(element);
+        if (declaration.isPresent()) {
+          PackageAndClass factoryName = declaration.get().getFactoryName();
+          TypeElement extendingType = declaration.get().extendingType();
           implementationMethodDescriptorsBuilder.putAll(
-              factoryName, implementationMethods(implementingType, element));
+              factoryName, implementationMethods(extendingType, element));
+          for (TypeElement implementingType : declaration.get().implementingTypes()) {
+            implementationMethodDescriptorsBuilder.putAll(
+                factoryName, implementationMethods(implementingType, element));
+          }
         }
-      }
 
-      ImmutableSet<FactoryMethodDescriptor> descriptors =
-          factoryDescriptorGenerator.generateDescriptor(element);
-      for (FactoryMethodDescriptor descriptor : descriptors) {
-        indexedMethodsBuilder.put(descriptor.factoryName(), descriptor);
+        ImmutableSet<FactoryMethodDescriptor> descriptors =
+            factoryDescriptorGenerator.generateDescriptor(element);
+        for (FactoryMethodDescriptor descriptor : descriptors) {
+          indexedMethodsBuilder.put(descriptor.factoryName(), descriptor);
+        }
       }
     }
 
@@ -202,8 +207,6 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
               ImmutableSet.Builder<TypeMirror> extending = newTypeSetBuilder();
               ImmutableSortedSet.Builder<TypeMirror> implementing = newTypeSetBuilder();
               boolean publicType = false;
-              Set<Boolean> allowSubclassesSet = new HashSet<>();
-              boolean skipCreation = false;
               for (FactoryMethodDescriptor methodDescriptor : methodDescriptors) {
                 annotationsBuilder.addAll(methodDescriptor.declaration().annotations());
                 extending.add(methodDescriptor.declaration().extendingType().asType());
@@ -212,20 +215,37 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
                   implementing.add(implementingType.asType());
                 }
                 publicType |= methodDescriptor.publicMethod();
-                allowSubclassesSet.add(methodDescriptor.declaration().allowSubclasses());
-                if (allowSubclassesSet.size() > 1) {
-                  skipCreation = true;
-                  messager.printMessage(
-                      Kind.ERROR,
-                      "Cannot mix allowSubclasses=true and allowSubclasses=false in one factory.",
-                      methodDescriptor.declaration().target(),
-                      methodDescriptor.declaration().mirror(),
-                      methodDescriptor.declaration().valuesMap().get("allowSubclasses"));
-                }
               }
-              // The set can't be empty because we eliminated methodDescriptors.isEmpty() above.
-              boolean allowSubclasses = allowSubclassesSet.iterator().next();
-              if (!skipCreation) {
+              Optional<Boolean> allowSubclasses =
+                  consistentOption(
+                      methodDescriptors,
+                      "allowSubclasses",
+                      AutoFactoryDeclaration::allowSubclasses);
+              Optional<Boolean> injectProvidedInstances =
+                  consistentOption(
+                      methodDescriptors,
+                      "injectProvidedInstances",
+                      AutoFactoryDeclaration::injectProvidedInstances);
+              Optional<Boolean> batchMethods =
+                  consistentOption(
+                      methodDescriptors, "batchMethods", AutoFactoryDeclaration::batchMethods);
+              Optional<Integer> poolSize =
+                  consistentOption(methodDescriptors, "poolSize", AutoFactoryDeclaration::poolSize);
+              // If the factory is pooled, a missing @Reset method has already been reported.
+              boolean resetMethodsFound =
+                  methodDescriptors.stream()
+                      .allMatch(
+                          m -> m.declaration().poolSize() == 0 || m.resetMethod().isPresent());
+              boolean pooledTypeConsistent =
+                  !poolSize.isPresent()
+                      || poolSize.get() == 0
+                      || consistentPooledType(methodDescriptors);
+              if (allowSubclasses.isPresent()
+                  && injectProvidedInstances.isPresent()
+                  && batchMethods.isPresent()
+                  && poolSize.isPresent()
+                  && resetMethodsFound
+                  && pooledTypeConsistent) {
                 try {
                   factoryWriter.writeFactory(
                       FactoryDescriptor.create(
@@ -236,7 +256,10 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
                           publicType,
                           ImmutableSet.copyOf(methodDescriptors),
                           implementationMethodDescriptors.get(factoryName),
-                          allowSubclasses));
+                          allowSubclasses.get(),
+                          injectProvidedInstances.get(),
+                          batchMethods.get(),
+                          poolSize.get()));
                 } catch (IOException e) {
                   messager.printMessage(Kind.ERROR, "failed: " + e);
                 }
@@ -244,6 +267,54 @@ public final class AutoFactoryProcessor extends AbstractProcessor {
             });
   }
 
+  /**
+   * Returns the value of the {@code @AutoFactory} element {@code name} that the declarations of the
+   * methods of one factory agree on. If they do not agree, reports an error on each declaration
+   * whose value differs from an earlier one, and returns empty.
+   */
+  private <T> Optional<T> consistentOption(
+      Collection<FactoryMethodDescriptor> methodDescriptors,
+      String name,
+      Function<AutoFactoryDeclaration, T> option) {
+    Set<T> values = new HashSet<>();
+    for (FactoryMethodDescriptor methodDescriptor : methodDescriptors) {
+      T value = option.apply(methodDescriptor.declaration());
+      values.add(value);
+      if (values.size() > 1) {
+        messager.printMessage(
+            Kind.ERROR,
+            (value instanceof Boolean)
+                ? String.format("Cannot mix %1$s=true and %1$s=false in one factory.", name)
+                : String.format("Cannot mix different values of %s in one factory.", name),
+            methodDescriptor.declaration().target(),
+            methodDescriptor.declaration().mirror(),
+            methodDescriptor.declaration().valuesMap().get(name));
+      }
+    }
+    return (values.size() == 1) ? Optional.of(values.iterator().next()) : Optional.empty();
+  }
+
+  /**
+   * Returns true if the methods of a pooled factory all create the same class. The pool and {@code
+   * release(T)} only hold one type, so otherwise reports an error on each declaration whose class
+   * differs from an earlier one.
+   */
+  private boolean consistentPooledType(Collection<FactoryMethodDescriptor> methodDescriptors) {
+    Set<TypeElement> targetTypes = new HashSet<>();
+    for (FactoryMethodDescriptor methodDescriptor : methodDescriptors) {
+      targetTypes.add(methodDescriptor.declaration().targetType());
+      if (targetTypes.size() > 1) {
+        messager.printMessage(
+            Kind.ERROR,
+            "Cannot create more than one class in one pooled factory.",
+            methodDescriptor.declaration().target(),
+            methodDescriptor.declaration().mirror(),
+            methodDescriptor.declaration().valuesMap().get("poolSize"));
+      }
+    }
+    return targetTypes.size() == 1;
+  }
+
   private static final Comparator<AnnotationMirror> ANNOTATION_COMPARATOR =
       Comparator.comparing(mirror -> mirror.getAnnotationType().toString());
 
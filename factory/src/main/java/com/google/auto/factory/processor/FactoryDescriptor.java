@@ -18,6 +18,7 @@ package com.google.auto.factory.processor;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -45,6 +46,10 @@ abstract class FactoryDescriptor {
         }
       };
 
+  /** The names of the fields that a pooled factory has in addition to its provider fields. */
+  static final ImmutableList<String> POOL_FIELDS =
+      ImmutableList.of("pool", "poolHitCount", "poolMissCount");
+
   abstract PackageAndClass name();
 
   abstract ImmutableSet<AnnotationMirror> annotations();
@@ -61,6 +66,12 @@ abstract class FactoryDescriptor {
 
   abstract boolean allowSubclasses();
 
+  /** Whether to generate a batch method for each factory method. */
+  abstract boolean batchMethods();
+
+  /** The size of the pool of released instances, or 0 if the factory is not pooled. */
+  abstract int poolSize();
+
   abstract ImmutableMap<Key, ProviderField> providers();
 
   final AutoFactoryDeclaration declaration() {
@@ -68,7 +79,7 @@ abstract class FactoryDescriptor {
     return methodDescriptors().iterator().next().declaration();
   }
 
-  private static class UniqueNameSet {
+  static class UniqueNameSet {
     private final Set<String> uniqueNames = new HashSet<>();
 
     /**
@@ -92,7 +103,10 @@ abstract class FactoryDescriptor {
       boolean publicType,
       ImmutableSet<FactoryMethodDescriptor> methodDescriptors,
       ImmutableSet<ImplementationMethodDescriptor> implementationMethodDescriptors,
-      boolean allowSubclasses) {
+      boolean allowSubclasses,
+      boolean injectProvidedInstances,
+      boolean batchMethods,
+      int poolSize) {
     ImmutableSetMultimap.Builder<Key, Parameter> parametersForProviders =
         ImmutableSetMultimap.builder();
     for (FactoryMethodDescriptor descriptor : methodDescriptors) {
@@ -102,11 +116,20 @@ abstract class FactoryDescriptor {
     }
     ImmutableMap.Builder<Key, ProviderField> providersBuilder = ImmutableMap.builder();
     UniqueNameSet uniqueNames = new UniqueNameSet();
+    if (poolSize > 0) {
+      // Reserve the names of the fields of a pooled factory.
+      POOL_FIELDS.forEach(uniqueNames::getUniqueName);
+    }
     parametersForProviders
         .build()
         .asMap()
         .forEach(
             (key, parameters) -> {
+              // A parameter of type Provider<T> needs a Provider even if the others could share
+              // one instance.
+              boolean injectsInstance =
+                  injectProvidedInstances && parameters.stream().noneMatch(Parameter::isProvider);
+              String suffix = injectsInstance ? "" : "Provider";
               switch (parameters.size()) {
                 case 0:
                   throw new AssertionError();
@@ -115,21 +138,23 @@ abstract class FactoryDescriptor {
                   providersBuilder.put(
                       key,
                       ProviderField.create(
-                          uniqueNames.getUniqueName(parameter.name() + "Provider"),
+                          uniqueNames.getUniqueName(parameter.name() + suffix),
                           key,
-                          parameter.nullable()));
+                          parameter.nullable(),
+                          injectsInstance));
                   break;
                 default:
                   String providerName =
                       uniqueNames.getUniqueName(
                           INVALID_IDENTIFIER_CHARACTERS.replaceFrom(key.toString(), '_')
-                              + "Provider");
+                              + suffix);
                   Optional<AnnotationMirror> nullable =
                       parameters.stream()
                           .map(Parameter::nullable)
                           .flatMap(Streams::stream)
                           .findFirst();
-                  providersBuilder.put(key, ProviderField.create(providerName, key, nullable));
+                  providersBuilder.put(
+                      key, ProviderField.create(providerName, key, nullable, injectsInstance));
                   break;
               }
             });
@@ -155,6 +180,8 @@ abstract class FactoryDescriptor {
         deduplicatedMethodDescriptors,
         deduplicatedImplementationMethodDescriptors,
         allowSubclasses,
+        batchMethods,
+        poolSize,
         providersBuilder.build());
   }
 
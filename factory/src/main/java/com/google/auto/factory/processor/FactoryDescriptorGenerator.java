@@ -21,7 +21,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.partitioningBy;
 import static javax.lang.model.element.Modifier.ABSTRACT;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+import static javax.lang.model.util.ElementFilter.methodsIn;
 import static javax.tools.Diagnostic.Kind.ERROR;
 
 import com.google.auto.common.MoreElements;
@@ -29,6 +32,7 @@ import com.google.auto.factory.AutoFactory;
 import com.google.auto.factory.Provided;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import java.util.List;
 import java.util.Map;
@@ -40,7 +44,9 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementKindVisitor6;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
 /**
@@ -50,16 +56,19 @@ import javax.lang.model.util.Types;
  */
 final class FactoryDescriptorGenerator {
   private final Messager messager;
+  private final Elements elements;
   private final Types types;
   private final AutoFactoryDeclaration.Factory declarationFactory;
   private final InjectApi injectApi;
 
   FactoryDescriptorGenerator(
       Messager messager,
+      Elements elements,
       Types types,
       AutoFactoryDeclaration.Factory declarationFactory,
       InjectApi injectApi) {
     this.messager = messager;
+    this.elements = elements;
     this.types = types;
     this.declarationFactory = declarationFactory;
     this.injectApi = injectApi;
@@ -151,6 +160,8 @@ final class FactoryDescriptorGenerator {
         .isVarArgs(constructor.isVarArgs())
         .exceptions(constructor.getThrownTypes())
         .overridingMethod(false)
+        .resetMethod(
+            resetMethod(declaration, classElement, constructor, constructor.getThrownTypes()))
         .build();
   }
 
@@ -167,6 +178,104 @@ final class FactoryDescriptorGenerator {
             .isVarArgs(false)
             .exceptions(ImmutableSet.of())
             .overridingMethod(false)
+            .resetMethod(resetMethod(declaration, type, type, ImmutableList.of()))
             .build());
   }
+
+  /**
+   * Returns the name of the {@link AutoFactory.Reset @Reset} method of {@code type}, declared or
+   * inherited, that has the same parameter types as the constructor {@code constructorElement}, if
+   * the factory is pooled. For the implicit default constructor, {@code constructorElement} is the
+   * class itself. Reports an error if the factory is pooled and there is no such method, if the
+   * method throws a checked exception that the constructor, which throws {@code
+   * constructorExceptions}, does not, or if the class is generic.
+   */
+  private Optional<String> resetMethod(
+      AutoFactoryDeclaration declaration,
+      TypeElement type,
+      Element constructorElement,
+      List<? extends TypeMirror> constructorExceptions) {
+    if (declaration.poolSize() == 0) {
+      return Optional.empty();
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      messager.printMessage(
+          ERROR,
+          "A pooled @AutoFactory class cannot be generic",
+          declaration.target(),
+          declaration.mirror(),
+          declaration.valuesMap().get("poolSize"));
+      return Optional.empty();
+    }
+    List<? extends VariableElement> constructorParameters =
+        (constructorElement instanceof ExecutableElement)
+            ? ((ExecutableElement) constructorElement).getParameters()
+            : ImmutableList.of();
+    for (ExecutableElement method : methodsIn(elements.getAllMembers(type))) {
+      if (isAnnotationPresent(method, AutoFactory.Reset.class)
+          && visibleToFactory(method, type)
+          && !method.getModifiers().contains(STATIC)
+          && sameParameterTypes(method.getParameters(), constructorParameters)) {
+        // The factory method declares the exceptions of the constructor, so it can only call a
+        // reset method that throws no other checked exceptions.
+        for (TypeMirror exception : method.getThrownTypes()) {
+          if (!isUnchecked(exception) && !isSubtypeOfAny(exception, constructorExceptions)) {
+            messager.printMessage(
+                ERROR,
+                String.format(
+                    "The @AutoFactory.Reset method %s throws %s, which the constructor does not"
+                        + " declare",
+                    method.getSimpleName(),
+                    exception),
+                constructorElement);
+            return Optional.empty();
+          }
+        }
+        return Optional.of(method.getSimpleName().toString());
+      }
+    }
+    messager.printMessage(
+        ERROR,
+        "A pooled @AutoFactory class needs a non-static @AutoFactory.Reset method, visible from"
+            + " its package, with the same parameter types as each of its constructors",
+        constructorElement);
+    return Optional.empty();
+  }
+
+  /**
+   * Returns true if the factory, which is in the package of {@code type}, can call {@code method}.
+   * An inherited method might come from a class in another package.
+   */
+  private static boolean visibleToFactory(ExecutableElement method, TypeElement type) {
+    if (method.getModifiers().contains(PUBLIC)) {
+      return true;
+    }
+    return !method.getModifiers().contains(PRIVATE)
+        && MoreElements.getPackage(method).equals(MoreElements.getPackage(type));
+  }
+
+  private boolean isUnchecked(TypeMirror exception) {
+    return isSubtypeOfAny(
+        exception,
+        ImmutableList.of(
+            elements.getTypeElement(RuntimeException.class.getCanonicalName()).asType(),
+            elements.getTypeElement(Error.class.getCanonicalName()).asType()));
+  }
+
+  private boolean isSubtypeOfAny(TypeMirror type, List<? extends TypeMirror> supertypes) {
+    return supertypes.stream().anyMatch(supertype -> types.isSubtype(type, supertype));
+  }
+
+  private boolean sameParameterTypes(
+      List<? extends VariableElement> a, List<? extends VariableElement> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (int i = 0; i < a.size(); i++) {
+      if (!types.isSameType(a.get(i).asType(), b.get(i).asType())) {
+        return false;
+      }
+    }
+    return true;
+  }
 }
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import java.util.Optional;
 import javax.lang.model.type.TypeMirror;
 
 /**
@@ -62,6 +63,13 @@ abstract class FactoryMethodDescriptor {
 
   abstract ImmutableSet<TypeMirror> exceptions();
 
+  /**
+   * The name of the {@link com.google.auto.factory.AutoFactory.Reset @Reset} method that
+   * initializes a pooled instance again, with the same arguments as the constructor. Only present
+   * if the factory is pooled.
+   */
+  abstract Optional<String> resetMethod();
+
   abstract Builder toBuilder();
 
   final PackageAndClass factoryName() {
@@ -94,6 +102,8 @@ abstract class FactoryMethodDescriptor {
 
     abstract Builder exceptions(Iterable<? extends TypeMirror> exceptions);
 
+    abstract Builder resetMethod(Optional<String> resetMethod);
+
     abstract FactoryMethodDescriptor buildImpl();
 
     FactoryMethodDescriptor build() {
@@ -29,6 +29,7 @@ import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 
 import com.google.auto.common.MoreTypes;
+import com.google.auto.factory.processor.FactoryDescriptor.UniqueNameSet;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -38,6 +39,7 @@ import com.google.common.collect.Sets;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
@@ -46,7 +48,10 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.SourceVersion;
@@ -75,7 +80,15 @@ final class FactoryWriter {
     this.factoriesBeingCreated = factoriesBeingCreated;
   }
 
+  @SuppressWarnings("try")
   void writeFactory(FactoryDescriptor descriptor) throws IOException {
+    try (ProcessorEvents.Span span =
+        ProcessorEvents.writeFactory(descriptor.name(), descriptor.methodDescriptors().size())) {
+      doWriteFactory(descriptor);
+    }
+  }
+
+  private void doWriteFactory(FactoryDescriptor descriptor) throws IOException {
     String factoryName = descriptor.name().className();
     TypeSpec.Builder factory =
         classBuilder(factoryName).addOriginatingElement(descriptor.declaration().targetType());
@@ -103,6 +116,8 @@ final class FactoryWriter {
     addFactoryTypeParameters(factory, factoryTypeVariables);
     addConstructorAndProviderFields(factory, descriptor);
     addFactoryMethods(factory, descriptor, factoryTypeVariables);
+    addBatchMethods(factory, descriptor, factoryTypeVariables);
+    addPoolMembers(factory, descriptor);
     addImplementationMethods(factory, descriptor);
     addCheckNotNullMethod(factory, descriptor);
 
@@ -129,19 +144,35 @@ final class FactoryWriter {
     for (ProviderField provider : providerFields) {
       ++argumentNumber;
       TypeName typeName = resolveTypeName(provider.key().type().get()).box();
-      TypeName providerType =
-          ParameterizedTypeName.get(ClassName.get(injectApi.provider()), typeName);
-      factory.addField(providerType, provider.name(), PRIVATE, FINAL);
+      TypeName fieldType =
+          provider.injectsInstance()
+              ? typeName
+              : ParameterizedTypeName.get(ClassName.get(injectApi.provider()), typeName);
+      factory.addField(fieldType, provider.name(), PRIVATE, FINAL);
+      TypeName parameterType = fieldType;
       if (provider.key().qualifier().isPresent()) {
         // only qualify the constructor parameter
-        providerType = providerType.annotated(AnnotationSpec.get(provider.key().qualifier().get()));
+        parameterType =
+            parameterType.annotated(AnnotationSpec.get(provider.key().qualifier().get()));
+      }
+      ParameterSpec.Builder parameter = ParameterSpec.builder(parameterType, provider.name());
+      if (provider.injectsInstance() && provider.nullable().isPresent()) {
+        // A nullable instance is injected as such, and is not checked. The annotation is already
+        // there if it is a type annotation.
+        AnnotationSpec nullable = AnnotationSpec.get(provider.nullable().get());
+        if (!parameterType.annotations.contains(nullable)) {
+          parameter.addAnnotation(nullable);
+        }
+        constructor.addParameter(parameter.build());
+        constructor.addStatement("this.$1L = $1L", provider.name());
+      } else {
+        constructor.addParameter(parameter.build());
+        constructor.addStatement(
+            "this.$1L = checkNotNull($1L, $2L, $3L)",
+            provider.name(),
+            argumentNumber,
+            providerFields.size());
       }
-      constructor.addParameter(providerType, provider.name());
-      constructor.addStatement(
-          "this.$1L = checkNotNull($1L, $2L, $3L)",
-          provider.name(),
-          argumentNumber,
-          providerFields.size());
     }
 
     factory.addMethod(constructor.build());
@@ -165,43 +196,247 @@ final class FactoryWriter {
       }
       method.addExceptions(
           methodDescriptor.exceptions().stream().map(TypeName::get).collect(toList()));
-      CodeBlock.Builder args = CodeBlock.builder();
       method.addParameters(parameters(methodDescriptor.passedParameters()));
-      ImmutableSet<Parameter> parameters = methodDescriptor.creationParameters();
-      int argumentNumber = 0;
+      CodeBlock args =
+          arguments(descriptor, methodDescriptor).stream()
+              .map(Argument::checked)
+              .collect(CodeBlock.joining(", "));
+      if (descriptor.poolSize() > 0) {
+        addPooledCreation(method, descriptor, methodDescriptor, args);
+      } else {
+        method.addStatement("return new $T($L)", methodDescriptor.returnType(), args);
+      }
+      factory.addMethod(method.build());
+    }
+  }
+
+  /** The argument that a factory method passes for one parameter of the constructor. */
+  private static final class Argument {
+    /** The expression for the argument, without any null check. */
+    final CodeBlock expression;
+
+    /** Whether the value of {@link #expression} needs to be checked for null. */
+    final boolean checkNotNull;
+
+    /** Whether {@link #expression} obtains a new value from a {@code Provider}. */
+    final boolean fromProvider;
+
+    /** The constructor parameter, and its position, counting from 1, and the number of them. */
+    final Parameter parameter;
+
+    final int argumentNumber;
+    final int argumentCount;
+
+    Argument(
+        CodeBlock expression,
+        boolean checkNotNull,
+        boolean fromProvider,
+        Parameter parameter,
+        int argumentNumber,
+        int argumentCount) {
+      this.expression = expression;
+      this.checkNotNull = checkNotNull;
+      this.fromProvider = fromProvider;
+      this.parameter = parameter;
+      this.argumentNumber = argumentNumber;
+      this.argumentCount = argumentCount;
+    }
+
+    /** Returns {@link #expression}, wrapped in a null check if it needs one. */
+    CodeBlock checked() {
+      return checkNotNull
+          ? CodeBlock.of("checkNotNull($L, $L, $L)", expression, argumentNumber, argumentCount)
+          : expression;
+    }
+  }
+
+  /** Returns the arguments that a factory method passes to the constructor, in order. */
+  private ImmutableList<Argument> arguments(
+      FactoryDescriptor descriptor, FactoryMethodDescriptor methodDescriptor) {
+    ImmutableSet<Parameter> parameters = methodDescriptor.creationParameters();
+    ImmutableList.Builder<Argument> arguments = ImmutableList.builder();
+    int argumentNumber = 0;
+    for (Parameter parameter : parameters) {
+      ++argumentNumber;
+      boolean checkNotNull = !parameter.nullable().isPresent();
+      boolean fromProvider = false;
+      CodeBlock argument;
+      if (methodDescriptor.passedParameters().contains(parameter)) {
+        argument = CodeBlock.of(parameter.name());
+        if (parameter.isPrimitive()) {
+          checkNotNull = false;
+        }
+      } else {
+        ProviderField provider = requireNonNull(descriptor.providers().get(parameter.key()));
+        argument = CodeBlock.of(provider.name());
+        if (injectApi.isProvider(parameter.type().get())) {
+          // Providers are checked for nullness in the Factory's constructor.
+          checkNotNull = false;
+        } else if (provider.injectsInstance()) {
+          // Unless the instance may be null, it was checked in the Factory's constructor.
+          argument = CodeBlock.of("this.$L", provider.name());
+          if (!provider.nullable().isPresent()) {
+            checkNotNull = false;
+          }
+        } else {
+          argument = CodeBlock.of("$L.get()", argument);
+          fromProvider = true;
+        }
+      }
+      arguments.add(
+          new Argument(
+              argument, checkNotNull, fromProvider, parameter, argumentNumber, parameters.size()));
+    }
+    return arguments.build();
+  }
+
+  /**
+   * Adds a batch method for each factory method, if the descriptor asks for them. For {@code
+   * create(a, b)}, the batch method is {@code createAll(count, a, b)}, which returns a list of
+   * {@code count} instances. The arguments are checked, and provided dependencies are obtained from
+   * their providers, once for the whole batch rather than once for each instance. A negative {@code
+   * count} causes {@link IllegalArgumentException}.
+   */
+  private void addBatchMethods(
+      TypeSpec.Builder factory,
+      FactoryDescriptor descriptor,
+      ImmutableSet<TypeVariableName> factoryTypeVariables) {
+    if (!descriptor.batchMethods()) {
+      return;
+    }
+    for (FactoryMethodDescriptor methodDescriptor : descriptor.methodDescriptors()) {
+      UniqueNameSet names = new UniqueNameSet();
+      methodDescriptor.passedParameters().forEach(p -> names.getUniqueName(p.name()));
+      String count = names.getUniqueName("count");
+      String instances = names.getUniqueName("instances");
+      String index = names.getUniqueName("i");
+      TypeName instanceType = TypeName.get(methodDescriptor.returnType());
+      TypeName listType = ParameterizedTypeName.get(ClassName.get(List.class), instanceType);
+      MethodSpec.Builder method =
+          methodBuilder(methodDescriptor.name() + "All")
+              .addTypeVariables(getMethodTypeVariables(methodDescriptor, factoryTypeVariables))
+              .returns(listType)
+              .addParameter(TypeName.INT, count)
+              .addParameters(parameters(methodDescriptor.passedParameters()))
+              .varargs(methodDescriptor.isVarArgs());
+      if (methodDescriptor.publicMethod()) {
+        method.addModifiers(PUBLIC);
+      }
+      method.addExceptions(
+          methodDescriptor.exceptions().stream().map(TypeName::get).collect(toList()));
+      method
+          .beginControlFlow("if ($L < 0)", count)
+          .addStatement(
+              "throw new $T($S + $L)",
+              IllegalArgumentException.class,
+              "@AutoFactory batch method count is negative: ",
+              count)
+          .endControlFlow();
+      // Each argument is evaluated and checked once, before the loop. A value from a provider is
+      // kept in a local variable so that every instance gets the same one.
+      CodeBlock.Builder args = CodeBlock.builder();
       String sep = "";
-      for (Parameter parameter : parameters) {
-        ++argumentNumber;
+      for (Argument argument : arguments(descriptor, methodDescriptor)) {
         args.add(sep);
         sep = ", ";
-        boolean checkNotNull = !parameter.nullable().isPresent();
-        CodeBlock argument;
-        if (methodDescriptor.passedParameters().contains(parameter)) {
-          argument = CodeBlock.of(parameter.name());
-          if (parameter.isPrimitive()) {
-            checkNotNull = false;
-          }
+        if (argument.fromProvider) {
+          String local = names.getUniqueName(argument.parameter.name());
+          method.addStatement(
+              "$T $L = $L",
+              resolveTypeName(argument.parameter.type().get()),
+              local,
+              argument.checked());
+          args.add(local);
         } else {
-          ProviderField provider = requireNonNull(descriptor.providers().get(parameter.key()));
-          argument = CodeBlock.of(provider.name());
-          if (injectApi.isProvider(parameter.type().get())) {
-            // Providers are checked for nullness in the Factory's constructor.
-            checkNotNull = false;
-          } else {
-            argument = CodeBlock.of("$L.get()", argument);
+          if (argument.checkNotNull) {
+            method.addStatement("$L", argument.checked());
           }
+          args.add(argument.expression);
         }
-        if (checkNotNull) {
-          argument =
-              CodeBlock.of("checkNotNull($L, $L, $L)", argument, argumentNumber, parameters.size());
-        }
-        args.add(argument);
       }
-      method.addStatement("return new $T($L)", methodDescriptor.returnType(), args.build());
+      method
+          .addStatement("$T $L = new $T<>($L)", listType, instances, ArrayList.class, count)
+          .beginControlFlow("for (int $1L = 0; $1L < $2L; $1L++)", index, count)
+          .addStatement("$L.add(new $T($L))", instances, instanceType, args.build())
+          .endControlFlow()
+          .addStatement("return $L", instances);
+      factory.addMethod(method.build());
+    }
+  }
+
+  /**
+   * Adds the body of a factory method of a pooled factory, which reuses an instance from the pool
+   * if there is one, by calling its reset method with {@code args}, and otherwise constructs a new
+   * instance with {@code args}. Only one of the two uses of {@code args} is evaluated.
+   */
+  private static void addPooledCreation(
+      MethodSpec.Builder method,
+      FactoryDescriptor descriptor,
+      FactoryMethodDescriptor methodDescriptor,
+      CodeBlock args) {
+    UniqueNameSet names = new UniqueNameSet();
+    methodDescriptor.passedParameters().forEach(p -> names.getUniqueName(p.name()));
+    String instance = names.getUniqueName("instance");
+    method
+        .addStatement("$T $L = this.pool.poll()", pooledType(descriptor), instance)
+        .beginControlFlow("if ($L == null)", instance)
+        .addStatement("this.poolMissCount.incrementAndGet()")
+        .addStatement("return new $T($L)", methodDescriptor.returnType(), args)
+        .endControlFlow()
+        .addStatement("this.poolHitCount.incrementAndGet()")
+        .addStatement("$L.$L($L)", instance, methodDescriptor.resetMethod().get(), args)
+        .addStatement("return $L", instance);
+  }
+
+  /**
+   * Adds the pool of a pooled factory, with its hit and miss counters, and the methods that release
+   * an instance into the pool and read the counters. The names of the fields are reserved by
+   * {@link FactoryDescriptor#POOL_FIELDS}.
+   */
+  private static void addPoolMembers(TypeSpec.Builder factory, FactoryDescriptor descriptor) {
+    if (descriptor.poolSize() == 0) {
+      return;
+    }
+    TypeName pooledType = pooledType(descriptor);
+    factory.addField(
+        FieldSpec.builder(
+                ParameterizedTypeName.get(ClassName.get(ArrayBlockingQueue.class), pooledType),
+                "pool",
+                PRIVATE,
+                FINAL)
+            .initializer("new $T<>($L)", ArrayBlockingQueue.class, descriptor.poolSize())
+            .build());
+    for (String counter : ImmutableList.of("poolHitCount", "poolMissCount")) {
+      factory.addField(
+          FieldSpec.builder(AtomicLong.class, counter, PRIVATE, FINAL)
+              .initializer("new $T()", AtomicLong.class)
+              .build());
+    }
+
+    MethodSpec.Builder release =
+        methodBuilder("release")
+            .addParameter(pooledType, "instance")
+            .addStatement("this.pool.offer(checkNotNull(instance, 1, 1))");
+    MethodSpec.Builder poolHitCount =
+        methodBuilder("poolHitCount")
+            .returns(TypeName.LONG)
+            .addStatement("return this.poolHitCount.get()");
+    MethodSpec.Builder poolMissCount =
+        methodBuilder("poolMissCount")
+            .returns(TypeName.LONG)
+            .addStatement("return this.poolMissCount.get()");
+    for (MethodSpec.Builder method : ImmutableList.of(release, poolHitCount, poolMissCount)) {
+      if (descriptor.publicType()) {
+        method.addModifiers(PUBLIC);
+      }
       factory.addMethod(method.build());
     }
   }
 
+  private static TypeName pooledType(FactoryDescriptor descriptor) {
+    return TypeName.get(descriptor.declaration().targetType().asType());
+  }
+
   private void addImplementationMethods(TypeSpec.Builder factory, FactoryDescriptor descriptor) {
     for (ImplementationMethodDescriptor methodDescriptor :
         descriptor.implementationMethodDescriptors()) {
@@ -265,9 +500,15 @@ final class FactoryWriter {
   }
 
   private static boolean shouldGenerateCheckNotNull(FactoryDescriptor descriptor) {
-    if (!descriptor.providers().isEmpty()) {
+    if (descriptor.poolSize() > 0) {
+      // release(T) checks its argument.
       return true;
     }
+    for (ProviderField provider : descriptor.providers().values()) {
+      if (!provider.injectsInstance() || !provider.nullable().isPresent()) {
+        return true;
+      }
+    }
     for (FactoryMethodDescriptor method : descriptor.methodDescriptors()) {
       for (Parameter parameter : method.creationParameters()) {
         if (!parameter.nullable().isPresent() && !parameter.type().get().getKind().isPrimitive()) {
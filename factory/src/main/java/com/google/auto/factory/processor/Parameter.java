@@ -57,6 +57,14 @@ abstract class Parameter {
     return type().get().getKind().isPrimitive();
   }
 
+  /**
+   * True if the type of the parameter is {@code Provider<T>}, in which case {@code key().type()} is
+   * {@code T}.
+   */
+  boolean isProvider() {
+    return !isPrimitive() && !type().equals(key().type());
+  }
+
   /** The name of the parameter. */
   abstract String name();
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.factory.processor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by {@link AutoFactoryProcessor}: {@code
+ * com.google.auto.factory.ProcessElement} for the analysis of each {@code @AutoFactory} element and
+ * {@code com.google.auto.factory.WriteFactory} for the generation of each factory.
+ *
+ * <p>These cost next to nothing when they are not being recorded, and nothing at all if the {@code
+ * jdk.jfr} API is missing, as in JDK 8 releases before 8u262.
+ */
+final class ProcessorEvents {
+  private ProcessorEvents() {}
+
+  /** A timed operation. Closing it commits its event, if that event is being recorded. */
+  interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_SPAN = () -> {};
+
+  private static final boolean JFR_AVAILABLE = jfrAvailable();
+
+  private static boolean jfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, ProcessorEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /** Starts timing the analysis of the {@code @AutoFactory} type or constructor {@code element}. */
+  static Span processElement(Object element) {
+    return JFR_AVAILABLE ? Recorder.processElement(element) : NO_SPAN;
+  }
+
+  /** Starts timing the generation and writing of the factory {@code factoryName}. */
+  static Span writeFactory(Object factoryName, int methodCount) {
+    return JFR_AVAILABLE ? Recorder.writeFactory(factoryName, methodCount) : NO_SPAN;
+  }
+
+  /** Only loaded if {@link #JFR_AVAILABLE}, since it references subclasses of {@link Event}. */
+  private static final class Recorder {
+    static Span processElement(Object element) {
+      ProcessElementEvent event = new ProcessElementEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.element = String.valueOf(element);
+      event.begin();
+      return event::commit;
+    }
+
+    static Span writeFactory(Object factoryName, int methodCount) {
+      WriteFactoryEvent event = new WriteFactoryEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.factory = String.valueOf(factoryName);
+      event.methodCount = methodCount;
+      event.begin();
+      return event::commit;
+    }
+  }
+
+  @Name("com.google.auto.factory.ProcessElement")
+  @Label("Process Element")
+  @Category({"Annotation Processing", "AutoFactory"})
+  @Description("Analysis of an @AutoFactory type or constructor")
+  static final class ProcessElementEvent extends Event {
+    @Label("Element")
+    String element;
+  }
+
+  @Name("com.google.auto.factory.WriteFactory")
+  @Label("Write Factory")
+  @Category({"Annotation Processing", "AutoFactory"})
+  @Description("Generation of a factory class and writing it through the Filer")
+  static final class WriteFactoryEvent extends Event {
+    @Label("Factory")
+    String factory;
+
+    @Label("Method Count")
+    int methodCount;
+  }
+}
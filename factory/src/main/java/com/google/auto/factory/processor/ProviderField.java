@@ -36,8 +36,18 @@ abstract class ProviderField {
     return unwrapOptionalEquivalence(nullableWrapper());
   }
 
-  static ProviderField create(String name, Key key, Optional<AnnotationMirror> nullable) {
+  /**
+   * True if the field holds the dependency itself, injected once into the factory's constructor,
+   * rather than a {@code Provider} for it.
+   */
+  abstract boolean injectsInstance();
+
+  static ProviderField create(
+      String name, Key key, Optional<AnnotationMirror> nullable, boolean injectsInstance) {
     return new AutoValue_ProviderField(
-        name, key, wrapOptionalInEquivalence(AnnotationMirrors.equivalence(), nullable));
+        name,
+        key,
+        wrapOptionalInEquivalence(AnnotationMirrors.equivalence(), nullable),
+        injectsInstance);
   }
 }
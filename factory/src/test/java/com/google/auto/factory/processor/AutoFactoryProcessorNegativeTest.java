@@ -52,6 +52,59 @@ public class AutoFactoryProcessorNegativeTest {
         .onLine(27);
   }
 
+  @Test
+  public void failsWithMixedInjectProvidedInstances() {
+    JavaFileObject file = JavaFileObjects.forResource("bad/MixedInjectProvidedInstances.java");
+    Compilation compilation = javac.compile(file);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "Cannot mix injectProvidedInstances=true and injectProvidedInstances=false in one"
+                + " factory.")
+        .inFile(file)
+        .onLine(24);
+  }
+
+  @Test
+  public void pooledWithoutReset() {
+    JavaFileObject file = JavaFileObjects.forResource("bad/PooledWithoutReset.java");
+    Compilation compilation = javac.compile(file);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "A pooled @AutoFactory class needs a non-static @AutoFactory.Reset method, visible from"
+                + " its package, with the same parameter types as each of its constructors")
+        .inFile(file)
+        .onLine(22);
+    assertThat(compilation).hadErrorCount(1);
+  }
+
+  @Test
+  public void pooledResetThrows() {
+    JavaFileObject file = JavaFileObjects.forResource("bad/PooledResetThrows.java");
+    Compilation compilation = javac.compile(file);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "The @AutoFactory.Reset method reset throws java.io.IOException, which the constructor"
+                + " does not declare")
+        .inFile(file)
+        .onLine(23);
+    assertThat(compilation).hadErrorCount(1);
+  }
+
+  @Test
+  public void pooledMixedTypes() {
+    JavaFileObject file = JavaFileObjects.forResource("bad/PooledMixedTypes.java");
+    Compilation compilation = javac.compile(file);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining("Cannot create more than one class in one pooled factory.")
+        .inFile(file)
+        .onLine(29);
+    assertThat(compilation).hadErrorCount(1);
+  }
+
   @Test
   public void providedButNoAutoFactory() {
     JavaFileObject file = JavaFileObjects.forResource("bad/ProvidedButNoAutoFactory.java");
@@ -343,6 +343,37 @@ public class AutoFactoryProcessorTest {
             "expected/SimpleClassProvidedProviderDepsFactory.java"));
   }
 
+  @Test
+  public void providedInstances() {
+    goldenTest(
+        ImmutableList.of(
+            "good/ProvidedInstances.java", "support/AQualifier.java", "support/BQualifier.java"),
+        ImmutableMap.of(
+            "tests.ProvidedInstancesFactory", "expected/ProvidedInstancesFactory.java"));
+  }
+
+  @Test
+  public void batchMethods() {
+    goldenTest(
+        ImmutableList.of("good/BatchMethods.java", "support/AQualifier.java"),
+        ImmutableMap.of("tests.BatchMethodsFactory", "expected/BatchMethodsFactory.java"));
+  }
+
+  @Test
+  public void pooled() {
+    goldenTest(
+        ImmutableList.of("good/Pooled.java", "support/AQualifier.java"),
+        ImmutableMap.of("tests.PooledFactory", "expected/PooledFactory.java"));
+  }
+
+  @Test
+  public void pooledInheritedReset() {
+    goldenTest(
+        ImmutableList.of("good/PooledInheritedReset.java"),
+        ImmutableMap.of(
+            "tests.PooledInheritedResetFactory", "expected/PooledInheritedResetFactory.java"));
+  }
+
   @Test
   public void constructorAnnotated() {
     goldenTest(
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.factory.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that {@link AutoFactoryProcessor} emits the JFR events in {@link ProcessorEvents}. */
+@RunWith(JUnit4.class)
+public class ProcessorEventsTest {
+  @Test
+  public void eventsRecorded() throws Exception {
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.google.auto.factory.ProcessElement");
+      recording.enable("com.google.auto.factory.WriteFactory");
+      recording.start();
+      Compilation compilation =
+          javac()
+              .withProcessors(new AutoFactoryProcessor())
+              .compile(JavaFileObjects.forResource("good/ConstructorAnnotated.java"));
+      recording.stop();
+      assertThat(compilation).succeeded();
+      Path recordingFile = Files.createTempFile("processor-events", ".jfr");
+      try {
+        recording.dump(recordingFile);
+        events = RecordingFile.readAllEvents(recordingFile);
+      } finally {
+        Files.delete(recordingFile);
+      }
+    }
+
+    // There is one event for each of the four annotated constructors, which share one factory.
+    ImmutableList<RecordedEvent> processElements = eventsNamed(events, "ProcessElement");
+    assertThat(processElements.stream().map(e -> e.getString("element")).collect(toList()))
+        .containsExactly(
+            "ConstructorAnnotated()",
+            "ConstructorAnnotated(java.lang.String)",
+            "ConstructorAnnotated(java.lang.Object,int)",
+            "ConstructorAnnotated(java.lang.Object,char)");
+    ImmutableList<RecordedEvent> writeFactories = eventsNamed(events, "WriteFactory");
+    assertThat(writeFactories).hasSize(1);
+    assertThat(writeFactories.get(0).getString("factory")).contains("ConstructorAnnotatedFactory");
+    assertThat(writeFactories.get(0).getInt("methodCount")).isEqualTo(4);
+  }
+
+  private static ImmutableList<RecordedEvent> eventsNamed(
+      List<RecordedEvent> events, String simpleName) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals("com.google.auto.factory." + simpleName))
+        .collect(ImmutableList.toImmutableList());
+  }
+}
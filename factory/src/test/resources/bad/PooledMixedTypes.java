@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests;
+
+import com.google.auto.factory.AutoFactory;
+
+final class PooledMixedTypes {
+  @AutoFactory(className = "SharedFactory", poolSize = 4)
+  static final class A {
+    A(String s) {}
+
+    @AutoFactory.Reset
+    void reset(String s) {}
+  }
+
+  @AutoFactory(className = "SharedFactory", poolSize = 4)
+  static final class B {
+    B(int i) {}
+
+    @AutoFactory.Reset
+    void reset(int i) {}
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.annotation.processing.Generated;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+@Generated(
+    value = "com.google.auto.factory.processor.AutoFactoryProcessor",
+    comments = "https://github.com/google/auto/tree/main/factory"
+    )
+final class BatchMethodsFactory {
+  private final Provider<String> providedDepAProvider;
+  private final Provider<Long> longProviderProvider;
+
+  @Inject
+  BatchMethodsFactory(
+      @AQualifier Provider<String> providedDepAProvider, Provider<Long> longProviderProvider) {
+    this.providedDepAProvider = checkNotNull(providedDepAProvider, 1, 2);
+    this.longProviderProvider = checkNotNull(longProviderProvider, 2, 2);
+  }
+
+  BatchMethods create(String depB, @Nullable Object nullableDep, int count) {
+    return new BatchMethods(
+        checkNotNull(providedDepAProvider.get(), 1, 5),
+        longProviderProvider,
+        checkNotNull(depB, 3, 5),
+        nullableDep,
+        count);
+  }
+
+  List<BatchMethods> createAll(int count2, String depB, @Nullable Object nullableDep, int count) {
+    if (count2 < 0) {
+      throw new IllegalArgumentException("@AutoFactory batch method count is negative: " + count2);
+    }
+    String providedDepA = checkNotNull(providedDepAProvider.get(), 1, 5);
+    checkNotNull(depB, 3, 5);
+    List<BatchMethods> instances = new ArrayList<>(count2);
+    for (int i = 0; i < count2; i++) {
+      instances.add(new BatchMethods(providedDepA, longProviderProvider, depB, nullableDep, count));
+    }
+    return instances;
+  }
+
+  private static <T> T checkNotNull(T reference, int argumentNumber, int argumentCount) {
+    if (reference == null) {
+      throw new NullPointerException(
+          "@AutoFactory method argument is null but is not marked @Nullable. Argument "
+              + argumentNumber
+              + " of "
+              + argumentCount);
+    }
+    return reference;
+  }
+}
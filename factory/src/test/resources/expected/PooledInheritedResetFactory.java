@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.processing.Generated;
+import javax.inject.Inject;
+
+@Generated(
+    value = "com.google.auto.factory.processor.AutoFactoryProcessor",
+    comments = "https://github.com/google/auto/tree/main/factory"
+    )
+final class PooledInheritedResetFactory {
+  private final ArrayBlockingQueue<PooledInheritedReset> pool = new ArrayBlockingQueue<>(4);
+  private final AtomicLong poolHitCount = new AtomicLong();
+  private final AtomicLong poolMissCount = new AtomicLong();
+
+  @Inject
+  PooledInheritedResetFactory() {}
+
+  PooledInheritedReset create(String input) throws IOException {
+    PooledInheritedReset instance = this.pool.poll();
+    if (instance == null) {
+      this.poolMissCount.incrementAndGet();
+      return new PooledInheritedReset(checkNotNull(input, 1, 1));
+    }
+    this.poolHitCount.incrementAndGet();
+    instance.reset(checkNotNull(input, 1, 1));
+    return instance;
+  }
+
+  void release(PooledInheritedReset instance) {
+    this.pool.offer(checkNotNull(instance, 1, 1));
+  }
+
+  long poolHitCount() {
+    return this.poolHitCount.get();
+  }
+
+  long poolMissCount() {
+    return this.poolMissCount.get();
+  }
+
+  private static <T> T checkNotNull(T reference, int argumentNumber, int argumentCount) {
+    if (reference == null) {
+      throw new NullPointerException(
+          "@AutoFactory method argument is null but is not marked @Nullable. Argument "
+              + argumentNumber
+              + " of "
+              + argumentCount);
+    }
+    return reference;
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests;
+
+import javax.annotation.Nullable;
+import javax.annotation.processing.Generated;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+@Generated(
+    value = "com.google.auto.factory.processor.AutoFactoryProcessor",
+    comments = "https://github.com/google/auto/tree/main/factory"
+    )
+final class ProvidedInstancesFactory {
+  private final String providedDepA;
+  private final Integer providedPrimitive;
+  private final Object nullableDep;
+  private final Provider<Long> longProviderProvider;
+
+  @Inject
+  ProvidedInstancesFactory(
+      @AQualifier String providedDepA,
+      @BQualifier Integer providedPrimitive,
+      @Nullable Object nullableDep,
+      Provider<Long> longProviderProvider) {
+    this.providedDepA = checkNotNull(providedDepA, 1, 4);
+    this.providedPrimitive = checkNotNull(providedPrimitive, 2, 4);
+    this.nullableDep = nullableDep;
+    this.longProviderProvider = checkNotNull(longProviderProvider, 4, 4);
+  }
+
+  ProvidedInstances create(String depB) {
+    return new ProvidedInstances(
+        this.providedDepA,
+        this.providedPrimitive,
+        this.nullableDep,
+        longProviderProvider,
+        checkNotNull(depB, 5, 5));
+  }
+
+  private static <T> T checkNotNull(T reference, int argumentNumber, int argumentCount) {
+    if (reference == null) {
+      throw new NullPointerException(
+          "@AutoFactory method argument is null but is not marked @Nullable. Argument "
+              + argumentNumber
+              + " of "
+              + argumentCount);
+    }
+    return reference;
+  }
+}
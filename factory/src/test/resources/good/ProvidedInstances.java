@@ -0,0 +1,44 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tests;
+
+import com.google.auto.factory.AutoFactory;
+import com.google.auto.factory.Provided;
+import javax.annotation.Nullable;
+import javax.inject.Provider;
+
+@AutoFactory(injectProvidedInstances = true)
+@SuppressWarnings("unused")
+final class ProvidedInstances {
+  private final String providedDepA;
+  private final int providedPrimitive;
+  private final Object nullableDep;
+  private final Provider<Long> longProvider;
+  private final String depB;
+
+  ProvidedInstances(
+      @Provided @AQualifier String providedDepA,
+      @Provided @BQualifier int providedPrimitive,
+      @Provided @Nullable Object nullableDep,
+      @Provided Provider<Long> longProvider,
+      String depB) {
+    this.providedDepA = providedDepA;
+    this.providedPrimitive = providedPrimitive;
+    this.nullableDep = nullableDep;
+    this.longProvider = longProvider;
+    this.depB = depB;
+  }
+}
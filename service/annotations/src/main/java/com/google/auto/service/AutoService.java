@@ -41,4 +41,13 @@ import java.lang.annotation.Target;
 public @interface AutoService {
   /** Returns the interfaces implemented by this service provider. */
   Class<?>[] value();
+
+  /**
+   * Returns the priority of this service provider relative to the other providers of the same
+   * services. Providers with a higher priority are listed first in the generated service files, so
+   * {@link java.util.ServiceLoader} also returns them first. Providers with a non-zero priority are
+   * also recorded in a metadata file, which {@link ServiceProviders#loadFirst} uses to instantiate
+   * only the provider with the highest priority on the class path.
+   */
+  int priority() default 0;
 }
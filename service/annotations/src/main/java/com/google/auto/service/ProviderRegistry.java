@@ -0,0 +1,33 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A registry of the {@link AutoService @AutoService} providers in one module, generated by the
+ * AutoService processor when the {@code -Aautoservice.registry} option names its class. User code
+ * does not normally implement or call this interface directly, but uses {@link ServiceProviders}.
+ */
+public interface ProviderRegistry {
+  /**
+   * Returns one supplier for each provider of {@code service} in this registry, in the same order
+   * as in the {@code META-INF/services} file for {@code service}. Each call to a supplier creates a
+   * new instance of its provider, by calling its no-arg constructor directly.
+   */
+  List<Supplier<?>> providers(Class<?> service);
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Finds the providers of a service using the {@link ProviderRegistry} classes generated by
+ * AutoService, as a faster alternative to {@link ServiceLoader#load(Class, ClassLoader)}.
+ *
+ * <p>The registries visible from a class loader are found with a single {@link ServiceLoader}
+ * lookup, the first time that class loader is used, and are then remembered. After that, finding
+ * the providers of a service does not scan the class path or use reflection. Only providers in
+ * modules that were compiled with a registry are found.
+ *
+ * <p>{@link #loadFirst(Class, ClassLoader)} instead finds every provider of a service that {@link
+ * ServiceLoader} would, with or without a registry, and instantiates only the one with the highest
+ * {@linkplain AutoService#priority() priority}.
+ */
+public final class ServiceProviders {
+  private static final String SERVICES_PATH = "META-INF/services/";
+
+  /** Where AutoService writes the priorities of the providers of each service. */
+  private static final String PRIORITIES_PATH = "META-INF/auto-service/priorities/";
+
+  /**
+   * The registries visible from each class loader. The values are soft references because each
+   * registry's class refers to its class loader, which would otherwise never be collected.
+   */
+  private static final Map<ClassLoader, SoftReference<List<ProviderRegistry>>> registries =
+      new WeakHashMap<>();
+
+  private ServiceProviders() {}
+
+  /**
+   * Returns a new instance of each provider of {@code service} in the registries visible from the
+   * {@linkplain Thread#getContextClassLoader() context class loader} of the current thread.
+   */
+  public static <S> List<S> load(Class<S> service) {
+    return load(service, Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Returns a new instance of each provider of {@code service} in the registries visible from
+   * {@code loader}.
+   */
+  public static <S> List<S> load(Class<S> service, ClassLoader loader) {
+    List<S> instances = new ArrayList<>();
+    for (Supplier<? extends S> supplier : suppliers(service, loader)) {
+      instances.add(supplier.get());
+    }
+    return Collections.unmodifiableList(instances);
+  }
+
+  /**
+   * Returns a supplier for each provider of {@code service} in the registries visible from {@code
+   * loader}. No provider is instantiated until its supplier is called.
+   */
+  public static <S> List<Supplier<? extends S>> suppliers(Class<S> service, ClassLoader loader) {
+    List<Supplier<? extends S>> suppliers = new ArrayList<>();
+    for (ProviderRegistry registry : registries(loader)) {
+      for (Supplier<?> supplier : registry.providers(service)) {
+        suppliers.add(() -> service.cast(supplier.get()));
+      }
+    }
+    return Collections.unmodifiableList(suppliers);
+  }
+
+  /**
+   * Returns a new instance of the provider of {@code service} with the highest priority that is
+   * visible from the {@linkplain Thread#getContextClassLoader() context class loader} of the
+   * current thread, or empty if there is none.
+   *
+   * @see #loadFirst(Class, ClassLoader)
+   */
+  public static <S> Optional<S> loadFirst(Class<S> service) {
+    return loadFirst(service, Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Returns a new instance of the provider of {@code service} with the highest priority that is
+   * visible from {@code loader}, or empty if there is none. The providers are the ones listed in
+   * the {@code META-INF/services} files that {@link ServiceLoader} reads, and their priorities are
+   * the ones AutoService recorded from {@link AutoService#priority()}. A provider without a
+   * recorded priority has priority 0. Among providers with the same priority, the one that {@link
+   * ServiceLoader} would return first is chosen. Unlike iterating over a {@link ServiceLoader} to
+   * pick a provider, this loads and instantiates no provider but the chosen one.
+   *
+   * @param loader the class loader to use, or {@code null} for the system class loader
+   * @throws ServiceConfigurationError if the files cannot be read, or the chosen provider cannot be
+   *     instantiated
+   */
+  public static <S> Optional<S> loadFirst(Class<S> service, ClassLoader loader) {
+    ClassLoader classLoader = (loader == null) ? ClassLoader.getSystemClassLoader() : loader;
+    Set<String> providers = new LinkedHashSet<>();
+    Map<String, Integer> priorities = new HashMap<>();
+    try {
+      for (URL url :
+          Collections.list(classLoader.getResources(SERVICES_PATH + service.getName()))) {
+        for (String line : readLines(url)) {
+          int commentStart = line.indexOf('#');
+          String provider = (commentStart >= 0 ? line.substring(0, commentStart) : line).trim();
+          if (!provider.isEmpty()) {
+            providers.add(provider);
+          }
+        }
+      }
+      for (URL url :
+          Collections.list(classLoader.getResources(PRIORITIES_PATH + service.getName()))) {
+        for (String line : readLines(url)) {
+          String[] fields = line.trim().split("\\s+");
+          if (fields.length == 2 && !line.startsWith("#")) {
+            priorities.putIfAbsent(fields[0], Integer.parseInt(fields[1]));
+          }
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      throw new ServiceConfigurationError(
+          service.getName() + ": Cannot read provider configuration: " + e, e);
+    }
+
+    String best = null;
+    int bestPriority = 0;
+    for (String provider : providers) {
+      int priority = priorities.getOrDefault(provider, 0);
+      if (best == null || priority > bestPriority) {
+        best = provider;
+        bestPriority = priority;
+      }
+    }
+    if (best == null) {
+      return Optional.empty();
+    }
+    try {
+      Class<?> providerClass = Class.forName(best, false, classLoader);
+      if (!service.isAssignableFrom(providerClass)) {
+        throw new ServiceConfigurationError(
+            service.getName() + ": Provider " + best + " not a subtype");
+      }
+      return Optional.of(service.cast(providerClass.getConstructor().newInstance()));
+    } catch (ReflectiveOperationException e) {
+      throw new ServiceConfigurationError(
+          service.getName() + ": Provider " + best + " could not be instantiated", e);
+    }
+  }
+
+  private static List<String> readLines(URL url) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(url.openStream(), UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private static List<ProviderRegistry> registries(ClassLoader loader) {
+    synchronized (registries) {
+      SoftReference<List<ProviderRegistry>> ref = registries.get(loader);
+      List<ProviderRegistry> result = (ref == null) ? null : ref.get();
+      if (result == null) {
+        List<ProviderRegistry> list = new ArrayList<>();
+        for (ProviderRegistry registry : ServiceLoader.load(ProviderRegistry.class, loader)) {
+          list.add(registry);
+        }
+        result = Collections.unmodifiableList(list);
+        registries.put(loader, new SoftReference<>(result));
+      }
+      return result;
+    }
+  }
+}
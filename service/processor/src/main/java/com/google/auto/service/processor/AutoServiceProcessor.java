@@ -16,28 +16,41 @@
 package com.google.auto.service.processor;
 
 import static com.google.auto.common.AnnotationMirrors.getAnnotationValue;
+import static com.google.auto.common.GeneratedAnnotations.generatedAnnotation;
 import static com.google.auto.common.MoreElements.getAnnotationMirror;
 import static com.google.auto.common.MoreStreams.toImmutableSet;
 import static com.google.common.base.Throwables.getStackTraceAsString;
+import static javax.lang.model.util.ElementFilter.typesIn;
 
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.service.AutoService;
+import com.google.auto.service.ProviderRegistry;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.RoundEnvironment;
@@ -46,15 +59,18 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
 import javax.lang.model.util.SimpleAnnotationValueVisitor8;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
 import javax.tools.StandardLocation;
 
 /**
@@ -64,11 +80,28 @@ import javax.tools.StandardLocation;
  * Processor Options:<ul>
  *   <li>{@code -Adebug} - turns on debug statements</li>
  *   <li>{@code -Averify=true} - turns on extra verification</li>
+ *   <li>{@code -Aautoservice.incremental=true} - keeps an index of the providers in each
+ *       service file, so that when only some classes are recompiled, the entries for those
+ *       classes are replaced rather than accumulated, and unchanged files are not rewritten</li>
+ *   <li>{@code -Aautoservice.registry=com.example.Registry} - also generates the named class,
+ *       a {@link ProviderRegistry} listing the providers in the service files, which {@link
+ *       com.google.auto.service.ServiceProviders} can use instead of scanning the class path.
+ *       Providers that are only generated in later rounds are listed by further registries,
+ *       {@code com.example.Registry2} and so on</li>
  * </ul>
  */
-@SupportedOptions({"debug", "verify"})
+@SupportedOptions({
+  "debug",
+  "verify",
+  AutoServiceProcessor.INCREMENTAL_OPTION,
+  AutoServiceProcessor.REGISTRY_OPTION
+})
 public class AutoServiceProcessor extends AbstractProcessor {
 
+  static final String INCREMENTAL_OPTION = "autoservice.incremental";
+
+  static final String REGISTRY_OPTION = "autoservice.registry";
+
   @VisibleForTesting
   static final String MISSING_SERVICES_ERROR = "No service interfaces provided for element!";
 
@@ -84,8 +117,47 @@ public class AutoServiceProcessor extends AbstractProcessor {
    */
   private final Multimap<String, String> providers = HashMultimap.create();
 
+  /**
+   * The {@link ProviderIndex} entries for the providers found in this compilation. These are only
+   * used if {@link #INCREMENTAL_OPTION} is set.
+   */
+  private final Set<ProviderIndex.Entry> indexEntries = new LinkedHashSet<>();
+
+  /**
+   * The qualified names of the top-level classes compiled in this compilation. Index entries from
+   * earlier compilations that have one of these classes as their origin are replaced by the
+   * entries from this compilation. Only used if {@link #INCREMENTAL_OPTION} is set.
+   */
+  private final Set<String> compiledTopLevelClasses = new HashSet<>();
+
+  /**
+   * The complete contents of each service file that we wrote or considered writing, including
+   * entries from earlier compilations. This is what the {@link ProviderRegistry} lists.
+   */
+  private final Map<String, ImmutableList<String>> serviceFileContents = new TreeMap<>();
+
+  /** The {@link ProviderRegistry} classes generated so far in this compilation. */
+  private final List<String> registries = new ArrayList<>();
+
+  /**
+   * Maps each service to the providers that a registry generated in an earlier round already lists,
+   * or left out with a warning.
+   */
+  private final SetMultimap<String, String> registeredProviders = HashMultimap.create();
+
+  /**
+   * Maps each service and provider found in this compilation to the provider's {@link
+   * AutoService#priority()}.
+   */
+  private final Table<String, String, Integer> priorities = HashBasedTable.create();
+
   @Override
   public ImmutableSet<String> getSupportedAnnotationTypes() {
+    // In incremental mode we need to see every compilation, including ones where a recompiled
+    // class no longer has @AutoService, so that we can remove its stale entries.
+    if (processingEnv != null && incremental()) {
+      return ImmutableSet.of("*");
+    }
     return ImmutableSet.of(AutoService.class.getName());
   }
 
@@ -128,12 +200,22 @@ public class AutoServiceProcessor extends AbstractProcessor {
 
   private void processImpl(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     if (roundEnv.processingOver()) {
-      generateConfigFiles();
+      // Each registry is itself a provider, of ProviderRegistry.
+      for (String registry : registries) {
+        providers.put(ProviderRegistry.class.getName(), registry);
+        indexEntries.add(
+            new ProviderIndex.Entry(ProviderRegistry.class.getName(), registry, registry));
+      }
+      generateConfigFiles(/* write= */ true);
     } else {
       processAnnotations(annotations, roundEnv);
+      // javac warns about source files created in the last round, which would break -Werror
+      // builds, so the registry is generated now, from the providers known so far.
+      registryClassName().ifPresent(this::generateRegistry);
     }
   }
 
+  @SuppressWarnings("try")
   private void processAnnotations(
       Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
 
@@ -142,42 +224,87 @@ public class AutoServiceProcessor extends AbstractProcessor {
     log(annotations.toString());
     log(elements.toString());
 
+    if (incremental()) {
+      for (TypeElement type : typesIn(roundEnv.getRootElements())) {
+        compiledTopLevelClasses.add(type.getQualifiedName().toString());
+      }
+    }
+
     for (Element e : elements) {
-      // TODO(gak): check for error trees?
-      TypeElement providerImplementer = MoreElements.asType(e);
-      AnnotationMirror annotationMirror = getAnnotationMirror(e, AutoService.class).get();
-      Set<DeclaredType> providerInterfaces = getValueFieldOfClasses(annotationMirror);
-      if (providerInterfaces.isEmpty()) {
-        error(MISSING_SERVICES_ERROR, e, annotationMirror);
-        continue;
+      try (ProcessorEvents.Span span = ProcessorEvents.processProvider(e)) {
+        processProvider(e);
       }
-      for (DeclaredType providerInterface : providerInterfaces) {
-        TypeElement providerType = MoreTypes.asTypeElement(providerInterface);
-
-        log("provider interface: " + providerType.getQualifiedName());
-        log("provider implementer: " + providerImplementer.getQualifiedName());
-
-        if (checkImplementer(providerImplementer, providerType, annotationMirror)) {
-          providers.put(getBinaryName(providerType), getBinaryName(providerImplementer));
-        } else {
-          String message =
-              "ServiceProviders must implement their service provider interface. "
-                  + providerImplementer.getQualifiedName()
-                  + " does not implement "
-                  + providerType.getQualifiedName();
-          error(message, e, annotationMirror);
-        }
+    }
+  }
+
+  private void processProvider(Element e) {
+    // TODO(gak): check for error trees?
+    TypeElement providerImplementer = MoreElements.asType(e);
+    AnnotationMirror annotationMirror = getAnnotationMirror(e, AutoService.class).get();
+    Set<DeclaredType> providerInterfaces = getValueFieldOfClasses(annotationMirror);
+    if (providerInterfaces.isEmpty()) {
+      error(MISSING_SERVICES_ERROR, e, annotationMirror);
+      return;
+    }
+    for (DeclaredType providerInterface : providerInterfaces) {
+      TypeElement providerType = MoreTypes.asTypeElement(providerInterface);
+
+      log("provider interface: " + providerType.getQualifiedName());
+      log("provider implementer: " + providerImplementer.getQualifiedName());
+
+      if (checkImplementer(providerImplementer, providerType, annotationMirror)) {
+        providers.put(getBinaryName(providerType), getBinaryName(providerImplementer));
+        priorities.put(
+            getBinaryName(providerType),
+            getBinaryName(providerImplementer),
+            priority(annotationMirror));
+        indexEntries.add(
+            new ProviderIndex.Entry(
+                getBinaryName(providerType),
+                getBinaryName(providerImplementer),
+                topLevelClass(providerImplementer).getQualifiedName().toString()));
+      } else {
+        String message =
+            "ServiceProviders must implement their service provider interface. "
+                + providerImplementer.getQualifiedName()
+                + " does not implement "
+                + providerType.getQualifiedName();
+        error(message, e, annotationMirror);
       }
     }
   }
 
-  private void generateConfigFiles() {
+  /**
+   * Updates the service files and fills in {@link #serviceFileContents}. If {@code write} is false,
+   * only computes what the service files would contain, without writing anything.
+   */
+  /**
+   * Returns the {@link AutoService#priority()} of {@code annotationMirror}. This is 0 if {@code
+   * AutoService} comes from an older {@code auto-service-annotations} jar that has no {@code
+   * priority}, since that jar can be a different version from this processor.
+   */
+  private int priority(AnnotationMirror annotationMirror) {
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals("priority")) {
+        return (Integer) entry.getValue().getValue();
+      }
+    }
+    return 0;
+  }
+
+  @SuppressWarnings("try")
+  private void generateConfigFiles(boolean write) {
+    if (incremental()) {
+      generateConfigFilesIncrementally(write);
+      return;
+    }
     Filer filer = processingEnv.getFiler();
 
     for (String providerInterface : providers.keySet()) {
       String resourceFile = "META-INF/services/" + providerInterface;
       log("Working on resource file: " + resourceFile);
-      try {
+      try (ProcessorEvents.Span span = writeServiceFileSpan(write, resourceFile)) {
         SortedSet<String> allServices = Sets.newTreeSet();
         try {
           // would like to be able to print the full path
@@ -199,24 +326,304 @@ public class AutoServiceProcessor extends AbstractProcessor {
           log("Resource file did not already exist.");
         }
 
-        Set<String> newServices = new HashSet<>(providers.get(providerInterface));
-        if (!allServices.addAll(newServices)) {
-          log("No new service entries being added.");
-          continue;
-        }
+        Set<String> oldServices = ImmutableSet.copyOf(allServices);
+        allServices.addAll(providers.get(providerInterface));
+        updateServiceFile(filer, providerInterface, allServices, Optional.of(oldServices), write);
+      } catch (IOException e) {
+        fatalError("Unable to create " + resourceFile + ", " + e);
+        return;
+      }
+    }
+  }
 
-        log("New service file contents: " + allServices);
-        FileObject fileObject =
-            filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
-        try (OutputStream out = fileObject.openOutputStream()) {
-          ServicesFiles.writeServiceFile(allServices, out);
-        }
-        log("Wrote to: " + fileObject.toUri());
+  /**
+   * Updates the service files using the {@link ProviderIndex} from earlier compilations. An entry
+   * in the index is stale if its origin class was compiled again in this compilation, in which case
+   * the providers found now replace it, or if its origin class no longer exists. The providers of
+   * stale entries are removed from the service files, and the new providers are added. Entries in
+   * the service files that are not in the index, for example because they were written before the
+   * index existed, are kept. A service file is only written if its contents change.
+   *
+   * <p>The registries generated in an earlier compilation are always stale, since this compilation
+   * generates them again.
+   */
+  @SuppressWarnings("try")
+  private void generateConfigFilesIncrementally(boolean write) {
+    Filer filer = processingEnv.getFiler();
+    ImmutableSet<ProviderIndex.Entry> oldIndex;
+    try {
+      FileObject indexFile =
+          filer.getResource(StandardLocation.CLASS_OUTPUT, "", ProviderIndex.PATH);
+      oldIndex = ProviderIndex.read(indexFile.openInputStream());
+      log("Existing provider index: " + oldIndex);
+    } catch (IOException e) {
+      // As below, this usually means that the index does not exist yet.
+      log("No usable provider index: " + e);
+      oldIndex = ImmutableSet.of();
+    }
+    Elements elements = processingEnv.getElementUtils();
+    Set<ProviderIndex.Entry> staleEntries = new LinkedHashSet<>();
+    Set<ProviderIndex.Entry> newIndex = new LinkedHashSet<>();
+    for (ProviderIndex.Entry entry : oldIndex) {
+      if (compiledTopLevelClasses.contains(entry.origin)
+          || elements.getTypeElement(entry.origin) == null
+          || (entry.service.equals(ProviderRegistry.class.getName())
+              && isGeneratedRegistry(entry.provider))) {
+        staleEntries.add(entry);
+      } else {
+        newIndex.add(entry);
+      }
+    }
+    newIndex.addAll(indexEntries);
+
+    SetMultimap<String, String> staleProviders = HashMultimap.create();
+    staleEntries.forEach(e -> staleProviders.put(e.service, e.provider));
+    SetMultimap<String, String> allProviders = HashMultimap.create();
+    newIndex.forEach(e -> allProviders.put(e.service, e.provider));
+
+    for (String providerInterface : Sets.union(staleProviders.keySet(), providers.keySet())) {
+      String resourceFile = "META-INF/services/" + providerInterface;
+      log("Working on resource file: " + resourceFile);
+      try (ProcessorEvents.Span span = writeServiceFileSpan(write, resourceFile)) {
+        Optional<Set<String>> oldServices = readExistingServiceFile(filer, resourceFile);
+        SortedSet<String> allServices = Sets.newTreeSet(oldServices.orElse(ImmutableSet.of()));
+        allServices.removeAll(staleProviders.get(providerInterface));
+        allServices.addAll(allProviders.get(providerInterface));
+        updateServiceFile(filer, providerInterface, allServices, oldServices, write);
       } catch (IOException e) {
         fatalError("Unable to create " + resourceFile + ", " + e);
         return;
       }
     }
+
+    if (registryClassName().isPresent()) {
+      // The registry lists every service in the index, including those whose files we did not
+      // need to update.
+      for (String providerInterface : allProviders.keySet()) {
+        if (!serviceFileContents.containsKey(providerInterface)) {
+          String resourceFile = "META-INF/services/" + providerInterface;
+          serviceFileContents.put(
+              providerInterface,
+              ProviderPriorities.inPriorityOrder(
+                  readExistingServiceFile(filer, resourceFile)
+                      .orElse(allProviders.get(providerInterface)),
+                  readExistingPriorities(filer, providerInterface).orElse(ImmutableMap.of())));
+        }
+      }
+    }
+
+    if (write && !newIndex.equals(oldIndex)) {
+      try {
+        FileObject indexFile =
+            filer.createResource(StandardLocation.CLASS_OUTPUT, "", ProviderIndex.PATH);
+        try (OutputStream out = indexFile.openOutputStream()) {
+          ProviderIndex.write(ImmutableSet.copyOf(newIndex), out);
+        }
+      } catch (IOException e) {
+        fatalError("Unable to create " + ProviderIndex.PATH + ", " + e);
+      }
+    }
+  }
+
+  /**
+   * Writes the service file of {@code providerInterface}, listing {@code allServices} in priority
+   * order, and its {@link ProviderPriorities} file, unless neither the providers nor their
+   * priorities have changed. The priority file is only written if the priorities have changed, so
+   * there is none for a service whose providers all have the default priority.
+   *
+   * @param oldServices the entries already in the service file, if it exists
+   * @param write false if the contents should only be recorded in {@link #serviceFileContents}
+   */
+  private void updateServiceFile(
+      Filer filer,
+      String providerInterface,
+      Set<String> allServices,
+      Optional<Set<String>> oldServices,
+      boolean write)
+      throws IOException {
+    Map<String, Integer> oldPriorities =
+        readExistingPriorities(filer, providerInterface).orElse(ImmutableMap.of());
+    Map<String, Integer> allPriorities = new TreeMap<>(oldPriorities);
+    priorities
+        .row(providerInterface)
+        .forEach(
+            (provider, priority) -> {
+              if (priority == 0) {
+                allPriorities.remove(provider);
+              } else {
+                allPriorities.put(provider, priority);
+              }
+            });
+    allPriorities.keySet().retainAll(allServices);
+    ImmutableList<String> orderedServices =
+        ProviderPriorities.inPriorityOrder(allServices, allPriorities);
+    serviceFileContents.put(providerInterface, orderedServices);
+    if (!write) {
+      return;
+    }
+    if (oldServices.isPresent()
+        && allServices.equals(oldServices.get())
+        && allPriorities.equals(oldPriorities)) {
+      log("Service entries are unchanged.");
+      return;
+    }
+
+    String resourceFile = ServicesFiles.getPath(providerInterface);
+    log("New service file contents: " + orderedServices);
+    FileObject fileObject = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
+    try (OutputStream out = fileObject.openOutputStream()) {
+      ServicesFiles.writeServiceFile(orderedServices, out);
+    }
+    log("Wrote to: " + fileObject.toUri());
+
+    if (!allPriorities.equals(oldPriorities)) {
+      String priorityFile = ProviderPriorities.getPath(providerInterface);
+      FileObject priorityObject =
+          filer.createResource(StandardLocation.CLASS_OUTPUT, "", priorityFile);
+      try (OutputStream out = priorityObject.openOutputStream()) {
+        ProviderPriorities.write(allPriorities, out);
+      }
+      log("Wrote priorities to: " + priorityObject.toUri());
+    }
+  }
+
+  /** Returns the priorities in the priority file of the given service, if it exists. */
+  private Optional<Map<String, Integer>> readExistingPriorities(
+      Filer filer, String providerInterface) {
+    String priorityFile = ProviderPriorities.getPath(providerInterface);
+    try {
+      FileObject existingFile = filer.getResource(StandardLocation.CLASS_OUTPUT, "", priorityFile);
+      return Optional.of(ProviderPriorities.read(existingFile.openInputStream()));
+    } catch (IOException e) {
+      log("No usable priority file " + priorityFile + ": " + e);
+      return Optional.empty();
+    }
+  }
+
+  /** Returns the entries of the given service file in {@code CLASS_OUTPUT}, if it exists. */
+  private Optional<Set<String>> readExistingServiceFile(Filer filer, String resourceFile) {
+    try {
+      FileObject existingFile = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
+      Set<String> oldServices = ServicesFiles.readServiceFile(existingFile.openInputStream());
+      log("Existing service entries: " + oldServices);
+      return Optional.of(oldServices);
+    } catch (IOException e) {
+      log("Resource file did not already exist.");
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Generates a {@link ProviderRegistry} class listing the providers that the service files will
+   * contain, as far as they are known in this round, except those that a registry from an earlier
+   * round already lists. The first registry is called {@code registryName}, and any later ones
+   * {@code registryName2} and so on. No registry is generated for a later round that finds no new
+   * providers.
+   *
+   * <p>A provider is left out, with a warning, if the registry could not call its no-arg
+   * constructor. It can still be found with {@link java.util.ServiceLoader}.
+   */
+  private void generateRegistry(String registryName) {
+    serviceFileContents.clear();
+    generateConfigFiles(/* write= */ false);
+    if (!registries.isEmpty()
+        && registeredProviders.entries().containsAll(allServiceFileEntries())) {
+      return;
+    }
+    String className =
+        registries.isEmpty() ? registryName : registryName + (registries.size() + 1);
+    Elements elements = processingEnv.getElementUtils();
+    String registryPackage =
+        className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
+    Map<String, List<String>> registryProviders = new TreeMap<>();
+    serviceFileContents.forEach(
+        (service, serviceProviders) -> {
+          if (service.equals(ProviderRegistry.class.getName())) {
+            return;
+          }
+          List<String> constructible = new ArrayList<>();
+          for (String provider : serviceProviders) {
+            if (!registeredProviders.put(service, provider)) {
+              continue;
+            }
+            TypeElement providerType = elements.getTypeElement(provider.replace('$', '.'));
+            if (providerType != null
+                && ProviderRegistrySource.canConstruct(providerType, registryPackage)) {
+              constructible.add(providerType.getQualifiedName().toString());
+            } else {
+              processingEnv
+                  .getMessager()
+                  .printMessage(
+                      Kind.WARNING,
+                      "Provider "
+                          + provider
+                          + " of "
+                          + service
+                          + " is left out of "
+                          + className
+                          + " because its no-arg constructor is not accessible from there",
+                      providerType);
+            }
+          }
+          registryProviders.put(service, constructible);
+        });
+    registries.add(className);
+    String source =
+        ProviderRegistrySource.source(
+            className,
+            registryProviders,
+            generatedAnnotation(elements, processingEnv.getSourceVersion()));
+    try {
+      JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className);
+      try (Writer writer = sourceFile.openWriter()) {
+        writer.write(source);
+      }
+      log("Wrote registry " + className);
+    } catch (IOException e) {
+      fatalError("Unable to create " + className + ", " + e);
+    }
+  }
+
+  /** Returns the entries of {@link #serviceFileContents} that a registry would list. */
+  private ImmutableSet<Map.Entry<String, String>> allServiceFileEntries() {
+    return serviceFileContents.entrySet().stream()
+        .filter(e -> !e.getKey().equals(ProviderRegistry.class.getName()))
+        .flatMap(e -> e.getValue().stream().map(p -> Maps.immutableEntry(e.getKey(), p)))
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns true if {@code className} is one of the registries that {@link #generateRegistry}
+   * generates with the current {@link #REGISTRY_OPTION}.
+   */
+  private boolean isGeneratedRegistry(String className) {
+    Optional<String> registryName = registryClassName();
+    if (!registryName.isPresent() || !className.startsWith(registryName.get())) {
+      return false;
+    }
+    String suffix = className.substring(registryName.get().length());
+    return suffix.isEmpty() || suffix.chars().allMatch(c -> c >= '0' && c <= '9');
+  }
+
+  /** Returns a span for {@link ProcessorEvents#writeServiceFile}, if {@code write} is true. */
+  private static ProcessorEvents.Span writeServiceFileSpan(boolean write, String resourceFile) {
+    return write ? ProcessorEvents.writeServiceFile(resourceFile) : () -> {};
+  }
+
+  private Optional<String> registryClassName() {
+    String registry = processingEnv.getOptions().get(REGISTRY_OPTION);
+    return (registry == null || registry.isEmpty()) ? Optional.empty() : Optional.of(registry);
+  }
+
+  private boolean incremental() {
+    return Boolean.parseBoolean(processingEnv.getOptions().get(INCREMENTAL_OPTION));
+  }
+
+  private static TypeElement topLevelClass(TypeElement type) {
+    while (type.getNestingKind().isNested()) {
+      type = MoreElements.asType(type.getEnclosingElement());
+    }
+    return type;
   }
 
   /**
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by {@link AutoServiceProcessor}: {@code
+ * com.google.auto.service.ProcessProvider} for each {@code @AutoService} class and {@code
+ * com.google.auto.service.WriteServiceFile} for each {@code META-INF/services} file written.
+ *
+ * <p>When an event is not being recorded, its method returns a shared no-op span. When the {@code
+ * jdk.jfr} API is unavailable, as in JDK 8 releases before 8u262, no event class is ever loaded.
+ */
+final class ProcessorEvents {
+  private ProcessorEvents() {}
+
+  /** A timed operation. Closing it commits its event, if that event is being recorded. */
+  interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_SPAN = () -> {};
+
+  private static final boolean JFR_AVAILABLE = jfrAvailable();
+
+  private static boolean jfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, ProcessorEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Starts timing the checks and bookkeeping for the {@code @AutoService} class {@code provider}.
+   */
+  static Span processProvider(Object provider) {
+    return JFR_AVAILABLE ? Recorder.processProvider(provider) : NO_SPAN;
+  }
+
+  /** Starts timing the reading, merging and writing of the service file {@code resourceFile}. */
+  static Span writeServiceFile(String resourceFile) {
+    return JFR_AVAILABLE ? Recorder.writeServiceFile(resourceFile) : NO_SPAN;
+  }
+
+  /** Only loaded if {@link #JFR_AVAILABLE}, since it references subclasses of {@link Event}. */
+  private static final class Recorder {
+    static Span processProvider(Object provider) {
+      ProcessProviderEvent event = new ProcessProviderEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.provider = String.valueOf(provider);
+      event.begin();
+      return event::commit;
+    }
+
+    static Span writeServiceFile(String resourceFile) {
+      WriteServiceFileEvent event = new WriteServiceFileEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.resourceFile = resourceFile;
+      event.begin();
+      return event::commit;
+    }
+  }
+
+  @Name("com.google.auto.service.ProcessProvider")
+  @Label("Process Provider")
+  @Category({"Annotation Processing", "AutoService"})
+  @Description("Checking an @AutoService class and recording the services it provides")
+  static final class ProcessProviderEvent extends Event {
+    @Label("Provider")
+    String provider;
+  }
+
+  @Name("com.google.auto.service.WriteServiceFile")
+  @Label("Write Service File")
+  @Category({"Annotation Processing", "AutoService"})
+  @Description("Merging new providers into a META-INF/services file through the Filer")
+  static final class WriteServiceFileEvent extends Event {
+    @Label("Resource File")
+    String resourceFile;
+  }
+}
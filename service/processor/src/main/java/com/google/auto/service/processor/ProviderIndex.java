@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An index of the {@code @AutoService} providers that earlier compilations wrote into the {@code
+ * META-INF/services} files of the same output directory. Each entry records a service, a provider
+ * of that service, and the top-level class whose source declares the provider. When that class is
+ * recompiled, or no longer exists, the entry is stale and its provider can be removed from the
+ * service file.
+ */
+final class ProviderIndex {
+  /** The location of the index in {@code CLASS_OUTPUT}. */
+  static final String PATH = "META-INF/auto-service/providers.index";
+
+  private static final String HEADER = "# Generated by AutoService. Do not edit.";
+
+  private static final Splitter SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  /** One provider of one service, declared in the source of the top-level class {@code origin}. */
+  static final class Entry {
+    final String service;
+    final String provider;
+    final String origin;
+
+    Entry(String service, String provider, String origin) {
+      this.service = service;
+      this.provider = provider;
+      this.origin = origin;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Entry) {
+        Entry that = (Entry) o;
+        return service.equals(that.service)
+            && provider.equals(that.provider)
+            && origin.equals(that.origin);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(service, provider, origin);
+    }
+
+    @Override
+    public String toString() {
+      return service + " " + provider + " " + origin;
+    }
+  }
+
+  private static final Comparator<Entry> ORDER =
+      Comparator.<Entry, String>comparing(e -> e.service)
+          .thenComparing(e -> e.provider)
+          .thenComparing(e -> e.origin);
+
+  private ProviderIndex() {}
+
+  /**
+   * Reads the entries of an index.
+   *
+   * @param input not {@code null}. Closed after use.
+   * @throws IOException if the index cannot be read or is malformed
+   */
+  static ImmutableSet<Entry> read(InputStream input) throws IOException {
+    ImmutableSet.Builder<Entry> entries = ImmutableSet.builder();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("#")) {
+          continue;
+        }
+        List<String> fields = SPLITTER.splitToList(line);
+        if (fields.isEmpty()) {
+          continue;
+        }
+        if (fields.size() != 3) {
+          throw new IOException("Malformed line in " + PATH + ": " + line);
+        }
+        entries.add(new Entry(fields.get(0), fields.get(1), fields.get(2)));
+      }
+    }
+    return entries.build();
+  }
+
+  /**
+   * Writes the given entries as an index, sorted so that the same entries always produce the same
+   * file.
+   *
+   * @param output not {@code null}. Not closed after use.
+   */
+  static void write(ImmutableSet<Entry> entries, OutputStream output) throws IOException {
+    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+    writer.write(HEADER);
+    writer.newLine();
+    for (Entry entry : entries.stream().sorted(ORDER).toArray(Entry[]::new)) {
+      writer.write(entry.toString());
+      writer.newLine();
+    }
+    writer.flush();
+  }
+}
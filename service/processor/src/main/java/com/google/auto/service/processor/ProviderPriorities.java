@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes the priority metadata of the providers of a service. For each service with a
+ * provider whose {@code @AutoService} has a non-zero {@code priority}, a file next to its {@code
+ * META-INF/services} file lists each such provider with its priority. Providers that are not
+ * listed have priority 0. {@link com.google.auto.service.ServiceProviders#loadFirst} reads these
+ * files to instantiate only the provider with the highest priority.
+ */
+final class ProviderPriorities {
+  /** The directory in {@code CLASS_OUTPUT} of the priority files, one per service. */
+  static final String PATH = "META-INF/auto-service/priorities";
+
+  private static final String HEADER = "# Generated by AutoService. Do not edit.";
+
+  private static final Splitter SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  private ProviderPriorities() {}
+
+  /** Returns the path of the priority file of the service with the given binary name. */
+  static String getPath(String serviceName) {
+    return PATH + "/" + serviceName;
+  }
+
+  /**
+   * Reads the priorities in a priority file.
+   *
+   * @param input not {@code null}. Closed after use.
+   * @return a map from the binary name of each provider to its priority
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  static Map<String, Integer> read(InputStream input) throws IOException {
+    Map<String, Integer> priorities = new TreeMap<>();
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith("#")) {
+          continue;
+        }
+        List<String> fields = SPLITTER.splitToList(line);
+        if (fields.isEmpty()) {
+          continue;
+        }
+        if (fields.size() != 2) {
+          throw new IOException("Malformed line in priority file: " + line);
+        }
+        try {
+          priorities.put(fields.get(0), Integer.parseInt(fields.get(1)));
+        } catch (NumberFormatException e) {
+          throw new IOException("Malformed line in priority file: " + line, e);
+        }
+      }
+    }
+    return priorities;
+  }
+
+  /**
+   * Writes the given priorities as a priority file, sorted by provider so that the same priorities
+   * always produce the same file.
+   *
+   * @param output not {@code null}. Not closed after use.
+   */
+  static void write(Map<String, Integer> priorities, OutputStream output) throws IOException {
+    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, UTF_8));
+    writer.write(HEADER);
+    writer.newLine();
+    for (Map.Entry<String, Integer> entry : new TreeMap<>(priorities).entrySet()) {
+      writer.write(entry.getKey() + " " + entry.getValue());
+      writer.newLine();
+    }
+    writer.flush();
+  }
+
+  /**
+   * Returns the given providers in the order they appear in their service file: highest priority
+   * first, and providers with the same priority by name.
+   */
+  static ImmutableList<String> inPriorityOrder(
+      Collection<String> providers, Map<String, Integer> priorities) {
+    Comparator<String> order =
+        Comparator.<String>comparingInt(p -> priorities.getOrDefault(p, 0))
+            .reversed()
+            .thenComparing(Comparator.naturalOrder());
+    return providers.stream().distinct().sorted(order).collect(ImmutableList.toImmutableList());
+  }
+}
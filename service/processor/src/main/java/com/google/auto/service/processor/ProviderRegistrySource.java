@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static javax.lang.model.util.ElementFilter.constructorsIn;
+
+import com.google.auto.common.MoreElements;
+import com.google.auto.service.ProviderRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Generates the source of a {@link ProviderRegistry} class, which creates each provider by calling
+ * its constructor directly, through a method reference.
+ */
+final class ProviderRegistrySource {
+  private ProviderRegistrySource() {}
+
+  /**
+   * Returns true if a class in {@code registryPackage} can call the no-arg constructor of {@code
+   * providerType} with {@code new}.
+   */
+  static boolean canConstruct(TypeElement providerType, String registryPackage) {
+    boolean samePackage =
+        MoreElements.getPackage(providerType).getQualifiedName().contentEquals(registryPackage);
+    if (providerType.getModifiers().contains(Modifier.ABSTRACT)) {
+      return false;
+    }
+    for (Element e = providerType; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      TypeElement type = (TypeElement) e;
+      if (!accessible(type.getModifiers(), samePackage)
+          || (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC))) {
+        return false;
+      }
+    }
+    return constructorsIn(providerType.getEnclosedElements()).stream()
+        .filter(c -> c.getParameters().isEmpty())
+        .map(ExecutableElement::getModifiers)
+        .anyMatch(modifiers -> accessible(modifiers, samePackage));
+  }
+
+  private static boolean accessible(Set<Modifier> modifiers, boolean samePackage) {
+    return modifiers.contains(Modifier.PUBLIC)
+        || (samePackage && !modifiers.contains(Modifier.PRIVATE));
+  }
+
+  /**
+   * Returns the source of the registry class {@code registryName}.
+   *
+   * @param providers maps the binary name of each service to the canonical names of its providers
+   * @param generatedAnnotation the {@code @Generated} annotation to use, if any
+   */
+  static String source(
+      String registryName,
+      Map<String, List<String>> providers,
+      Optional<TypeElement> generatedAnnotation) {
+    int lastDot = registryName.lastIndexOf('.');
+    String simpleName = registryName.substring(lastDot + 1);
+    StringBuilder source = new StringBuilder();
+    if (lastDot >= 0) {
+      source.append("package ").append(registryName, 0, lastDot).append(";\n\n");
+    }
+    generatedAnnotation.ifPresent(
+        a ->
+            source
+                .append('@')
+                .append(a.getQualifiedName())
+                .append("(\"")
+                .append(AutoServiceProcessor.class.getName())
+                .append("\")\n"));
+    source
+        .append("public final class ")
+        .append(simpleName)
+        .append(" implements ")
+        .append(ProviderRegistry.class.getName())
+        .append(" {\n")
+        .append("  public ")
+        .append(simpleName)
+        .append("() {}\n\n")
+        .append("  @java.lang.Override\n")
+        .append("  public java.util.List<java.util.function.Supplier<?>> providers(")
+        .append("java.lang.Class<?> service) {\n")
+        .append("    switch (service.getName()) {\n");
+    providers.forEach(
+        (service, serviceProviders) -> {
+          if (serviceProviders.isEmpty()) {
+            return;
+          }
+          source
+              .append("      case \"")
+              .append(service)
+              .append("\":\n")
+              .append("        return java.util.Arrays.<java.util.function.Supplier<?>>asList(");
+          String separator = "\n";
+          for (String provider : serviceProviders) {
+            source.append(separator).append("            ").append(provider).append("::new");
+            separator = ",\n";
+          }
+          source.append(");\n");
+        });
+    source
+        .append("      default:\n")
+        .append("        return java.util.Collections.emptyList();\n")
+        .append("    }\n")
+        .append("  }\n")
+        .append("}\n");
+    return source.toString();
+  }
+}
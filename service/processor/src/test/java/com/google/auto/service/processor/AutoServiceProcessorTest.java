@@ -76,6 +76,63 @@ public class AutoServiceProcessorTest {
         .isEqualTo("test.MultiServiceProvider\n");
   }
 
+  @Test
+  public void priority() {
+    Compilation compilation =
+        compiler.compile(
+            JavaFileObjects.forResource("test/SomeService.java"),
+            JavaFileObjects.forResource("test/SomeServiceProvider1.java"),
+            JavaFileObjects.forSourceLines(
+                "test.PreferredProvider",
+                "package test;",
+                "",
+                "@com.google.auto.service.AutoService(value = SomeService.class, priority = 10)",
+                "public class PreferredProvider implements SomeService {}"),
+            JavaFileObjects.forSourceLines(
+                "test.FallbackProvider",
+                "package test;",
+                "",
+                "@com.google.auto.service.AutoService(value = SomeService.class, priority = -1)",
+                "public class FallbackProvider implements SomeService {}"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedFile(StandardLocation.CLASS_OUTPUT, "META-INF/services/test.SomeService")
+        .contentsAsUtf8String()
+        .isEqualTo("test.PreferredProvider\ntest.SomeServiceProvider1\ntest.FallbackProvider\n");
+    assertThat(compilation)
+        .generatedFile(
+            StandardLocation.CLASS_OUTPUT, "META-INF/auto-service/priorities/test.SomeService")
+        .contentsAsUtf8String()
+        .isEqualTo(
+            "# Generated by AutoService. Do not edit.\n"
+                + "test.FallbackProvider -1\n"
+                + "test.PreferredProvider 10\n");
+  }
+
+  @Test
+  public void annotationWithoutPriority() {
+    // An older auto-service-annotations jar, whose @AutoService has no priority. The source takes
+    // the place of the class on the classpath.
+    JavaFileObject oldAutoService =
+        JavaFileObjects.forSourceLines(
+            "com.google.auto.service.AutoService",
+            "package com.google.auto.service;",
+            "",
+            "public @interface AutoService {",
+            "  Class<?>[] value();",
+            "}");
+    Compilation compilation =
+        compiler.compile(
+            oldAutoService,
+            JavaFileObjects.forResource("test/SomeService.java"),
+            JavaFileObjects.forResource("test/SomeServiceProvider1.java"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedFile(StandardLocation.CLASS_OUTPUT, "META-INF/services/test.SomeService")
+        .contentsAsUtf8String()
+        .isEqualTo("test.SomeServiceProvider1\n");
+  }
+
   @Test
   public void badMultiService() {
     Compilation compilation = compiler.compile(JavaFileObjects.forResource("test/NoServices.java"));
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests {@link AutoServiceProcessor} with {@code -Aautoservice.incremental=true}, compiling
+ * separately into the same output directory as an incremental build would.
+ */
+@RunWith(JUnit4.class)
+public class IncrementalAutoServiceTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private File sourceDir;
+  private File outputDir;
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDir = temporaryFolder.newFolder("src");
+    outputDir = temporaryFolder.newFolder("classes");
+    writeSource("SomeService", "public interface SomeService {}");
+    writeSource(
+        "Provider1",
+        "@com.google.auto.service.AutoService(SomeService.class)",
+        "public class Provider1 implements SomeService {}");
+    writeSource(
+        "Provider2",
+        "@com.google.auto.service.AutoService(SomeService.class)",
+        "public class Provider2 implements SomeService {}");
+  }
+
+  @Test
+  public void recompiledProviderReplacesItsEntries() throws IOException {
+    compile("SomeService", "Provider1", "Provider2");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\ntest.Provider2\n");
+
+    // Provider1 no longer has @AutoService. Only it is recompiled, and no @AutoService class is.
+    writeSource("Provider1", "public class Provider1 implements SomeService {}");
+    compile("Provider1");
+    assertThat(serviceFile()).isEqualTo("test.Provider2\n");
+
+    writeSource(
+        "Provider1",
+        "@com.google.auto.service.AutoService(SomeService.class)",
+        "public class Provider1 implements SomeService {}");
+    compile("Provider1");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\ntest.Provider2\n");
+  }
+
+  @Test
+  public void deletedProviderIsRemoved() throws IOException {
+    compile("SomeService", "Provider1", "Provider2");
+    assertThat(new File(outputDir, "test/Provider2.class").delete()).isTrue();
+    writeSource("Other", "public class Other {}");
+    compile("Other");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\n");
+  }
+
+  @Test
+  public void unchangedServiceFileIsNotRewritten() throws IOException {
+    compile("SomeService", "Provider1", "Provider2");
+    File serviceFile = new File(outputDir, "META-INF/services/test.SomeService");
+    File indexFile = new File(outputDir, ProviderIndex.PATH);
+    assertThat(serviceFile.setLastModified(0)).isTrue();
+    assertThat(indexFile.setLastModified(0)).isTrue();
+
+    compile("Provider1");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\ntest.Provider2\n");
+    assertThat(serviceFile.lastModified()).isEqualTo(0);
+    assertThat(indexFile.lastModified()).isEqualTo(0);
+  }
+
+  @Test
+  public void changedPriorityReordersServiceFile() throws IOException {
+    compile("SomeService", "Provider1", "Provider2");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\ntest.Provider2\n");
+    File priorityFile = new File(outputDir, ProviderPriorities.getPath("test.SomeService"));
+    assertThat(priorityFile.exists()).isFalse();
+
+    writeSource(
+        "Provider2",
+        "@com.google.auto.service.AutoService(value = SomeService.class, priority = 1)",
+        "public class Provider2 implements SomeService {}");
+    compile("Provider2");
+    assertThat(serviceFile()).isEqualTo("test.Provider2\ntest.Provider1\n");
+    assertThat(priorityFile.exists()).isTrue();
+
+    writeSource(
+        "Provider2",
+        "@com.google.auto.service.AutoService(SomeService.class)",
+        "public class Provider2 implements SomeService {}");
+    compile("Provider2");
+    assertThat(serviceFile()).isEqualTo("test.Provider1\ntest.Provider2\n");
+  }
+
+  private void writeSource(String className, String... lines) throws IOException {
+    File dir = new File(sourceDir, "test");
+    dir.mkdirs();
+    List<String> allLines = new ArrayList<>();
+    allLines.add("package test;");
+    allLines.add("");
+    allLines.addAll(ImmutableList.copyOf(lines));
+    Files.write(new File(dir, className + ".java").toPath(), allLines, UTF_8);
+  }
+
+  private void compile(String... classNames) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, UTF_8)) {
+      List<File> files = new ArrayList<>();
+      for (String className : classNames) {
+        files.add(new File(sourceDir, "test/" + className + ".java"));
+      }
+      ImmutableList<String> options =
+          ImmutableList.of(
+              "-d",
+              outputDir.getPath(),
+              "-classpath",
+              outputDir.getPath() + File.pathSeparator + System.getProperty("java.class.path"),
+              "-A" + AutoServiceProcessor.INCREMENTAL_OPTION + "=true");
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null,
+              fileManager,
+              diagnostics,
+              options,
+              null,
+              fileManager.getJavaFileObjectsFromFiles(files));
+      task.setProcessors(ImmutableList.of(new AutoServiceProcessor()));
+      assertThat(task.call()).isTrue();
+    }
+    assertThat(diagnostics.getDiagnostics()).isEmpty();
+  }
+
+  private String serviceFile() throws IOException {
+    return new String(
+        Files.readAllBytes(new File(outputDir, "META-INF/services/test.SomeService").toPath()),
+        UTF_8);
+  }
+}
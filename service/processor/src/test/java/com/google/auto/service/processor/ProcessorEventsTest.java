@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static java.util.stream.Collectors.toList;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that {@link AutoServiceProcessor} emits the JFR events in {@link ProcessorEvents}. */
+@RunWith(JUnit4.class)
+public class ProcessorEventsTest {
+  @Test
+  public void eventsRecorded() throws Exception {
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("com.google.auto.service.ProcessProvider");
+      recording.enable("com.google.auto.service.WriteServiceFile");
+      recording.start();
+      Compilation compilation =
+          Compiler.javac()
+              .withProcessors(new AutoServiceProcessor())
+              .compile(
+                  JavaFileObjects.forResource("test/SomeService.java"),
+                  JavaFileObjects.forResource("test/AnotherService.java"),
+                  JavaFileObjects.forResource("test/SomeServiceProvider1.java"),
+                  JavaFileObjects.forResource("test/MultiServiceProvider.java"));
+      recording.stop();
+      assertThat(compilation).succeededWithoutWarnings();
+      Path recordingFile = Files.createTempFile("processor-events", ".jfr");
+      try {
+        recording.dump(recordingFile);
+        events = RecordingFile.readAllEvents(recordingFile);
+      } finally {
+        Files.delete(recordingFile);
+      }
+    }
+
+    assertThat(fieldValues(events, "ProcessProvider", "provider"))
+        .containsExactly("test.SomeServiceProvider1", "test.MultiServiceProvider");
+    assertThat(fieldValues(events, "WriteServiceFile", "resourceFile"))
+        .containsExactly(
+            "META-INF/services/test.SomeService", "META-INF/services/test.AnotherService");
+  }
+
+  private static List<String> fieldValues(
+      List<RecordedEvent> events, String simpleName, String field) {
+    return events.stream()
+        .filter(e -> e.getEventType().getName().equals("com.google.auto.service." + simpleName))
+        .map(e -> e.getString(field))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.service.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import com.google.auto.service.ServiceProviders;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests the {@link com.google.auto.service.ProviderRegistry} that {@link AutoServiceProcessor}
+ * generates with {@code -Aautoservice.registry}, and finding providers through it with {@link
+ * ServiceProviders}. Also tests {@link ServiceProviders#loadFirst}.
+ */
+@RunWith(JUnit4.class)
+public class ProviderRegistryTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final String REGISTRY_OPTION =
+      "-A" + AutoServiceProcessor.REGISTRY_OPTION + "=test.registry.TestRegistry";
+
+  @Test
+  public void registryGenerated() {
+    Compilation compilation =
+        Compiler.javac()
+            .withProcessors(new AutoServiceProcessor())
+            .withOptions(REGISTRY_OPTION)
+            .compile(
+                JavaFileObjects.forResource("test/SomeService.java"),
+                JavaFileObjects.forResource("test/SomeServiceProvider1.java"),
+                JavaFileObjects.forResource("test/SomeServiceProvider2.java"),
+                JavaFileObjects.forResource("test/Enclosing.java"),
+                JavaFileObjects.forResource("test/AnotherService.java"),
+                JavaFileObjects.forResource("test/AnotherServiceProvider.java"));
+    // The registry is not generated in the last round, which javac would warn about.
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedFile(
+            StandardLocation.CLASS_OUTPUT,
+            "META-INF/services/com.google.auto.service.ProviderRegistry")
+        .contentsAsUtf8String()
+        .isEqualTo("test.registry.TestRegistry\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.registry.TestRegistry")
+        .contentsAsUtf8String()
+        .contains(
+            "      case \"test.SomeService\":\n"
+                + "        return java.util.Arrays.<java.util.function.Supplier<?>>asList(\n"
+                + "            test.Enclosing.NestedSomeServiceProvider::new,\n"
+                + "            test.SomeServiceProvider1::new,\n"
+                + "            test.SomeServiceProvider2::new);\n");
+  }
+
+  @Test
+  public void laterRoundProvidersInAnotherRegistry() {
+    Compilation compilation =
+        Compiler.javac()
+            .withProcessors(new AutoServiceProcessor(), new ProviderGenerator())
+            .withOptions(REGISTRY_OPTION)
+            .compile(
+                JavaFileObjects.forResource("test/SomeService.java"),
+                JavaFileObjects.forResource("test/SomeServiceProvider1.java"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedFile(
+            StandardLocation.CLASS_OUTPUT,
+            "META-INF/services/com.google.auto.service.ProviderRegistry")
+        .contentsAsUtf8String()
+        .isEqualTo("test.registry.TestRegistry\ntest.registry.TestRegistry2\n");
+    assertThat(compilation)
+        .generatedFile(StandardLocation.CLASS_OUTPUT, "META-INF/services/test.SomeService")
+        .contentsAsUtf8String()
+        .isEqualTo("test.GeneratedProvider\ntest.SomeServiceProvider1\n");
+    assertThat(compilation)
+        .generatedSourceFile("test.registry.TestRegistry")
+        .contentsAsUtf8String()
+        .doesNotContain("GeneratedProvider");
+    assertThat(compilation)
+        .generatedSourceFile("test.registry.TestRegistry2")
+        .contentsAsUtf8String()
+        .contains(
+            "        return java.util.Arrays.<java.util.function.Supplier<?>>asList(\n"
+                + "            test.GeneratedProvider::new);\n");
+  }
+
+  /** Generates an {@code @AutoService} class in the first round. */
+  private static class ProviderGenerator extends AbstractProcessor {
+    private boolean generated;
+
+    @Override
+    public ImmutableSet<String> getSupportedAnnotationTypes() {
+      return ImmutableSet.of("*");
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      if (!generated) {
+        generated = true;
+        try (Writer writer =
+            processingEnv.getFiler().createSourceFile("test.GeneratedProvider").openWriter()) {
+          writer.write(
+              "package test;\n"
+                  + "@com.google.auto.service.AutoService(SomeService.class)\n"
+                  + "public class GeneratedProvider implements SomeService {}\n");
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return false;
+    }
+  }
+
+  @Test
+  public void inaccessibleProviderLeftOut() {
+    Compilation compilation =
+        Compiler.javac()
+            .withProcessors(new AutoServiceProcessor())
+            .withOptions(REGISTRY_OPTION)
+            .compile(
+                JavaFileObjects.forResource("test/SomeService.java"),
+                JavaFileObjects.forSourceLines(
+                    "test.HiddenProvider",
+                    "package test;",
+                    "",
+                    "@com.google.auto.service.AutoService(SomeService.class)",
+                    "class HiddenProvider implements SomeService {}"));
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .hadWarningContaining(
+            "Provider test.HiddenProvider of test.SomeService is left out of"
+                + " test.registry.TestRegistry");
+    assertThat(compilation)
+        .generatedFile(StandardLocation.CLASS_OUTPUT, "META-INF/services/test.SomeService")
+        .contentsAsUtf8String()
+        .isEqualTo("test.HiddenProvider\n");
+  }
+
+  @Test
+  public void serviceProvidersUsesRegistry() throws Exception {
+    File outputDir = temporaryFolder.newFolder("classes");
+    compile(
+        outputDir,
+        JavaFileObjects.forResource("test/SomeService.java"),
+        JavaFileObjects.forResource("test/SomeServiceProvider1.java"),
+        JavaFileObjects.forResource("test/SomeServiceProvider2.java"),
+        JavaFileObjects.forResource("test/Enclosing.java"));
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {outputDir.toURI().toURL()}, getClass().getClassLoader())) {
+      Class<?> someService = Class.forName("test.SomeService", false, loader);
+      List<?> providers = ServiceProviders.load(someService, loader);
+      assertThat(providers.stream().map(p -> p.getClass().getName()).collect(toList()))
+          .containsExactly(
+              "test.Enclosing$NestedSomeServiceProvider",
+              "test.SomeServiceProvider1",
+              "test.SomeServiceProvider2")
+          .inOrder();
+      List<? extends Supplier<?>> suppliers = ServiceProviders.suppliers(someService, loader);
+      assertThat(suppliers).hasSize(3);
+      assertThat(suppliers.get(0).get()).isNotSameInstanceAs(suppliers.get(0).get());
+      assertThat(ServiceProviders.load(Runnable.class, loader)).isEmpty();
+    }
+  }
+
+  @Test
+  public void loadFirstInstantiatesOnlyHighestPriority() throws Exception {
+    File outputDir = temporaryFolder.newFolder("classes");
+    compile(
+        outputDir,
+        JavaFileObjects.forResource("test/SomeService.java"),
+        JavaFileObjects.forSourceLines(
+            "test.ExpensiveProvider",
+            "package test;",
+            "",
+            "@com.google.auto.service.AutoService(SomeService.class)",
+            "public class ExpensiveProvider implements SomeService {",
+            "  public ExpensiveProvider() {",
+            "    throw new AssertionError();",
+            "  }",
+            "}"),
+        JavaFileObjects.forSourceLines(
+            "test.PreferredProvider",
+            "package test;",
+            "",
+            "@com.google.auto.service.AutoService(value = SomeService.class, priority = 1)",
+            "public class PreferredProvider implements SomeService {}"));
+    try (URLClassLoader loader =
+        new URLClassLoader(new URL[] {outputDir.toURI().toURL()}, getClass().getClassLoader())) {
+      Class<?> someService = Class.forName("test.SomeService", false, loader);
+      Optional<?> first = ServiceProviders.loadFirst(someService, loader);
+      assertThat(first.get().getClass().getName()).isEqualTo("test.PreferredProvider");
+      assertThat(ServiceProviders.loadFirst(Runnable.class, loader).isPresent()).isFalse();
+    }
+  }
+
+  private void compile(File outputDir, JavaFileObject... sources) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager =
+        compiler.getStandardFileManager(diagnostics, null, UTF_8)) {
+      ImmutableList<String> options =
+          ImmutableList.of("-d", outputDir.getPath(), "-Werror", REGISTRY_OPTION);
+      JavaCompiler.CompilationTask task =
+          compiler.getTask(
+              null, fileManager, diagnostics, options, null, ImmutableList.copyOf(sources));
+      task.setProcessors(ImmutableList.of(new AutoServiceProcessor()));
+      assertThat(task.call()).isTrue();
+    }
+    assertThat(
+            diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .collect(toList()))
+        .isEmpty();
+  }
+}
@@ -471,6 +471,17 @@ public class AutoAnnotationTest {
     }
   }
 
+  @Test
+  public void testCachedHashCodeAndToString() {
+    int expectedHashCode = EVERYTHING_FROM_REFLECTION.hashCode();
+    assertThat(EVERYTHING_FROM_AUTO.hashCode()).isEqualTo(expectedHashCode);
+    assertThat(EVERYTHING_FROM_AUTO.toString()).isSameInstanceAs(EVERYTHING_FROM_AUTO.toString());
+    // The cached values are transient, so a deserialized copy recomputes them.
+    Everything copy = SerializableTester.reserialize(EVERYTHING_FROM_AUTO);
+    assertThat(copy.hashCode()).isEqualTo(expectedHashCode);
+    assertThat(copy.toString()).isEqualTo(EVERYTHING_FROM_AUTO.toString());
+  }
+
   @Test
   @SuppressWarnings("GetClassOnAnnotation") // yes, we really do want the implementation classes
   public void testSerialVersionUid() {
@@ -702,4 +713,41 @@ public class AutoAnnotationTest {
         AnnotatedWithEverythingWithDefaults.class.getAnnotation(EverythingWithDefaults.class);
     new EqualsTester().addEqualityGroup(generated, fromReflect).testEquals();
   }
+
+  @AutoAnnotation(cacheSize = 2)
+  static IntegersAnnotation internedIntegersAnnotation(int three) {
+    return AutoAnnotation_AutoAnnotationTest_internedIntegersAnnotation.intern(three);
+  }
+
+  @Test
+  public void testInternedSingleParameter() {
+    IntegersAnnotation interned = internedIntegersAnnotation(23);
+    assertThat(internedIntegersAnnotation(23)).isSameInstanceAs(interned);
+    IntegersAnnotation fromReflect =
+        AnnotatedWithIntegersAnnotation.class.getAnnotation(IntegersAnnotation.class);
+    new EqualsTester().addEqualityGroup(interned, fromReflect).testEquals();
+
+    // The cache holds 2 instances, so after 24 the instances for other values are not kept.
+    IntegersAnnotation interned24 = internedIntegersAnnotation(24);
+    assertThat(internedIntegersAnnotation(24)).isSameInstanceAs(interned24);
+    IntegersAnnotation uncached = internedIntegersAnnotation(25);
+    assertThat(internedIntegersAnnotation(25)).isNotSameInstanceAs(uncached);
+    assertThat(internedIntegersAnnotation(25)).isEqualTo(uncached);
+  }
+
+  @AutoAnnotation(cacheSize = 10)
+  static StringValues internedStringValues(List<String> value) {
+    return AutoAnnotation_AutoAnnotationTest_internedStringValues.intern(value);
+  }
+
+  @Test
+  public void testInternedCollection() {
+    List<String> strings = new ArrayList<>(ImmutableList.of("oops"));
+    StringValues interned = internedStringValues(strings);
+    strings.add("other");
+    assertThat(internedStringValues(ImmutableList.of("oops"))).isSameInstanceAs(interned);
+    assertThat(interned.value()).asList().containsExactly("oops");
+    assertThat(interned).isEqualTo(AnnotatedClass.class.getAnnotation(StringValues.class));
+    assertThat(internedStringValues(strings)).isNotEqualTo(interned);
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.SerializableTester;
+import java.io.Serializable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@code @AutoOneOf} interfaces, which are implemented with records. This needs Java 17.
+ */
+@RunWith(JUnit4.class)
+public class AutoOneOfRecordsTest {
+  @AutoOneOf(Shape.Kind.class)
+  @AutoOneOf.CacheInstances(low = 0, high = 3)
+  public interface Shape extends Serializable {
+    enum Kind {
+      CIRCLE,
+      LABEL,
+      SIDES,
+      POINT
+    }
+
+    Kind getKind();
+
+    double circle();
+
+    String label();
+
+    int sides();
+
+    void point();
+
+    <R> R accept(Visitor<R> visitor);
+
+    interface Visitor<R> {
+      R circle(double radius);
+
+      R label(String label);
+
+      R sides(int sides);
+
+      R point();
+    }
+
+    static Shape ofCircle(double radius) {
+      return AutoOneOf_AutoOneOfRecordsTest_Shape.circle(radius);
+    }
+
+    static Shape ofLabel(String label) {
+      return AutoOneOf_AutoOneOfRecordsTest_Shape.label(label);
+    }
+
+    static Shape ofSides(int sides) {
+      return AutoOneOf_AutoOneOfRecordsTest_Shape.sides(sides);
+    }
+
+    static Shape ofPoint() {
+      return AutoOneOf_AutoOneOfRecordsTest_Shape.point();
+    }
+  }
+
+  @Test
+  public void getters() {
+    Shape circle = Shape.ofCircle(1.5);
+    assertThat(circle.getKind()).isEqualTo(Shape.Kind.CIRCLE);
+    assertThat(circle.circle()).isEqualTo(1.5);
+    assertThrows(UnsupportedOperationException.class, circle::label);
+    assertThrows(UnsupportedOperationException.class, circle::point);
+    Shape point = Shape.ofPoint();
+    assertThat(point.getKind()).isEqualTo(Shape.Kind.POINT);
+    point.point();
+    assertThrows(UnsupportedOperationException.class, point::sides);
+    assertThrows(NullPointerException.class, () -> Shape.ofLabel(null));
+  }
+
+  @Test
+  public void patternMatching() {
+    assertThat(describe(Shape.ofCircle(1.5))).isEqualTo("circle of radius 1.5");
+    assertThat(describe(Shape.ofLabel("foo"))).isEqualTo("label foo");
+    assertThat(describe(Shape.ofSides(5))).isEqualTo("polygon with 5 sides");
+    assertThat(describe(Shape.ofPoint())).isEqualTo("point");
+  }
+
+  private static String describe(Shape shape) {
+    AutoOneOf_AutoOneOfRecordsTest_Shape.Alternative alternative =
+        (AutoOneOf_AutoOneOfRecordsTest_Shape.Alternative) shape;
+    if (alternative instanceof AutoOneOf_AutoOneOfRecordsTest_Shape.CircleCase c) {
+      return "circle of radius " + c.circle();
+    } else if (alternative instanceof AutoOneOf_AutoOneOfRecordsTest_Shape.LabelCase l) {
+      return "label " + l.label();
+    } else if (alternative instanceof AutoOneOf_AutoOneOfRecordsTest_Shape.SidesCase s) {
+      return "polygon with " + s.sides() + " sides";
+    } else {
+      assertThat(alternative).isInstanceOf(AutoOneOf_AutoOneOfRecordsTest_Shape.PointCase.class);
+      return "point";
+    }
+  }
+
+  @Test
+  public void visitor() {
+    Shape.Visitor<String> visitor =
+        new Shape.Visitor<String>() {
+          @Override
+          public String circle(double radius) {
+            return "circle " + radius;
+          }
+
+          @Override
+          public String label(String label) {
+            return "label " + label;
+          }
+
+          @Override
+          public String sides(int sides) {
+            return "sides " + sides;
+          }
+
+          @Override
+          public String point() {
+            return "point";
+          }
+        };
+    assertThat(Shape.ofCircle(2.0).accept(visitor)).isEqualTo("circle 2.0");
+    assertThat(Shape.ofSides(3).accept(visitor)).isEqualTo("sides 3");
+    assertThat(Shape.ofPoint().accept(visitor)).isEqualTo("point");
+  }
+
+  @Test
+  public void equalsHashCodeToString() {
+    new EqualsTester()
+        .addEqualityGroup(Shape.ofCircle(0.0), Shape.ofCircle(0.0))
+        .addEqualityGroup(Shape.ofCircle(-0.0))
+        .addEqualityGroup(Shape.ofCircle(Double.NaN), Shape.ofCircle(Double.NaN))
+        .addEqualityGroup(Shape.ofLabel("foo"), Shape.ofLabel("foo"))
+        .addEqualityGroup(Shape.ofSides(7), Shape.ofSides(7))
+        .addEqualityGroup(Shape.ofPoint())
+        .testEquals();
+    assertThat(Shape.ofLabel("foo").toString()).isEqualTo("Shape{label=foo}");
+    assertThat(Shape.ofPoint().toString()).isEqualTo("Shape{point}");
+  }
+
+  @Test
+  public void cachedInstances() {
+    assertThat(Shape.ofSides(3)).isSameInstanceAs(Shape.ofSides(3));
+    assertThat(Shape.ofSides(4)).isNotSameInstanceAs(Shape.ofSides(4));
+    assertThat(Shape.ofPoint()).isSameInstanceAs(Shape.ofPoint());
+  }
+
+  @Test
+  public void serialization() {
+    SerializableTester.reserializeAndAssert(Shape.ofLabel("foo"));
+    SerializableTester.reserializeAndAssert(Shape.ofSides(12));
+    assertThat(SerializableTester.reserialize(Shape.ofPoint())).isSameInstanceAs(Shape.ofPoint());
+  }
+}
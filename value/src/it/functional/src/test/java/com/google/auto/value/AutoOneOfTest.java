@@ -26,6 +26,8 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -658,4 +660,439 @@ public class AutoOneOfTest {
     OneOfArray oneOfArray = OneOfArray.ofInts(new int[] {1, 2});
     assertThat(oneOfArray.toString()).isEqualTo("OneOfArray{ints=[1, 2]}");
   }
+
+  @AutoOneOf(Measure.Kind.class)
+  public abstract static class Measure {
+    public enum Kind {
+      LENGTH,
+      COUNT,
+      LABEL,
+      UNKNOWN
+    }
+
+    public abstract Kind getKind();
+
+    public abstract double length();
+
+    public abstract int count();
+
+    public abstract String label();
+
+    public abstract void unknown();
+
+    public interface Visitor<R> {
+      R length(double length);
+
+      R count(int count);
+
+      R label(CharSequence label);
+
+      R unknown();
+    }
+
+    public interface IntVisitor {
+      int length(double length);
+
+      int count(int count);
+
+      int label(String label);
+
+      int unknown();
+    }
+
+    public abstract <R> R accept(Visitor<R> visitor);
+
+    public abstract int acceptInt(IntVisitor visitor);
+
+    public static Measure ofLength(double length) {
+      return AutoOneOf_AutoOneOfTest_Measure.length(length);
+    }
+
+    public static Measure ofCount(int count) {
+      return AutoOneOf_AutoOneOfTest_Measure.count(count);
+    }
+
+    public static Measure ofLabel(String label) {
+      return AutoOneOf_AutoOneOfTest_Measure.label(label);
+    }
+
+    public static Measure ofUnknown() {
+      return AutoOneOf_AutoOneOfTest_Measure.unknown();
+    }
+  }
+
+  private static final Measure.Visitor<String> DESCRIBE =
+      new Measure.Visitor<String>() {
+        @Override
+        public String length(double length) {
+          return length + "m";
+        }
+
+        @Override
+        public String count(int count) {
+          return count + "x";
+        }
+
+        @Override
+        public String label(CharSequence label) {
+          return "'" + label + "'";
+        }
+
+        @Override
+        public String unknown() {
+          return "?";
+        }
+      };
+
+  private static final Measure.IntVisitor SIZE =
+      new Measure.IntVisitor() {
+        @Override
+        public int length(double length) {
+          return (int) length;
+        }
+
+        @Override
+        public int count(int count) {
+          return count;
+        }
+
+        @Override
+        public int label(String label) {
+          return label.length();
+        }
+
+        @Override
+        public int unknown() {
+          return -1;
+        }
+      };
+
+  @Test
+  public void visitor() {
+    assertThat(Measure.ofLength(1.5).accept(DESCRIBE)).isEqualTo("1.5m");
+    assertThat(Measure.ofCount(3).accept(DESCRIBE)).isEqualTo("3x");
+    assertThat(Measure.ofLabel("foo").accept(DESCRIBE)).isEqualTo("'foo'");
+    assertThat(Measure.ofUnknown().accept(DESCRIBE)).isEqualTo("?");
+  }
+
+  @Test
+  public void primitiveVisitor() {
+    assertThat(Measure.ofLength(2.5).acceptInt(SIZE)).isEqualTo(2);
+    assertThat(Measure.ofCount(17).acceptInt(SIZE)).isEqualTo(17);
+    assertThat(Measure.ofLabel("foo").acceptInt(SIZE)).isEqualTo(3);
+    assertThat(Measure.ofUnknown().acceptInt(SIZE)).isEqualTo(-1);
+  }
+
+  @AutoOneOf(Reading.Kind.class)
+  @AutoOneOf.CacheInstances(low = -1, high = 1000)
+  public abstract static class Reading {
+    public enum Kind {
+      VALID,
+      UNIT,
+      LEVEL,
+      LETTER,
+      TIMESTAMP,
+      LABEL
+    }
+
+    public abstract Kind getKind();
+
+    public abstract boolean valid();
+
+    public abstract RetentionPolicy unit();
+
+    public abstract int level();
+
+    public abstract char letter();
+
+    public abstract long timestamp();
+
+    public abstract String label();
+
+    public static Reading ofValid(boolean valid) {
+      return AutoOneOf_AutoOneOfTest_Reading.valid(valid);
+    }
+
+    public static Reading ofUnit(RetentionPolicy unit) {
+      return AutoOneOf_AutoOneOfTest_Reading.unit(unit);
+    }
+
+    public static Reading ofLevel(int level) {
+      return AutoOneOf_AutoOneOfTest_Reading.level(level);
+    }
+
+    public static Reading ofLetter(char letter) {
+      return AutoOneOf_AutoOneOfTest_Reading.letter(letter);
+    }
+
+    public static Reading ofTimestamp(long timestamp) {
+      return AutoOneOf_AutoOneOfTest_Reading.timestamp(timestamp);
+    }
+
+    public static Reading ofLabel(String label) {
+      return AutoOneOf_AutoOneOfTest_Reading.label(label);
+    }
+  }
+
+  @Test
+  public void cachedInstances() {
+    assertThat(Reading.ofValid(true)).isSameInstanceAs(Reading.ofValid(true));
+    assertThat(Reading.ofValid(false)).isSameInstanceAs(Reading.ofValid(false));
+    assertThat(Reading.ofValid(true).valid()).isTrue();
+    assertThat(Reading.ofValid(false).valid()).isFalse();
+    for (RetentionPolicy unit : RetentionPolicy.values()) {
+      assertThat(Reading.ofUnit(unit)).isSameInstanceAs(Reading.ofUnit(unit));
+      assertThat(Reading.ofUnit(unit).unit()).isEqualTo(unit);
+    }
+    for (int level : new int[] {-1, 0, 17, 1000}) {
+      assertThat(Reading.ofLevel(level)).isSameInstanceAs(Reading.ofLevel(level));
+      assertThat(Reading.ofLevel(level).level()).isEqualTo(level);
+    }
+    assertThat(Reading.ofLetter('x')).isSameInstanceAs(Reading.ofLetter('x'));
+    assertThat(Reading.ofLetter('x').letter()).isEqualTo('x');
+    assertThat(Reading.ofTimestamp(-1L)).isSameInstanceAs(Reading.ofTimestamp(-1L));
+    assertThat(Reading.ofTimestamp(-1L).timestamp()).isEqualTo(-1L);
+  }
+
+  @Test
+  public void uncachedInstances() {
+    for (int level : new int[] {-2, 1001, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+      assertThat(Reading.ofLevel(level)).isNotSameInstanceAs(Reading.ofLevel(level));
+      assertThat(Reading.ofLevel(level)).isEqualTo(Reading.ofLevel(level));
+      assertThat(Reading.ofLevel(level).level()).isEqualTo(level);
+    }
+    assertThat(Reading.ofLetter('\u20ac')).isNotSameInstanceAs(Reading.ofLetter('\u20ac'));
+    assertThat(Reading.ofTimestamp(1L << 32)).isNotSameInstanceAs(Reading.ofTimestamp(1L << 32));
+    assertThat(Reading.ofTimestamp(1L << 32).timestamp()).isEqualTo(1L << 32);
+    assertThat(Reading.ofLabel("foo")).isNotSameInstanceAs(Reading.ofLabel("foo"));
+  }
+
+  @AutoOneOf(value = CompactReading.Kind.class, compact = true)
+  @AutoOneOf.CacheInstances
+  public abstract static class CompactReading {
+    public enum Kind {
+      VALID,
+      LEVEL
+    }
+
+    public abstract Kind getKind();
+
+    public abstract boolean valid();
+
+    public abstract byte level();
+
+    public static CompactReading ofValid(boolean valid) {
+      return AutoOneOf_AutoOneOfTest_CompactReading.valid(valid);
+    }
+
+    public static CompactReading ofLevel(byte level) {
+      return AutoOneOf_AutoOneOfTest_CompactReading.level(level);
+    }
+  }
+
+  @Test
+  public void compactCachedInstances() {
+    assertThat(CompactReading.ofValid(true)).isSameInstanceAs(CompactReading.ofValid(true));
+    assertThat(CompactReading.ofValid(true).valid()).isTrue();
+    assertThat(CompactReading.ofValid(false).valid()).isFalse();
+    for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++) {
+      byte level = (byte) i;
+      assertThat(CompactReading.ofLevel(level)).isSameInstanceAs(CompactReading.ofLevel(level));
+      assertThat(CompactReading.ofLevel(level).level()).isEqualTo(level);
+    }
+  }
+
+  @AutoOneOf(value = CompactValue.Kind.class, compact = true)
+  public abstract static class CompactValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Kind {
+      NAME,
+      COUNT,
+      RATIO,
+      FLAG,
+      INTS,
+      NONE
+    }
+
+    public abstract Kind getKind();
+
+    public abstract String name();
+
+    public abstract int count();
+
+    public abstract double ratio();
+
+    public abstract boolean flag();
+
+    @SuppressWarnings("mutable")
+    public abstract int[] ints();
+
+    public abstract void none();
+
+    public interface Visitor {
+      void name(String name);
+
+      void count(int count);
+
+      void ratio(double ratio);
+
+      void flag(boolean flag);
+
+      void ints(int[] ints);
+
+      void none();
+    }
+
+    public abstract void accept(Visitor visitor);
+
+    public static CompactValue ofName(String name) {
+      return AutoOneOf_AutoOneOfTest_CompactValue.name(name);
+    }
+
+    public static CompactValue ofCount(int count) {
+      return AutoOneOf_AutoOneOfTest_CompactValue.count(count);
+    }
+
+    public static CompactValue ofRatio(double ratio) {
+      return AutoOneOf_AutoOneOfTest_CompactValue.ratio(ratio);
+    }
+
+    public static CompactValue ofFlag(boolean flag) {
+      return AutoOneOf_AutoOneOfTest_CompactValue.flag(flag);
+    }
+
+    public static CompactValue ofInts(int[] ints) {
+      return AutoOneOf_AutoOneOfTest_CompactValue.ints(ints);
+    }
+
+    public static CompactValue ofNone() {
+      return AutoOneOf_AutoOneOfTest_CompactValue.none();
+    }
+  }
+
+  @Test
+  public void compactEquality() {
+    new EqualsTester()
+        .addEqualityGroup(CompactValue.ofName("foo"), CompactValue.ofName("foo"))
+        .addEqualityGroup(CompactValue.ofName("bar"))
+        .addEqualityGroup(CompactValue.ofCount(0), CompactValue.ofCount(0))
+        .addEqualityGroup(CompactValue.ofCount(-1))
+        .addEqualityGroup(CompactValue.ofRatio(0.0), CompactValue.ofRatio(0.0))
+        .addEqualityGroup(CompactValue.ofRatio(-0.0))
+        .addEqualityGroup(CompactValue.ofRatio(Double.NaN), CompactValue.ofRatio(Double.NaN))
+        .addEqualityGroup(CompactValue.ofFlag(false), CompactValue.ofFlag(false))
+        .addEqualityGroup(CompactValue.ofFlag(true))
+        .addEqualityGroup(
+            CompactValue.ofInts(new int[] {1, 2}), CompactValue.ofInts(new int[] {1, 2}))
+        .addEqualityGroup(CompactValue.ofInts(new int[0]))
+        .addEqualityGroup(CompactValue.ofNone())
+        .testEquals();
+  }
+
+  @Test
+  public void compactGetters() {
+    assertThat(CompactValue.ofName("foo").name()).isEqualTo("foo");
+    assertThat(CompactValue.ofCount(-17).count()).isEqualTo(-17);
+    assertThat(CompactValue.ofRatio(1.5).ratio()).isEqualTo(1.5);
+    assertThat(CompactValue.ofFlag(true).flag()).isTrue();
+    assertThat(CompactValue.ofInts(new int[] {23}).ints()).asList().containsExactly(23);
+    assertThat(CompactValue.ofCount(0).getKind()).isEqualTo(CompactValue.Kind.COUNT);
+    assertThat(CompactValue.ofNone().getKind()).isEqualTo(CompactValue.Kind.NONE);
+    assertThat(CompactValue.ofCount(5).getClass()).isEqualTo(CompactValue.ofName("x").getClass());
+  }
+
+  @Test
+  public void compactGetWrongType() {
+    CompactValue count = CompactValue.ofCount(5);
+    try {
+      count.ratio();
+      fail();
+    } catch (UnsupportedOperationException e) {
+      assertThat(e).hasMessageThat().isEqualTo("COUNT");
+    }
+    try {
+      count.none();
+      fail();
+    } catch (UnsupportedOperationException e) {
+      assertThat(e).hasMessageThat().isEqualTo("COUNT");
+    }
+  }
+
+  @Test
+  public void compactToString() {
+    assertThat(CompactValue.ofName("foo").toString()).isEqualTo("CompactValue{name=foo}");
+    assertThat(CompactValue.ofRatio(0.5).toString()).isEqualTo("CompactValue{ratio=0.5}");
+    assertThat(CompactValue.ofInts(new int[] {1, 2}).toString())
+        .isEqualTo("CompactValue{ints=[1, 2]}");
+    assertThat(CompactValue.ofNone().toString()).isEqualTo("CompactValue{none}");
+  }
+
+  @Test
+  public void compactHashCodeMatchesBoxedValue() {
+    assertThat(CompactValue.ofCount(-17).hashCode()).isEqualTo(Integer.valueOf(-17).hashCode());
+    assertThat(CompactValue.ofRatio(1.5).hashCode()).isEqualTo(Double.valueOf(1.5).hashCode());
+    assertThat(CompactValue.ofFlag(true).hashCode()).isEqualTo(Boolean.TRUE.hashCode());
+  }
+
+  @Test
+  public void compactVisitor() {
+    List<Object> visited = new ArrayList<>();
+    CompactValue.Visitor visitor =
+        new CompactValue.Visitor() {
+          @Override
+          public void name(String name) {
+            visited.add(name);
+          }
+
+          @Override
+          public void count(int count) {
+            visited.add(count);
+          }
+
+          @Override
+          public void ratio(double ratio) {
+            visited.add(ratio);
+          }
+
+          @Override
+          public void flag(boolean flag) {
+            visited.add(flag);
+          }
+
+          @Override
+          public void ints(int[] ints) {
+            visited.add(ints.length);
+          }
+
+          @Override
+          public void none() {
+            visited.add("none");
+          }
+        };
+    CompactValue.ofName("foo").accept(visitor);
+    CompactValue.ofCount(-3).accept(visitor);
+    CompactValue.ofRatio(0.25).accept(visitor);
+    CompactValue.ofFlag(true).accept(visitor);
+    CompactValue.ofInts(new int[2]).accept(visitor);
+    CompactValue.ofNone().accept(visitor);
+    assertThat(visited).containsExactly("foo", -3, 0.25, true, 2, "none").inOrder();
+  }
+
+  @Test
+  public void compactSerialization() throws Exception {
+    CompactValue ratio = CompactValue.ofRatio(2.5);
+    CompactValue none = CompactValue.ofNone();
+    assertThat(roundTrip(ratio)).isEqualTo(ratio);
+    assertThat(roundTrip(none)).isSameInstanceAs(none);
+  }
+
+  private static Object roundTrip(Object object) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(baos);
+    oos.writeObject(object);
+    oos.close();
+    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    return ois.readObject();
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.testing.EqualsTester;
+import com.google.common.testing.SerializableTester;
+import java.io.Serializable;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for {@code @AutoValue} interfaces, which are implemented with records. This needs Java 17.
+ */
+@RunWith(JUnit4.class)
+public class AutoValueRecordsTest {
+  @AutoValue
+  public interface Point extends Serializable {
+    int x();
+
+    double y();
+
+    @Nullable
+    String label();
+
+    static Point of(int x, double y, @Nullable String label) {
+      return new AutoValue_AutoValueRecordsTest_Point(x, y, label);
+    }
+  }
+
+  /** The same properties as {@link Point}, in an abstract class rather than an interface. */
+  @AutoValue
+  public abstract static class ClassPoint {
+    public abstract int x();
+
+    public abstract double y();
+
+    @Nullable
+    public abstract String label();
+
+    static ClassPoint of(int x, double y, @Nullable String label) {
+      return new AutoValue_AutoValueRecordsTest_ClassPoint(x, y, label);
+    }
+  }
+
+  @Test
+  public void isRecord() {
+    Point point = Point.of(1, 2.5, "foo");
+    assertThat(point.getClass().isRecord()).isTrue();
+    assertThat(point.x()).isEqualTo(1);
+    assertThat(point.y()).isEqualTo(2.5);
+    assertThat(point.label()).isEqualTo("foo");
+  }
+
+  @Test
+  public void sameAsClass() {
+    Point point = Point.of(1, -0.0, null);
+    ClassPoint classPoint = ClassPoint.of(1, -0.0, null);
+    assertThat(point.toString()).isEqualTo(classPoint.toString().replace("ClassPoint", "Point"));
+    assertThat(point.hashCode()).isEqualTo(classPoint.hashCode());
+  }
+
+  @Test
+  public void equalsAndHashCode() {
+    new EqualsTester()
+        .addEqualityGroup(Point.of(1, 0.0, "foo"), Point.of(1, 0.0, "foo"))
+        .addEqualityGroup(Point.of(1, -0.0, "foo"))
+        .addEqualityGroup(Point.of(1, Double.NaN, null), Point.of(1, Double.NaN, null))
+        .addEqualityGroup(Point.of(2, 0.0, "foo"))
+        .testEquals();
+  }
+
+  @Test
+  public void serialization() {
+    SerializableTester.reserializeAndAssert(Point.of(1, 2.5, "foo"));
+  }
+
+  @AutoValue
+  public interface Line {
+    String name();
+
+    ImmutableList<Integer> points();
+
+    int[] weights();
+
+    Builder toBuilder();
+
+    static Builder builder() {
+      return new AutoValue_AutoValueRecordsTest_Line.Builder();
+    }
+
+    @AutoValue.Builder
+    interface Builder {
+      Builder name(String name);
+
+      ImmutableList.Builder<Integer> pointsBuilder();
+
+      Builder weights(int[] weights);
+
+      Line build();
+    }
+  }
+
+  @Test
+  public void builder() {
+    Line.Builder builder = Line.builder().name("foo").weights(new int[] {1, 2});
+    builder.pointsBuilder().add(3).add(4);
+    Line line = builder.build();
+    assertThat(line.name()).isEqualTo("foo");
+    assertThat(line.points()).containsExactly(3, 4).inOrder();
+    assertThat(line.toString()).isEqualTo("Line{name=foo, points=[3, 4], weights=[1, 2]}");
+
+    Line.Builder copyBuilder = line.toBuilder();
+    copyBuilder.pointsBuilder().add(5);
+    Line copy = copyBuilder.build();
+    assertThat(copy.points()).containsExactly(3, 4, 5).inOrder();
+
+    new EqualsTester()
+        .addEqualityGroup(line, line.toBuilder().weights(new int[] {1, 2}).build())
+        .addEqualityGroup(copy)
+        .testEquals();
+  }
+
+  @Test
+  public void builderMissingProperty() {
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> Line.builder().name("foo").build());
+    assertThat(e).hasMessageThat().contains("weights");
+  }
+
+  @Test
+  public void constructorChecksNull() {
+    assertThrows(
+        NullPointerException.class,
+        () -> new AutoValue_AutoValueRecordsTest_Line(null, ImmutableList.of(), new int[0]));
+  }
+}
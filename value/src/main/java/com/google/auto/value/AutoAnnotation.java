@@ -99,8 +99,37 @@ import java.lang.reflect.AnnotatedElement;
  * myAnnotationBuilder().name("foo").number(23).build()} because those are the defaults in the
  * annotation definition.
  *
+ * <p>If the same annotation values are constructed repeatedly, for example on every lookup of a
+ * binding key, you can set {@link #cacheSize} to have the generated class keep canonical instances.
+ * The {@code @AutoAnnotation} method then calls the generated static {@code intern} method, which
+ * has the same parameters as the constructor:
+ *
+ * <pre>
+ * public class Names {
+ *   &#64;AutoAnnotation(cacheSize = 100) public static Named named(String value) {
+ *     return AutoAnnotation_Names_named.intern(value);
+ *   }
+ * }</pre>
+ *
+ * <p>Repeated calls with equal arguments then return the same instance, so that {@code equals}
+ * usually succeeds on identity.
+ *
  * @author emcmanus@google.com (Éamonn McManus)
  */
 @Retention(RetentionPolicy.CLASS)
 @Target(ElementType.METHOD)
-public @interface AutoAnnotation {}
+public @interface AutoAnnotation {
+  /**
+   * The maximum number of canonical instances that the static {@code intern} method of the
+   * generated class keeps. If this is 0, the default, the generated class has no {@code intern}
+   * method. Otherwise, {@code intern} returns an existing instance equal to the one its arguments
+   * describe, if there is one. Instances are kept in a concurrent map for the life of the generated
+   * class. Once the map holds {@code cacheSize} instances, {@code intern} returns a new instance
+   * for any other arguments, without keeping it.
+   *
+   * <p>When the {@code @AutoAnnotation} method has a single parameter that is not an array or
+   * collection, the map is keyed on the argument itself, so {@code intern} does not allocate when
+   * it finds an existing instance. Otherwise it constructs an instance and looks that up.
+   */
+  int cacheSize() default 0;
+}
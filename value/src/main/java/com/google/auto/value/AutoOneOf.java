@@ -55,6 +55,10 @@ import java.lang.annotation.Target;
  *   throw new AssertionError();
  * }}</pre>
  *
+ * <p>When compiling for Java 17 or later, the annotated type can also be an interface. It is
+ * then implemented by one record per variant, which all implement a generated sealed interface,
+ * so that code can use pattern matching on them.
+ *
  * <p>{@code @AutoOneOf} is explained in more detail in the <a
  * href="https://github.com/google/auto/blob/main/value/userguide/howto.md#oneof">user guide</a>.
  *
@@ -66,4 +70,46 @@ import java.lang.annotation.Target;
 public @interface AutoOneOf {
   /** Specifies an enum that has one entry per variant in the one-of. */
   Class<? extends Enum<?>> value();
+
+  /**
+   * If true, the generated code uses a single implementation class for all variants, instead of
+   * one subclass per variant. Each instance records its kind in a field, and keeps its value in a
+   * field of type {@code Object} or, for a primitive value, {@code long}. The public API is the
+   * same either way, but with a single class there are fewer classes to load, and calls to the
+   * kind getter and the property getters only ever see one implementation. This can't be used
+   * when the annotated type is an interface.
+   */
+  boolean compact() default false;
+
+  /**
+   * Specifies that the static factory methods of the generated {@code AutoOneOf_Foo} class return
+   * cached instances for values from a small domain, rather than a new instance each time. This is
+   * similar to what {@link Integer#valueOf(int)} does. It applies to these variants:
+   *
+   * <ul>
+   *   <li>one whose value is a {@code boolean}, for which there are just two instances;
+   *   <li>one whose value is an enum, for which there is one instance per enum constant;
+   *   <li>one whose value is a {@code byte}, {@code short}, {@code char}, {@code int}, or {@code
+   *       long}, for which there is one instance per value from {@link #low} to {@link #high}.
+   *       Other values still get a new instance.
+   * </ul>
+   *
+   * <p>The cached instances are created when the implementation class for the variant is
+   * initialized. So the range from {@code low} to {@code high} should be small.
+   *
+   * <pre>{@code @AutoOneOf(Event.Kind.class)
+   * @AutoOneOf.CacheInstances(low = 0, high = 1023)
+   * public abstract class Event {
+   *   ...
+   * }}</pre>
+   */
+  @Retention(RetentionPolicy.CLASS)
+  @Target(ElementType.TYPE)
+  public @interface CacheInstances {
+    /** The smallest integral value that has a cached instance. */
+    int low() default -128;
+
+    /** The largest integral value that has a cached instance. */
+    int high() default 127;
+  }
 }
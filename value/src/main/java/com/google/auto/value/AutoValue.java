@@ -37,6 +37,9 @@ import java.lang.annotation.Target;
  *     abstract int id();
  *   }</pre>
  *
+ * <p>When compiling for Java 17 or later, the annotated type can also be an interface, which is
+ * then implemented by a record.
+ *
  * @see <a href="https://github.com/google/auto/tree/main/value">AutoValue User's Guide</a>
  * @author Éamonn McManus
  * @author Kevin Bourrillion
@@ -363,10 +363,14 @@ public abstract class AutoValueExtension {
    * <p>The {@link ProcessingEnvironment} can be used, among other things, to obtain the processor
    * options, using {@link ProcessingEnvironment#getOptions()}.
    *
-   * <p>The actual incremental type of the AutoValue processor as a whole will be the loosest
-   * incremental types of the Extensions present in the annotation processor path. The default
-   * returned value is {@link IncrementalExtensionType#UNKNOWN}, which will disable incremental
-   * annotation processing entirely.
+   * <p>The AutoValue processor itself, and the extensions that return {@link
+   * IncrementalExtensionType#ISOLATING}, are isolating. Any other extension sees, in {@link
+   * Context#processingEnvironment()}, the environment of a separate companion processor whose
+   * incremental type is the loosest of the incremental types of those extensions. Files written
+   * through that environment's {@link javax.annotation.processing.Filer Filer} are attributed to
+   * the companion processor. The default returned value is {@link
+   * IncrementalExtensionType#UNKNOWN}, which will disable incremental annotation processing for the
+   * companion processor, and therefore for the compilation.
    */
   public IncrementalExtensionType incrementalType(ProcessingEnvironment processingEnvironment) {
     return IncrementalExtensionType.UNKNOWN;
@@ -392,12 +396,43 @@ public abstract class AutoValueExtension {
     }
   }
 
+  /**
+   * Returns the fully-qualified names of annotations that must be present for this Extension to be
+   * {@linkplain #applicable applicable}. If this set or {@link #triggerInterfaces()} is not empty,
+   * the AutoValue processor will only call {@link #applicable} for an {@code @AutoValue} class if
+   * that class, or one of its methods or inherited methods, has one of these annotations, or if the
+   * class implements one of the {@link #triggerInterfaces()}. Otherwise the Extension is treated as
+   * not applicable, without being called at all.
+   *
+   * <p>This is purely an optimization. The default implementation returns an empty set, which
+   * means that {@link #applicable} will always be called, as it was before this method existed.
+   * An Extension that overrides this method must still check the class in {@link #applicable},
+   * since a matching trigger does not imply that the Extension applies.
+   */
+  public Set<String> triggerAnnotations() {
+    return ImmutableSet.of();
+  }
+
+  /**
+   * Returns the fully-qualified names of interfaces that an {@code @AutoValue} class can implement
+   * to make this Extension potentially {@linkplain #applicable applicable}. See {@link
+   * #triggerAnnotations()} for how these are used. The default implementation returns an empty
+   * set.
+   */
+  public Set<String> triggerInterfaces() {
+    return ImmutableSet.of();
+  }
+
   /**
    * Determines whether this Extension applies to the given context. If an Extension returns {@code
    * false} for a given class, it will not be called again during the processing of that class. An
    * Extension can return {@code true} and still choose not to generate any code for the class, by
    * returning {@code null} from {@link #generateClass}. That is often a more flexible approach.
    *
+   * <p>If the Extension declares {@linkplain #triggerAnnotations() trigger annotations} or
+   * {@linkplain #triggerInterfaces() trigger interfaces}, this method is only called for classes
+   * that match one of them.
+   *
    * @param context The Context of the code generation for this class.
    */
   public boolean applicable(Context context) {
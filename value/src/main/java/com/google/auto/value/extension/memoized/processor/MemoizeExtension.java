@@ -96,6 +96,11 @@ public final class MemoizeExtension extends AutoValueExtension {
     return IncrementalExtensionType.ISOLATING;
   }
 
+  @Override
+  public ImmutableSet<String> triggerAnnotations() {
+    return ImmutableSet.of(MEMOIZED_NAME);
+  }
+
   @Override
   public boolean applicable(Context context) {
     return !memoizedMethods(context).isEmpty();
@@ -19,6 +19,7 @@ package com.google.auto.value.extension.toprettystring.processor;
 import static com.google.auto.common.MoreElements.getLocalAndInheritedMethods;
 import static com.google.auto.common.MoreStreams.toImmutableList;
 import static com.google.auto.common.MoreTypes.asTypeElement;
+import static com.google.auto.value.extension.toprettystring.processor.ClassNames.TO_PRETTY_STRING_NAME;
 import static com.google.auto.value.extension.toprettystring.processor.ExtensionClassTypeSpecBuilder.extensionClassTypeSpecBuilder;
 import static com.google.auto.value.extension.toprettystring.processor.ToPrettyStringMethods.toPrettyStringMethod;
 import static com.google.auto.value.extension.toprettystring.processor.ToPrettyStringMethods.toPrettyStringMethods;
@@ -545,6 +546,11 @@ public final class ToPrettyStringExtension extends AutoValueExtension {
     }
   }
 
+  @Override
+  public ImmutableSet<String> triggerAnnotations() {
+    return ImmutableSet.of(TO_PRETTY_STRING_NAME);
+  }
+
   @Override
   public boolean applicable(Context context) {
     return toPrettyStringMethods(context).size() == 1;
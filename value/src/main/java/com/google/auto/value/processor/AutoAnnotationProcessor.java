@@ -21,10 +21,12 @@ import static com.google.common.collect.Maps.immutableEntry;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.joining;
 
+import com.google.auto.common.AnnotationMirrors;
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.common.SuperficialValidation;
 import com.google.auto.service.AutoService;
+import com.google.auto.value.processor.ProcessorEvents.Span;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
@@ -122,12 +124,22 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
     return new AbortProcessingException();
   }
 
+  /** Like {@link #abortWithError(Element, String, Object...)}, but for an annotation value. */
+  @FormatMethod
+  private AbortProcessingException abortWithError(
+      Element e, AnnotationMirror a, AnnotationValue v, String msg, Object... msgParams) {
+    String formattedMessage = String.format(msg, msgParams);
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, formattedMessage, e, a, v);
+    return new AbortProcessingException();
+  }
+
   @Override
   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     process(roundEnv);
     return false;
   }
 
+  @SuppressWarnings("try")
   private void process(RoundEnvironment roundEnv) {
     TypeElement autoAnnotation = elementUtils.getTypeElement(AUTO_ANNOTATION_NAME);
     Collection<? extends Element> annotatedElements =
@@ -137,7 +149,7 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
       return;
     }
     for (ExecutableElement method : methods) {
-      try {
+      try (Span span = ProcessorEvents.processType(this, method)) {
         processMethod(method);
       } catch (AbortProcessingException e) {
         // We abandoned this type, but continue with the next.
@@ -163,6 +175,7 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
     validateParameters(annotationElement, method, members, parameters, defaultValues);
 
     String generatedClassName = generatedClassName(method);
+    int cacheSize = cacheSize(method);
 
     AutoAnnotationTemplateVars vars = new AutoAnnotationTemplateVars();
     vars.annotationFullName = annotationElement.toString();
@@ -182,6 +195,9 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
       vars.invariableHashSum += h;
     }
     vars.invariableHashes = invariableHashes.keySet();
+    vars.cacheHashCode = invariableHashes.size() < members.size();
+    vars.cacheSize = cacheSize;
+    vars.cacheKeyParameter = cacheKeyParameter(members, parameters);
     String text = vars.toText();
     text = TypeEncoder.decode(text, processingEnv, pkg, annotationElement.asType());
     text = Reformatter.fixup(text);
@@ -189,6 +205,33 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
     writeSourceFile(fullName, text, methodClass);
   }
 
+  private int cacheSize(ExecutableElement method) {
+    AnnotationMirror autoAnnotation =
+        MoreElements.getAnnotationMirror(method, AUTO_ANNOTATION_NAME).get();
+    AnnotationValue value = AnnotationMirrors.getAnnotationValue(autoAnnotation, "cacheSize");
+    int cacheSize = (Integer) value.getValue();
+    if (cacheSize < 0) {
+      throw abortWithError(
+          method, autoAnnotation, value, "@AutoAnnotation cacheSize cannot be negative");
+    }
+    return cacheSize;
+  }
+
+  /**
+   * Returns the name of the parameter that the cache of canonical instances can be keyed on
+   * directly, or an empty string if the cache must be keyed on the instances themselves. A single
+   * parameter can be the key unless it supplies an array, since arrays and collections don't have
+   * the equality that the annotation does.
+   */
+  private static String cacheKeyParameter(
+      ImmutableMap<String, Member> members, ImmutableMap<String, Parameter> parameters) {
+    if (parameters.size() != 1) {
+      return "";
+    }
+    String name = parameters.keySet().iterator().next();
+    return members.get(name).getKind() == TypeKind.ARRAY ? "" : name;
+  }
+
   private String getGeneratedTypeName() {
     return generatedAnnotation(elementUtils, processingEnv.getSourceVersion())
         .map(generatedAnnotation -> TypeEncoder.encode(generatedAnnotation.asType()))
@@ -495,8 +538,9 @@ public class AutoAnnotationProcessor extends AbstractProcessor {
     return Hashing.murmur3_128().hashUnencodedChars(namesAndTypesString).asLong();
   }
 
+  @SuppressWarnings("try")
   private void writeSourceFile(String className, String text, TypeElement originatingType) {
-    try {
+    try (Span span = ProcessorEvents.writeSource(className, text.length())) {
       JavaFileObject sourceFile =
           processingEnv.getFiler().createSourceFile(className, originatingType);
       try (Writer writer = sourceFile.openWriter()) {
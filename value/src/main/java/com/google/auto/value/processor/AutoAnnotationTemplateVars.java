@@ -15,6 +15,7 @@
  */
 package com.google.auto.value.processor;
 
+import com.google.common.base.Supplier;
 import com.google.escapevelocity.Template;
 import java.util.Map;
 import java.util.Set;
@@ -80,16 +81,35 @@ class AutoAnnotationTemplateVars extends TemplateVars {
   /** The sum of the hash code contributions from the members in {@link #invariableHashes}. */
   Integer invariableHashSum;
 
+  /**
+   * True if the generated class computes its hash code in the constructor and keeps it in a field.
+   * This is false when every member has an invariable hash code, since then {@code hashCode()} just
+   * returns a constant.
+   */
+  Boolean cacheHashCode;
+
+  /**
+   * The {@code cacheSize} of the {@code @AutoAnnotation}. If it is positive, the generated class
+   * has a static {@code intern} method that returns canonical instances.
+   */
+  Integer cacheSize;
+
+  /**
+   * The name of the parameter that the cache of canonical instances is keyed on, or empty if it is
+   * keyed on the instances themselves.
+   */
+  String cacheKeyParameter;
+
   /**
    * A computed {@code serialVersionUID} based on the names and types of the {@code @AutoAnnotation}
    * method parameters.
    */
   Long serialVersionUID;
 
-  private static final Template TEMPLATE = parsedTemplateForResource("autoannotation.vm");
+  private static final Supplier<Template> TEMPLATE = lazyTemplateForResource("autoannotation.vm");
 
   @Override
   Template parsedTemplate() {
-    return TEMPLATE;
+    return TEMPLATE.get();
   }
 }
@@ -16,12 +16,14 @@
 package com.google.auto.value.processor;
 
 import com.google.auto.value.processor.AutoValueishProcessor.Property;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
 import com.google.escapevelocity.Template;
 
 /** The variables to substitute into the autobuilderannotation.vm template. */
 class AutoBuilderAnnotationTemplateVars extends TemplateVars {
-  private static final Template TEMPLATE = parsedTemplateForResource("autobuilderannotation.vm");
+  private static final Supplier<Template> TEMPLATE =
+      lazyTemplateForResource("autobuilderannotation.vm");
 
   /** Package of generated class. */
   String pkg;
@@ -52,6 +54,6 @@ class AutoBuilderAnnotationTemplateVars extends TemplateVars {
 
   @Override
   Template parsedTemplate() {
-    return TEMPLATE;
+    return TEMPLATE.get();
   }
 }
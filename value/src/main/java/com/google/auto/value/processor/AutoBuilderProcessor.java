@@ -48,7 +48,6 @@ import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -72,12 +71,6 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.JavaFileObject;
-import kotlinx.metadata.Flag;
-import kotlinx.metadata.KmClass;
-import kotlinx.metadata.KmConstructor;
-import kotlinx.metadata.KmValueParameter;
-import kotlinx.metadata.jvm.KotlinClassHeader;
-import kotlinx.metadata.jvm.KotlinClassMetadata;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessor;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessorType;
 
@@ -100,7 +93,11 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
 
   @Override
   public Set<String> getSupportedOptions() {
-    return ImmutableSet.of(OMIT_IDENTIFIERS_OPTION, ALLOW_OPTION);
+    return ImmutableSet.of(
+        OMIT_IDENTIFIERS_OPTION,
+        ALLOW_OPTION,
+        GeneratedSourceCache.CACHE_OPTION,
+        RENDERING_THREADS_OPTION);
   }
 
   private TypeMirror javaLangVoid;
@@ -188,7 +185,7 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
     TypeMirror builtType = executable.builtType();
     ImmutableMap<String, String> propertyInitializers =
         propertyInitializers(autoBuilderType, executable);
-    Nullables nullables = Nullables.fromMethods(processingEnv, methods);
+    Nullables nullables = nullablesFromMethods(methods);
     Optional<BuilderMethodClassifier<VariableElement>> maybeClassifier =
         BuilderMethodClassifierForAutoBuilder.classify(
             methods,
@@ -228,10 +225,13 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
     vars.toBuilderMethods = ImmutableList.of();
     defineSharedVarsForType(
         autoBuilderType, ImmutableSet.of(), nullables, vars);
-    String text = vars.toText();
-    text = TypeEncoder.decode(text, processingEnv, vars.pkg, autoBuilderType.asType());
-    text = Reformatter.fixup(text);
-    writeSourceFile(generatedClassName, text, autoBuilderType);
+    writeGeneratedSource(
+        generatedClassName,
+        vars,
+        vars.pkg,
+        autoBuilderType.asType(),
+        /* extensions= */ ImmutableList.of(),
+        autoBuilderType);
     forwardingClassName.ifPresent(
         n -> generateForwardingClass(n, executable, builtType, autoBuilderType));
   }
@@ -462,7 +462,7 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
     Stream<Executable> relevantExecutables =
         callMethod.isEmpty()
             ? kotlinMetadata
-                .map(a -> kotlinConstructorsIn(a, ofClass).stream())
+                .map(a -> KotlinMetadata.kotlinConstructorsIn(a, ofClass).stream())
                 .orElseGet(() -> constructorsIn(elements).stream().map(Executable::of))
             : methodsIn(elements).stream()
                 .filter(m -> m.getSimpleName().contentEquals(callMethod))
@@ -593,73 +593,6 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
         .findFirst();
   }
 
-  /**
-   * Use Kotlin reflection to build {@link Executable} instances for the constructors in {@code
-   * ofClass} that include information about which parameters have default values.
-   */
-  private ImmutableList<Executable> kotlinConstructorsIn(
-      AnnotationMirror metadata, TypeElement ofClass) {
-    ImmutableMap<String, AnnotationValue> annotationValues =
-        AnnotationMirrors.getAnnotationValuesWithDefaults(metadata).entrySet().stream()
-            .collect(toImmutableMap(e -> e.getKey().getSimpleName().toString(), e -> e.getValue()));
-    // We match the KmConstructor instances with the ExecutableElement instances based on the
-    // parameter names. We could possibly just assume that the constructors are in the same order.
-    Map<ImmutableSet<String>, ExecutableElement> map =
-        constructorsIn(ofClass.getEnclosedElements()).stream()
-            .collect(toMap(c -> parameterNames(c), c -> c, (a, b) -> a, LinkedHashMap::new));
-    ImmutableMap<ImmutableSet<String>, ExecutableElement> paramNamesToConstructor =
-        ImmutableMap.copyOf(map);
-    KotlinClassHeader header =
-        new KotlinClassHeader(
-            (Integer) annotationValues.get("k").getValue(),
-            intArrayValue(annotationValues.get("mv")),
-            stringArrayValue(annotationValues.get("d1")),
-            stringArrayValue(annotationValues.get("d2")),
-            (String) annotationValues.get("xs").getValue(),
-            (String) annotationValues.get("pn").getValue(),
-            (Integer) annotationValues.get("xi").getValue());
-    KotlinClassMetadata.Class classMetadata =
-        (KotlinClassMetadata.Class) KotlinClassMetadata.read(header);
-    KmClass kmClass = classMetadata.toKmClass();
-    ImmutableList.Builder<Executable> kotlinConstructorsBuilder = ImmutableList.builder();
-    for (KmConstructor constructor : kmClass.getConstructors()) {
-      ImmutableSet.Builder<String> allBuilder = ImmutableSet.builder();
-      ImmutableSet.Builder<String> optionalBuilder = ImmutableSet.builder();
-      for (KmValueParameter param : constructor.getValueParameters()) {
-        String name = param.getName();
-        allBuilder.add(name);
-        if (Flag.ValueParameter.DECLARES_DEFAULT_VALUE.invoke(param.getFlags())) {
-          optionalBuilder.add(name);
-        }
-      }
-      ImmutableSet<String> optional = optionalBuilder.build();
-      ImmutableSet<String> all = allBuilder.build();
-      ExecutableElement javaConstructor = paramNamesToConstructor.get(all);
-      if (javaConstructor != null) {
-        kotlinConstructorsBuilder.add(Executable.of(javaConstructor, optional));
-      }
-    }
-    return kotlinConstructorsBuilder.build();
-  }
-
-  private static int[] intArrayValue(AnnotationValue value) {
-    @SuppressWarnings("unchecked")
-    List<AnnotationValue> list = (List<AnnotationValue>) value.getValue();
-    return list.stream().mapToInt(v -> (int) v.getValue()).toArray();
-  }
-
-  private static String[] stringArrayValue(AnnotationValue value) {
-    @SuppressWarnings("unchecked")
-    List<AnnotationValue> list = (List<AnnotationValue>) value.getValue();
-    return list.stream().map(AnnotationValue::getValue).toArray(String[]::new);
-  }
-
-  private static ImmutableSet<String> parameterNames(ExecutableElement executableElement) {
-    return executableElement.getParameters().stream()
-        .map(v -> v.getSimpleName().toString())
-        .collect(toImmutableSet());
-  }
-
   private static final ElementKind ELEMENT_KIND_RECORD = elementKindRecord();
 
   private static ElementKind elementKindRecord() {
@@ -760,7 +693,7 @@ public class AutoBuilderProcessor extends AutoValueishProcessor {
   private ImmutableSet<Property> annotationBuilderPropertySet(TypeElement annotationType) {
     // Annotation methods can't have their own annotations so there's nowhere for us to discover
     // a user @Nullable. We can only use our default @Nullable type annotation.
-    Nullables nullables = Nullables.fromMethods(processingEnv, ImmutableList.of());
+    Nullables nullables = nullablesFromMethods(ImmutableList.of());
     // Translate the annotation elements into fake Property instances. We're really only interested
     // in the name and type, so we can use them to declare a parameter of the generated
     // @AutoAnnotation method. We'll generate a parameter for every element, even elements that
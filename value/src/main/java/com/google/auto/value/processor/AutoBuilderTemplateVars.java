@@ -15,13 +15,14 @@
  */
 package com.google.auto.value.processor;
 
+import com.google.common.base.Supplier;
 import com.google.escapevelocity.Template;
 
 class AutoBuilderTemplateVars extends AutoValueOrBuilderTemplateVars {
-  private static final Template TEMPLATE = parsedTemplateForResource("autobuilder.vm");
+  private static final Supplier<Template> TEMPLATE = lazyTemplateForResource("autobuilder.vm");
 
   @Override
   Template parsedTemplate() {
-    return TEMPLATE;
+    return TEMPLATE.get();
   }
 }
@@ -16,7 +16,10 @@
 package com.google.auto.value.processor;
 
 import static com.google.auto.common.MoreElements.getLocalAndInheritedMethods;
+import static com.google.auto.common.MoreStreams.toImmutableMap;
+import static com.google.auto.common.MoreStreams.toImmutableSet;
 import static com.google.auto.value.processor.ClassNames.AUTO_ONE_OF_NAME;
+import static com.google.auto.value.processor.ClassNames.CACHE_INSTANCES_NAME;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
@@ -26,11 +29,13 @@ import com.google.auto.common.MoreTypes;
 import com.google.auto.service.AutoService;
 import com.google.auto.value.processor.MissingTypes.MissingTypeException;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -44,6 +49,8 @@ import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessor;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessorType;
@@ -60,7 +67,7 @@ import net.ltgt.gradle.incap.IncrementalAnnotationProcessorType;
 @IncrementalAnnotationProcessor(IncrementalAnnotationProcessorType.ISOLATING)
 public class AutoOneOfProcessor extends AutoValueishProcessor {
   public AutoOneOfProcessor() {
-    super(AUTO_ONE_OF_NAME, /* appliesToInterfaces= */ false);
+    super(AUTO_ONE_OF_NAME, /* appliesToInterfaces= */ true);
   }
 
   @Override
@@ -70,7 +77,8 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
 
   @Override
   public ImmutableSet<String> getSupportedOptions() {
-    return ImmutableSet.of(Nullables.NULLABLE_OPTION);
+    return ImmutableSet.of(
+        Nullables.NULLABLE_OPTION, GeneratedSourceCache.CACHE_OPTION, RENDERING_THREADS_OPTION);
   }
 
   @Override
@@ -87,6 +95,9 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
     // (2) A kind getter, which is a method that returns the enum in @AutoOneOf. For
     //     example if we have @AutoOneOf(PetKind.class), this would be a method that returns
     //     PetKind.
+    // (3) An accept method, which has a single parameter whose type is an interface, like
+    //     "abstract <R> R accept(Visitor<R> visitor)". Each method of the interface corresponds
+    //     to a property, and the generated code calls the one for the kind of the instance.
     // If there are abstract methods that don't fit any of the categories above, that is an error
     // which we signal explicitly to avoid confusion.
 
@@ -103,7 +114,13 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
         propertyMethodsIn(otherMethods, autoOneOfType);
     ImmutableBiMap<String, ExecutableElement> properties =
         propertyNameToMethodMap(propertyMethodsAndTypes.keySet());
-    validateMethods(autoOneOfType, abstractMethods, propertyMethodsAndTypes.keySet(), kindGetter);
+    ImmutableSet<ExecutableElement> acceptMethods = acceptMethodsIn(otherMethods);
+    validateMethods(
+        autoOneOfType,
+        abstractMethods,
+        propertyMethodsAndTypes.keySet(),
+        kindGetter,
+        acceptMethods);
     ImmutableMap<String, String> propertyToKind =
         propertyToKindMap(kindMirror, properties.keySet());
 
@@ -111,14 +128,18 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
     AutoOneOfTemplateVars vars = new AutoOneOfTemplateVars();
     vars.generatedClass = TypeSimplifier.simpleNameOf(subclass);
     vars.propertyToKind = propertyToKind;
-    Nullables nullables = Nullables.fromMethods(processingEnv, methods);
+    Nullables nullables = nullablesFromMethods(methods);
     defineSharedVarsForType(autoOneOfType, methods, nullables, vars);
     defineVarsForType(autoOneOfType, vars, propertyMethodsAndTypes, kindGetter, nullables);
+    vars.acceptMethods = acceptMethods(autoOneOfType, acceptMethods, vars.props);
 
-    String text = vars.toText();
-    text = TypeEncoder.decode(text, processingEnv, vars.pkg, autoOneOfType.asType());
-    text = Reformatter.fixup(text);
-    writeSourceFile(subclass, text, autoOneOfType);
+    writeGeneratedSource(
+        subclass,
+        vars,
+        vars.pkg,
+        autoOneOfType.asType(),
+        /* extensions= */ ImmutableList.of(),
+        autoOneOfType);
   }
 
   private DeclaredType mirrorForKindType(TypeElement autoOneOfType) {
@@ -233,11 +254,13 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
       TypeElement type,
       ImmutableSet<ExecutableElement> abstractMethods,
       ImmutableSet<ExecutableElement> propertyMethods,
-      ExecutableElement kindGetter) {
+      ExecutableElement kindGetter,
+      ImmutableSet<ExecutableElement> acceptMethods) {
     for (ExecutableElement method : abstractMethods) {
       if (propertyMethods.contains(method)) {
         checkReturnType(type, method);
       } else if (!method.equals(kindGetter)
+          && !acceptMethods.contains(method)
           && objectMethodToOverride(method) == ObjectMethod.NONE) {
         // This could reasonably be an error, were it not for an Eclipse bug in
         // ElementUtils.override that sometimes fails to recognize that one method overrides
@@ -272,6 +295,389 @@ public class AutoOneOfProcessor extends AutoValueishProcessor {
     vars.serializable =
         javaIoSerializable != null // just in case
             && typeUtils().isAssignable(type.asType(), javaIoSerializable.asType());
+    AnnotationMirror oneOfAnnotation = getAnnotationMirror(type, AUTO_ONE_OF_NAME).get();
+    vars.compact =
+        (Boolean) AnnotationMirrors.getAnnotationValue(oneOfAnnotation, "compact").getValue();
+    vars.compactObject =
+        vars.props.stream()
+            .anyMatch(p -> !p.getKind().isPrimitive() && !p.getKind().equals(TypeKind.VOID));
+    vars.compactBits = vars.props.stream().anyMatch(p -> p.getKind().isPrimitive());
+    vars.uncheckedProperties =
+        vars.props.stream()
+            .filter(p -> castIsUnchecked(p.getTypeMirror()))
+            .map(Property::getName)
+            .collect(toImmutableSet());
+    vars.instanceCaches = instanceCaches(type, vars.props);
+    vars.records = type.getKind().equals(ElementKind.INTERFACE);
+    if (vars.records) {
+      checkRecordsSupported(type, vars.compact);
+    }
+    vars.recordNames =
+        vars.props.stream()
+            .collect(toImmutableMap(Property::getName, AutoOneOfProcessor::recordName));
+  }
+
+  /**
+   * Checks that an {@code @AutoOneOf} interface can be implemented. That needs a sealed interface
+   * and records, which means compiling for Java 17 or later, and it excludes the compact
+   * representation.
+   */
+  private void checkRecordsSupported(TypeElement type, boolean compact) {
+    if (!recordsSupported()) {
+      throw errorReporter()
+          .abortWithError(
+              type,
+              "[AutoOneOfInterfaceVersion] @AutoOneOf interface is implemented with records, so it"
+                  + " can only be compiled with source version %d or later",
+              MIN_RECORDS_SOURCE_VERSION);
+    }
+    if (compact) {
+      throw errorReporter()
+          .abortWithError(
+              type,
+              "[AutoOneOfInterfaceCompact] @AutoOneOf interface is implemented with records, so it"
+                  + " cannot have compact = true");
+    }
+  }
+
+  /**
+   * Returns the name of the record that represents the given property of an {@code @AutoOneOf}
+   * interface, for example {@code DogCase} for {@code dog}. The suffix means that the name can't
+   * clash with a type like {@code Dog} that the record itself references.
+   */
+  private static String recordName(Property p) {
+    String name = p.getName();
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Case";
+  }
+
+  /**
+   * Returns the instance caches for the properties of the given type, if it has
+   * {@code @AutoOneOf.CacheInstances}. The map is keyed by property name, and only contains the
+   * properties whose values come from a small domain.
+   */
+  private ImmutableMap<String, InstanceCache> instanceCaches(
+      TypeElement type, ImmutableSet<Property> props) {
+    Optional<AnnotationMirror> cacheInstances = getAnnotationMirror(type, CACHE_INSTANCES_NAME);
+    if (!cacheInstances.isPresent()) {
+      return ImmutableMap.of();
+    }
+    int low =
+        (Integer) AnnotationMirrors.getAnnotationValue(cacheInstances.get(), "low").getValue();
+    int high =
+        (Integer) AnnotationMirrors.getAnnotationValue(cacheInstances.get(), "high").getValue();
+    if (low > high || (long) high - low >= MAX_CACHED_RANGE) {
+      throw errorReporter()
+          .abortWithError(
+              type,
+              "[AutoOneOfCacheRange] @CacheInstances must have low <= high, and at most %d values"
+                  + " from low to high",
+              MAX_CACHED_RANGE);
+    }
+    ImmutableMap.Builder<String, InstanceCache> caches = ImmutableMap.builder();
+    for (Property p : props) {
+      TypeMirror propertyType = p.getTypeMirror();
+      switch (propertyType.getKind()) {
+        case BOOLEAN:
+          caches.put(p.getName(), InstanceCache.forBoolean());
+          break;
+        case DECLARED:
+          if (MoreTypes.asElement(propertyType).getKind().equals(ElementKind.ENUM)) {
+            caches.put(p.getName(), InstanceCache.forEnum());
+          }
+          break;
+        case BYTE:
+          cacheRange(caches, p, Math.max(low, Byte.MIN_VALUE), Math.min(high, Byte.MAX_VALUE));
+          break;
+        case SHORT:
+          cacheRange(caches, p, Math.max(low, Short.MIN_VALUE), Math.min(high, Short.MAX_VALUE));
+          break;
+        case CHAR:
+          cacheRange(
+              caches, p, Math.max(low, Character.MIN_VALUE), Math.min(high, Character.MAX_VALUE));
+          break;
+        case INT:
+        case LONG:
+          cacheRange(caches, p, low, high);
+          break;
+        default:
+          break;
+      }
+    }
+    return caches.build();
+  }
+
+  /**
+   * The largest number of instances that {@code @AutoOneOf.CacheInstances} can create for a
+   * single integral property. They are all created eagerly, so this is a sanity limit.
+   */
+  private static final int MAX_CACHED_RANGE = 1 << 16;
+
+  private static void cacheRange(
+      ImmutableMap.Builder<String, InstanceCache> caches, Property p, int low, int high) {
+    if (low <= high) {
+      caches.put(p.getName(), InstanceCache.forRange(p, low, high));
+    }
+  }
+
+  /**
+   * Returns true if a cast from {@code Object} to {@code type} is unchecked, because the type
+   * involves a type variable or a type argument other than {@code ?}.
+   */
+  private static boolean castIsUnchecked(TypeMirror type) {
+    switch (type.getKind()) {
+      case TYPEVAR:
+        return true;
+      case ARRAY:
+        return castIsUnchecked(MoreTypes.asArray(type).getComponentType());
+      case DECLARED:
+        return MoreTypes.asDeclared(type).getTypeArguments().stream()
+            .anyMatch(
+                arg ->
+                    !arg.getKind().equals(TypeKind.WILDCARD)
+                        || MoreTypes.asWildcard(arg).getExtendsBound() != null
+                        || MoreTypes.asWildcard(arg).getSuperBound() != null);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the accept methods among the given abstract methods. An accept method has a single
+   * parameter whose type is an interface, called the visitor interface.
+   */
+  private static ImmutableSet<ExecutableElement> acceptMethodsIn(
+      Set<ExecutableElement> abstractMethods) {
+    return abstractMethods.stream()
+        .filter(
+            method -> {
+              if (method.getParameters().size() != 1) {
+                return false;
+              }
+              TypeMirror parameterType = method.getParameters().get(0).asType();
+              return parameterType.getKind().equals(TypeKind.DECLARED)
+                  && MoreTypes.asElement(parameterType).getKind().equals(ElementKind.INTERFACE);
+            })
+        .collect(toImmutableSet());
+  }
+
+  /**
+   * Returns the template representation of each of the given accept methods. Every abstract method
+   * of the visitor interface must correspond to a property, using the same rule as for enum
+   * constants, and every property must have such a method. The method for a {@code void} property
+   * has no parameters, and the method for any other property has one parameter that the value of
+   * the property can be passed to. Unless the accept method returns {@code void}, the result of
+   * each visitor method must be assignable to its return type.
+   */
+  private ImmutableList<AcceptMethod> acceptMethods(
+      TypeElement type,
+      ImmutableSet<ExecutableElement> acceptMethods,
+      ImmutableSet<Property> props) {
+    DeclaredType declaredType = MoreTypes.asDeclared(type.asType());
+    Map<String, Property> transformedProperties =
+        props.stream().collect(toMap(p -> transformName(p.getName()), p -> p));
+    ImmutableList.Builder<AcceptMethod> result = ImmutableList.builder();
+    for (ExecutableElement method : acceptMethods) {
+      ExecutableType methodType =
+          MoreTypes.asExecutable(typeUtils().asMemberOf(declaredType, method));
+      DeclaredType visitorType = MoreTypes.asDeclared(methodType.getParameterTypes().get(0));
+      TypeElement visitorElement = MoreTypes.asTypeElement(visitorType);
+      Set<String> unvisited = props.stream().map(Property::getName).collect(toSet());
+      ImmutableMap.Builder<String, String> visitorMethods = ImmutableMap.builder();
+      ImmutableSet<ExecutableElement> visitorInterfaceMethods =
+          abstractMethodsIn(
+              getLocalAndInheritedMethods(visitorElement, typeUtils(), elementUtils()));
+      for (ExecutableElement visitorMethod : visitorInterfaceMethods) {
+        if (objectMethodToOverride(visitorMethod) != ObjectMethod.NONE) {
+          continue;
+        }
+        String visitorMethodName = visitorMethod.getSimpleName().toString();
+        Property property = transformedProperties.get(transformName(visitorMethodName));
+        if (property == null || !unvisited.remove(property.getName())) {
+          errorReporter()
+              .reportError(
+                  method,
+                  "[AutoOneOfVisitorMethod] Method %s of %s does not correspond to any property",
+                  visitorMethodName,
+                  visitorElement.getSimpleName());
+          continue;
+        }
+        ExecutableType visitorMethodType =
+            MoreTypes.asExecutable(typeUtils().asMemberOf(visitorType, visitorMethod));
+        if (!visitorMethodMatches(property, visitorMethodType, methodType.getReturnType())) {
+          errorReporter()
+              .reportError(
+                  method,
+                  "[AutoOneOfVisitorType] Method %s of %s must accept %s and return a result"
+                      + " compatible with %s",
+                  visitorMethodName,
+                  visitorElement.getSimpleName(),
+                  property.getKind().equals(TypeKind.VOID)
+                      ? "no parameters"
+                      : "a parameter of type " + property.getTypeMirror(),
+                  methodType.getReturnType());
+          continue;
+        }
+        visitorMethods.put(property.getName(), visitorMethodName);
+      }
+      for (String property : unvisited) {
+        errorReporter()
+            .reportError(
+                method,
+                "[AutoOneOfVisitorMissing] %s has no method corresponding to property '%s'",
+                visitorElement.getSimpleName(),
+                property);
+      }
+      result.add(new AcceptMethod(method, methodType, visitorMethods.build()));
+    }
+    errorReporter().abortIfAnyError();
+    return result.build();
+  }
+
+  private boolean visitorMethodMatches(
+      Property property, ExecutableType visitorMethodType, TypeMirror acceptReturnType) {
+    List<? extends TypeMirror> parameterTypes = visitorMethodType.getParameterTypes();
+    boolean parametersMatch =
+        property.getKind().equals(TypeKind.VOID)
+            ? parameterTypes.isEmpty()
+            : parameterTypes.size() == 1
+                && typeUtils().isAssignable(property.getTypeMirror(), parameterTypes.get(0));
+    return parametersMatch
+        && (acceptReturnType.getKind().equals(TypeKind.VOID)
+            || typeUtils().isAssignable(visitorMethodType.getReturnType(), acceptReturnType));
+  }
+
+  /**
+   * How the factory method for a property of an {@code @AutoOneOf} class with
+   * {@code @AutoOneOf.CacheInstances} finds a cached instance. The public methods of this class are
+   * accessible from templates, for example {@code $cache.size}.
+   */
+  public static final class InstanceCache {
+    private final String kind;
+    private final String size;
+    private final String range;
+    private final String index;
+    private final String value;
+
+    private InstanceCache(String kind, String size, String range, String index, String value) {
+      this.kind = kind;
+      this.size = size;
+      this.range = range;
+      this.index = index;
+      this.value = value;
+    }
+
+    static InstanceCache forBoolean() {
+      return new InstanceCache("BOOLEAN", "", "", "", "");
+    }
+
+    static InstanceCache forEnum() {
+      return new InstanceCache("ENUM", "", "", "", "");
+    }
+
+    static InstanceCache forRange(Property p, int low, int high) {
+      String name = p.toString();
+      String range = name + " >= " + low + " && " + name + " <= " + high;
+      String index = offset(name, -(long) low);
+      if (p.getKind().equals(TypeKind.LONG)) {
+        index = "(int) (" + index + ")";
+      }
+      String value = offset("i", low);
+      if (!p.getKind().equals(TypeKind.INT)) {
+        value = "(" + p.getType() + ") " + (low == 0 ? value : "(" + value + ")");
+      }
+      return new InstanceCache("RANGE", String.valueOf((long) high - low + 1), range, index, value);
+    }
+
+    private static String offset(String operand, long offset) {
+      if (offset == 0) {
+        return operand;
+      } else if (offset > 0) {
+        return operand + " + " + offset;
+      } else {
+        return operand + " - " + -offset;
+      }
+    }
+
+    /**
+     * {@code BOOLEAN} if there are two cached instances, one for each {@code boolean} value;
+     * {@code ENUM} if there is one for each constant of an enum; {@code RANGE} if there is one for
+     * each integral value in the range {@link #getRange}.
+     */
+    public String getKind() {
+      return kind;
+    }
+
+    /** For {@code RANGE}, the number of cached instances. */
+    public String getSize() {
+      return size;
+    }
+
+    /** For {@code RANGE}, an expression that is true if the parameter has a cached instance. */
+    public String getRange() {
+      return range;
+    }
+
+    /** For {@code RANGE}, an expression for the index of the parameter in the cache. */
+    public String getIndex() {
+      return index;
+    }
+
+    /** For {@code RANGE}, an expression for the value at index {@code i} of the cache. */
+    public String getValue() {
+      return value;
+    }
+  }
+
+  /**
+   * An accept method of an {@code @AutoOneOf} class, as described for {@link #acceptMethodsIn}.
+   * The public methods of this class are accessible from templates, for example {@code $m.name}.
+   */
+  public static final class AcceptMethod {
+    private final String typeParameters;
+    private final String returnType;
+    private final String name;
+    private final String parameterType;
+    private final String throwsString;
+    private final ImmutableMap<String, String> visitorMethods;
+
+    AcceptMethod(
+        ExecutableElement method,
+        ExecutableType methodType,
+        ImmutableMap<String, String> visitorMethods) {
+      this.typeParameters = TypeEncoder.typeParametersString(method.getTypeParameters());
+      this.returnType = TypeEncoder.encode(methodType.getReturnType());
+      this.name = method.getSimpleName().toString();
+      this.parameterType = TypeEncoder.encode(methodType.getParameterTypes().get(0));
+      this.throwsString = SimpleMethod.throwsString(method);
+      this.visitorMethods = visitorMethods;
+    }
+
+    /** The type parameters of the method, like {@code <R>}, or the empty string if none. */
+    public String getTypeParameters() {
+      return typeParameters;
+    }
+
+    public String getReturnType() {
+      return returnType;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** The type of the visitor parameter. */
+    public String getParameterType() {
+      return parameterType;
+    }
+
+    public String getThrows() {
+      return throwsString;
+    }
+
+    /** Maps each property name to the name of the visitor method that corresponds to it. */
+    public ImmutableMap<String, String> getVisitorMethods() {
+      return visitorMethods;
+    }
   }
 
   @Override
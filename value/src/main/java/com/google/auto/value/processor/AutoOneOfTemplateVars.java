@@ -15,6 +15,9 @@
  */
 package com.google.auto.value.processor;
 
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.escapevelocity.Template;
 import java.util.Map;
@@ -44,13 +47,50 @@ class AutoOneOfTemplateVars extends AutoValueishTemplateVars {
   /** Maps property names like {@code dog} to enum constants like {@code DOG}. */
   Map<String, String> propertyToKind;
 
+  /** The accept methods, which call the visitor method for the kind of the instance. */
+  ImmutableList<AutoOneOfProcessor.AcceptMethod> acceptMethods;
+
+  /**
+   * Maps the name of each property whose factory method returns cached instances, because of
+   * {@code @AutoOneOf.CacheInstances}, to a description of its cache.
+   */
+  ImmutableMap<String, AutoOneOfProcessor.InstanceCache> instanceCaches;
+
   /** True if this {@code @AutoOneOf} class is Serializable. */
   Boolean serializable;
 
-  private static final Template TEMPLATE = parsedTemplateForResource("autooneof.vm");
+  /**
+   * True if this {@code @AutoOneOf} class has {@code compact = true}, so that a single
+   * implementation class is generated, as described in {@code autooneofcompact.vm}.
+   */
+  Boolean compact;
+
+  /** True if the compact implementation needs an {@code Object} field for reference values. */
+  Boolean compactObject;
+
+  /** True if the compact implementation needs a {@code long} field for primitive values. */
+  Boolean compactBits;
+
+  /**
+   * The names of the properties whose values the compact implementation gets from its {@code
+   * Object} field with an unchecked cast, because their types involve type variables or type
+   * arguments.
+   */
+  ImmutableSet<String> uncheckedProperties;
+
+  /**
+   * True if this {@code @AutoOneOf} type is an interface, so that it is implemented by records
+   * that implement a sealed interface, as described in {@code autooneofrecords.vm}.
+   */
+  Boolean records;
+
+  /** Maps property names like {@code dog} to the names of records like {@code DogCase}. */
+  Map<String, String> recordNames;
+
+  private static final Supplier<Template> TEMPLATE = lazyTemplateForResource("autooneof.vm");
 
   @Override
   Template parsedTemplate() {
-    return TEMPLATE;
+    return TEMPLATE.get();
   }
 }
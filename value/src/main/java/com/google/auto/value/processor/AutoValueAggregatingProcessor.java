@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static com.google.auto.value.processor.ClassNames.AUTO_VALUE_NAME;
+import static java.util.Comparator.naturalOrder;
+
+import com.google.auto.service.AutoService;
+import com.google.auto.value.extension.AutoValueExtension;
+import com.google.auto.value.extension.AutoValueExtension.IncrementalExtensionType;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import net.ltgt.gradle.incap.IncrementalAnnotationProcessor;
+import net.ltgt.gradle.incap.IncrementalAnnotationProcessorType;
+
+/**
+ * Companion of {@link AutoValueProcessor} that owns the work of AutoValue extensions that are not
+ * {@linkplain IncrementalExtensionType#ISOLATING isolating}.
+ *
+ * <p>Gradle classifies each annotation processor as a whole, so if {@link AutoValueProcessor}
+ * declared itself aggregating whenever any extension was aggregating, every {@code @AutoValue}
+ * class would be reprocessed after every change. Instead, {@link AutoValueProcessor} still does
+ * all the analysis and code generation, and stays isolating. Only the extensions that are not
+ * isolating see the {@link ProcessingEnvironment} of this processor, so any files they write
+ * through its {@link javax.annotation.processing.Filer Filer} are attributed to this processor,
+ * which declares the least incremental type of any of those extensions. This processor does not
+ * process anything itself.
+ *
+ * <p>If this processor is not running in the same compilation, for example because {@code
+ * -processor} only names {@link AutoValueProcessor}, then {@link AutoValueProcessor} uses its own
+ * {@link ProcessingEnvironment} for every extension and declares the least incremental type of any
+ * extension, as before. The same happens if this processor is initialized after {@link
+ * AutoValueProcessor}. That does not happen with javac's own processor discovery, because the
+ * {@code META-INF/services} file lists this processor first.
+ */
+@AutoService(Processor.class)
+@IncrementalAnnotationProcessor(IncrementalAnnotationProcessorType.DYNAMIC)
+@SupportedAnnotationTypes(AUTO_VALUE_NAME)
+public class AutoValueAggregatingProcessor extends AbstractProcessor {
+  /**
+   * The processing environment of the instance of this processor in each current compilation,
+   * keyed by that compilation's {@link Elements}. Build tools like Gradle give each processor its
+   * own wrapper of the compiler's {@link ProcessingEnvironment}, but the wrappers return the same
+   * {@link Elements}. The values are weak references because each environment refers to its key.
+   */
+  private static final Map<Elements, WeakReference<ProcessingEnvironment>> processingEnvironments =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final Optional<ImmutableList<AutoValueExtension>> testExtensions;
+  private ImmutableList<AutoValueExtension> extensions = ImmutableList.of();
+
+  public AutoValueAggregatingProcessor() {
+    this.testExtensions = Optional.empty();
+  }
+
+  @VisibleForTesting
+  AutoValueAggregatingProcessor(Iterable<? extends AutoValueExtension> testExtensions) {
+    this.testExtensions = Optional.of(ImmutableList.copyOf(testExtensions));
+  }
+
+  /**
+   * Returns the processing environment of this processor in the compilation whose {@link
+   * Elements} is {@code elements}, if this processor is running in that compilation.
+   */
+  static Optional<ProcessingEnvironment> processingEnvironmentFor(Elements elements) {
+    WeakReference<ProcessingEnvironment> ref = processingEnvironments.get(elements);
+    return Optional.ofNullable(ref == null ? null : ref.get());
+  }
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    if (testExtensions.isPresent()) {
+      extensions = testExtensions.get();
+    } else {
+      try {
+        extensions =
+            AutoValueProcessor.extensionsFromLoader(
+                AutoValueAggregatingProcessor.class.getClassLoader());
+      } catch (RuntimeException | Error e) {
+        // AutoValueProcessor will report the problem, and will not use any extensions.
+        extensions = ImmutableList.of();
+      }
+    }
+    processingEnvironments.put(processingEnv.getElementUtils(), new WeakReference<>(processingEnv));
+  }
+
+  @Override
+  public ImmutableSet<String> getSupportedOptions() {
+    IncrementalExtensionType incrementalType =
+        extensions.stream()
+            .map(e -> e.incrementalType(processingEnv))
+            .min(naturalOrder())
+            .orElse(IncrementalExtensionType.ISOLATING);
+    return AutoValueProcessor.optionsFor(incrementalType);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    return false;
+  }
+}
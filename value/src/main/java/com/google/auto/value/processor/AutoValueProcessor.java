@@ -17,15 +17,20 @@ package com.google.auto.value.processor;
 
 import static com.google.auto.common.MoreElements.getLocalAndInheritedMethods;
 import static com.google.auto.common.MoreStreams.toImmutableList;
+import static com.google.auto.common.MoreStreams.toImmutableSet;
 import static com.google.auto.value.processor.ClassNames.AUTO_VALUE_NAME;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Sets.difference;
 import static com.google.common.collect.Sets.intersection;
 import static java.util.Comparator.naturalOrder;
 import static java.util.stream.Collectors.joining;
+import static javax.lang.model.util.ElementFilter.methodsIn;
 
+import com.google.auto.common.MoreElements;
 import com.google.auto.service.AutoService;
 import com.google.auto.value.extension.AutoValueExtension;
+import com.google.auto.value.extension.AutoValueExtension.IncrementalExtensionType;
+import com.google.auto.value.processor.ProcessorEvents.Span;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
@@ -34,6 +39,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -46,6 +52,7 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
@@ -89,7 +96,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
 
   private AutoValueProcessor(
       Iterable<? extends AutoValueExtension> testExtensions, ClassLoader loaderForExtensions) {
-    super(AUTO_VALUE_NAME, /* appliesToInterfaces= */ false);
+    super(AUTO_VALUE_NAME, /* appliesToInterfaces= */ true);
     this.extensions = ImmutableList.copyOf(testExtensions);
     this.loaderForExtensions = loaderForExtensions;
   }
@@ -130,19 +137,60 @@ public class AutoValueProcessor extends AutoValueishProcessor {
         extensions = ImmutableList.of();
       }
     }
+    nonIsolatingExtensions =
+        extensions.stream()
+            .filter(e -> e.incrementalType(processingEnv) != IncrementalExtensionType.ISOLATING)
+            .collect(toImmutableSet());
+    aggregatingProcessingEnv =
+        AutoValueAggregatingProcessor.processingEnvironmentFor(processingEnv.getElementUtils());
+  }
+
+  /**
+   * The extensions that are not {@linkplain IncrementalExtensionType#ISOLATING isolating}. These
+   * see the {@link ProcessingEnvironment} of {@link AutoValueAggregatingProcessor}, if it is
+   * running.
+   */
+  private ImmutableSet<AutoValueExtension> nonIsolatingExtensions = ImmutableSet.of();
+
+  /**
+   * The processing environment of {@link AutoValueAggregatingProcessor} in this compilation, if it
+   * had been initialized when this processor was. This is decided once, in {@link #init}, so that
+   * the incremental type that {@link #getSupportedOptions} declares always matches the environment
+   * that non-isolating extensions see.
+   *
+   * <p>javac initializes processors in the order of the {@code META-INF/services} file, which
+   * {@code @AutoService} writes sorted by name, so {@link AutoValueAggregatingProcessor} comes
+   * first. If some tool initializes it later, this processor behaves as if it were absent for the
+   * whole compilation: still correct, but not isolating if an extension is aggregating.
+   */
+  private Optional<ProcessingEnvironment> aggregatingProcessingEnv = Optional.empty();
+
+  /**
+   * Returns the context to pass to {@code extension}. This is {@code context} itself for an
+   * isolating extension, and otherwise a view of it that has the processing environment of {@link
+   * AutoValueAggregatingProcessor}.
+   */
+  private ExtensionContext contextFor(AutoValueExtension extension, ExtensionContext context) {
+    return nonIsolatingExtensions.contains(extension) ? context.aggregatingContext() : context;
   }
 
   @Override
   public ImmutableSet<String> getSupportedOptions() {
     ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-    AutoValueExtension.IncrementalExtensionType incrementalType =
-        extensions.stream()
-            .map(e -> e.incrementalType(processingEnv))
-            .min(naturalOrder())
-            .orElse(AutoValueExtension.IncrementalExtensionType.ISOLATING);
+    // If AutoValueAggregatingProcessor is running then it declares the incremental type of the
+    // extensions that are not isolating, and everything that this processor does is isolating.
+    IncrementalExtensionType incrementalType =
+        aggregatingProcessingEnv.isPresent()
+            ? IncrementalExtensionType.ISOLATING
+            : extensions.stream()
+                .map(e -> e.incrementalType(processingEnv))
+                .min(naturalOrder())
+                .orElse(IncrementalExtensionType.ISOLATING);
     builder
         .add(OMIT_IDENTIFIERS_OPTION)
         .add(Nullables.NULLABLE_OPTION)
+        .add(GeneratedSourceCache.CACHE_OPTION)
+        .add(RENDERING_THREADS_OPTION)
         .addAll(optionsFor(incrementalType));
     for (AutoValueExtension extension : extensions) {
       builder.addAll(extension.getSupportedOptions());
@@ -150,8 +198,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     return builder.build();
   }
 
-  private static ImmutableSet<String> optionsFor(
-      AutoValueExtension.IncrementalExtensionType incrementalType) {
+  static ImmutableSet<String> optionsFor(IncrementalExtensionType incrementalType) {
     switch (incrementalType) {
       case ISOLATING:
         return ImmutableSet.of(IncrementalAnnotationProcessorType.ISOLATING.getProcessorOption());
@@ -180,6 +227,15 @@ public class AutoValueProcessor extends AutoValueishProcessor {
               "[AutoValueImplAnnotation] @AutoValue may not be used to implement an annotation"
                   + " interface; try using @AutoAnnotation or @AutoBuilder instead");
     }
+    boolean record = type.getKind().equals(ElementKind.INTERFACE);
+    if (record && !recordsSupported()) {
+      errorReporter()
+          .abortWithError(
+              type,
+              "[AutoValueInterfaceVersion] @AutoValue interface is implemented with a record, so it"
+                  + " can only be compiled with source version %d or later",
+              MIN_RECORDS_SOURCE_VERSION);
+    }
 
     // We are going to classify the methods of the @AutoValue class into several categories.
     // This covers the methods in the class itself and the ones it inherits from supertypes.
@@ -220,16 +276,28 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     ImmutableMap<String, ExecutableElement> properties =
         propertyNameToMethodMap(propertyMethodsAndTypes.keySet());
 
+    ProcessingEnvironment aggregatingEnv = aggregatingProcessingEnv.orElse(processingEnv);
     ExtensionContext context =
         new ExtensionContext(
             this,
             processingEnv,
+            aggregatingEnv,
             type,
             properties,
             propertyMethodsAndTypes,
             abstractMethods,
             builderAbstractMethods);
-    ImmutableList<AutoValueExtension> applicableExtensions = applicableExtensions(type, context);
+    ImmutableList<AutoValueExtension> applicableExtensions =
+        applicableExtensions(type, methods, context);
+    if (record && !applicableExtensions.isEmpty()) {
+      // Extensions work by subclassing the generated class, and a record can't be subclassed.
+      errorReporter()
+          .abortWithError(
+              type,
+              "[AutoValueInterfaceExtension] @AutoValue interface is implemented with a record,"
+                  + " which can't be subclassed, so it can't use extensions: %s",
+              applicableExtensions.stream().map(this::extensionName).collect(joining(", ")));
+    }
     ImmutableSet<ExecutableElement> consumedMethods =
         methodsConsumedByExtensions(
             type, applicableExtensions, context, abstractMethods, properties);
@@ -248,6 +316,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
           new ExtensionContext(
               this,
               processingEnv,
+              aggregatingEnv,
               type,
               properties,
               propertyMethodsAndTypes,
@@ -262,7 +331,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     String finalSubclass = TypeSimplifier.simpleNameOf(generatedSubclassName(type, 0));
     AutoValueTemplateVars vars = new AutoValueTemplateVars();
     vars.identifiers = !processingEnv.getOptions().containsKey(OMIT_IDENTIFIERS_OPTION);
-    Nullables nullables = Nullables.fromMethods(processingEnv, methods);
+    Nullables nullables = nullablesFromMethods(methods);
     defineSharedVarsForType(type, methods, nullables, vars);
     defineVarsForType(
         type,
@@ -289,16 +358,14 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     vars.subclass = TypeSimplifier.simpleNameOf(subclass);
     vars.finalSubclass = finalSubclass;
     vars.isFinal = (subclassDepth == 0);
-    vars.modifiers = vars.isFinal ? "final " : "abstract ";
+    vars.record = record;
+    vars.modifiers = record ? "" : vars.isFinal ? "final " : "abstract ";
     vars.builderClassModifiers =
         consumedBuilderMethods.isEmpty()
             ? vars.isFinal ? "static final " : "static "
             : "abstract static ";
 
-    String text = vars.toText();
-    text = TypeEncoder.decode(text, processingEnv, vars.pkg, type.asType());
-    text = Reformatter.fixup(text);
-    writeSourceFile(subclass, text, type);
+    writeGeneratedSource(subclass, vars, vars.pkg, type.asType(), extensions, type);
     GwtSerialization gwtSerialization = new GwtSerialization(gwtCompatibility, processingEnv, type);
     gwtSerialization.maybeWriteGwtSerializer(vars, finalSubclass);
   }
@@ -316,6 +383,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
   // generate AutoValue_Foo_Bar with parent $AutoValue_Foo_Bar, the second will generate
   // $AutoValue_Foo_Bar with parent $$AutoValue_Foo_Bar, and the returned value will be 2 for
   // com.example.$$AutoValue_Foo_Bar.
+  @SuppressWarnings("try")
   private int writeExtensions(
       TypeElement type,
       ExtensionContext context,
@@ -327,7 +395,12 @@ public class AutoValueProcessor extends AutoValueishProcessor {
       String classFqName = generatedSubclassName(type, writtenSoFar);
       String classSimpleName = TypeSimplifier.simpleNameOf(classFqName);
       boolean isFinal = (writtenSoFar == 0);
-      String source = extension.generateClass(context, classSimpleName, parentSimpleName, isFinal);
+      String source;
+      try (Span span = ProcessorEvents.invokeExtension(extension, "generateClass", type)) {
+        source =
+            extension.generateClass(
+                contextFor(extension, context), classSimpleName, parentSimpleName, isFinal);
+      }
       if (source != null) {
         source = Reformatter.fixup(source);
         writeSourceFile(classFqName, source, type);
@@ -337,13 +410,22 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     return writtenSoFar;
   }
 
+  @SuppressWarnings("try")
   private ImmutableList<AutoValueExtension> applicableExtensions(
-      TypeElement type, ExtensionContext context) {
+      TypeElement type, ImmutableSet<ExecutableElement> methods, ExtensionContext context) {
     List<AutoValueExtension> applicableExtensions = new ArrayList<>();
     List<AutoValueExtension> finalExtensions = new ArrayList<>();
+    ExtensionTriggers triggers = new ExtensionTriggers(type, methods);
     for (AutoValueExtension extension : extensions) {
-      if (extension.applicable(context)) {
-        if (extension.mustBeFinal(context)) {
+      if (!triggers.mayApply(extension)) {
+        continue;
+      }
+      boolean applicable;
+      try (Span span = ProcessorEvents.invokeExtension(extension, "applicable", type)) {
+        applicable = extension.applicable(contextFor(extension, context));
+      }
+      if (applicable) {
+        if (extension.mustBeFinal(contextFor(extension, context))) {
           finalExtensions.add(extension);
         } else {
           applicableExtensions.add(extension);
@@ -368,6 +450,64 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     return ImmutableList.copyOf(applicableExtensions);
   }
 
+  /**
+   * Checks an {@code @AutoValue} class against the {@linkplain
+   * AutoValueExtension#triggerAnnotations() trigger annotations} and {@linkplain
+   * AutoValueExtension#triggerInterfaces() trigger interfaces} of each extension, so that
+   * extensions that cannot apply are not asked. The annotations of the class and its methods are
+   * only collected if some extension declares trigger annotations.
+   */
+  private class ExtensionTriggers {
+    private final TypeElement type;
+    private final ImmutableSet<ExecutableElement> methods;
+    private ImmutableSet<String> annotationNames;
+
+    ExtensionTriggers(TypeElement type, ImmutableSet<ExecutableElement> methods) {
+      this.type = type;
+      this.methods = methods;
+    }
+
+    boolean mayApply(AutoValueExtension extension) {
+      Set<String> triggerAnnotations = extension.triggerAnnotations();
+      Set<String> triggerInterfaces = extension.triggerInterfaces();
+      if (triggerAnnotations.isEmpty() && triggerInterfaces.isEmpty()) {
+        return true;
+      }
+      return triggerAnnotations.stream().anyMatch(annotationNames()::contains)
+          || triggerInterfaces.stream().anyMatch(this::implementsInterface);
+    }
+
+    private ImmutableSet<String> annotationNames() {
+      if (annotationNames == null) {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        elementUtils().getAllAnnotationMirrors(type).forEach(a -> names.add(annotationName(a)));
+        // The local and inherited methods do not include private or static methods, which an
+        // extension might want to see so that it can report errors about them.
+        for (ExecutableElement method :
+            Iterables.concat(methods, methodsIn(type.getEnclosedElements()))) {
+          method.getAnnotationMirrors().forEach(a -> names.add(annotationName(a)));
+        }
+        annotationNames = names.build();
+      }
+      return annotationNames;
+    }
+
+    private boolean implementsInterface(String interfaceName) {
+      TypeElement interfaceElement = elementUtils().getTypeElement(interfaceName);
+      return interfaceElement != null
+          && typeUtils()
+              .isAssignable(
+                  typeUtils().erasure(type.asType()),
+                  typeUtils().erasure(interfaceElement.asType()));
+    }
+  }
+
+  private static String annotationName(AnnotationMirror annotation) {
+    return MoreElements.asType(annotation.getAnnotationType().asElement())
+        .getQualifiedName()
+        .toString();
+  }
+
   private ImmutableSet<ExecutableElement> methodsConsumedByExtensions(
       TypeElement type,
       ImmutableList<AutoValueExtension> applicableExtensions,
@@ -377,7 +517,8 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     Set<ExecutableElement> consumed = new HashSet<>();
     for (AutoValueExtension extension : applicableExtensions) {
       Set<ExecutableElement> consumedHere = new HashSet<>();
-      for (String consumedProperty : extension.consumeProperties(context)) {
+      ExtensionContext extensionContext = contextFor(extension, context);
+      for (String consumedProperty : extension.consumeProperties(extensionContext)) {
         ExecutableElement propertyMethod = properties.get(consumedProperty);
         if (propertyMethod == null) {
           errorReporter()
@@ -391,7 +532,7 @@ public class AutoValueProcessor extends AutoValueishProcessor {
           consumedHere.add(propertyMethod);
         }
       }
-      for (ExecutableElement consumedMethod : extension.consumeMethods(context)) {
+      for (ExecutableElement consumedMethod : extension.consumeMethods(extensionContext)) {
         if (!abstractMethods.contains(consumedMethod)) {
           errorReporter()
               .reportError(
@@ -425,7 +566,8 @@ public class AutoValueProcessor extends AutoValueishProcessor {
     Set<ExecutableElement> consumed = new HashSet<>();
     for (AutoValueExtension extension : applicableExtensions) {
       Set<ExecutableElement> consumedHere = new HashSet<>();
-      for (ExecutableElement consumedMethod : extension.consumeBuilderMethods(context)) {
+      ExtensionContext extensionContext = contextFor(extension, context);
+      for (ExecutableElement consumedMethod : extension.consumeBuilderMethods(extensionContext)) {
         if (!builderAbstractMethods.contains(consumedMethod)) {
           errorReporter()
               .reportError(
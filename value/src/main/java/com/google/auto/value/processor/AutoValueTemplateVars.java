@@ -15,6 +15,7 @@
  */
 package com.google.auto.value.processor;
 
+import com.google.common.base.Supplier;
 import com.google.escapevelocity.Template;
 
 /**
@@ -49,10 +50,16 @@ class AutoValueTemplateVars extends AutoValueOrBuilderTemplateVars {
    */
   String modifiers;
 
-  private static final Template TEMPLATE = parsedTemplateForResource("autovalue.vm");
+  /**
+   * True if the {@code @AutoValue} type is an interface, so that the generated class is a record
+   * that implements it.
+   */
+  Boolean record;
+
+  private static final Supplier<Template> TEMPLATE = lazyTemplateForResource("autovalue.vm");
 
   @Override
   Template parsedTemplate() {
-    return TEMPLATE;
+    return TEMPLATE.get();
   }
 }
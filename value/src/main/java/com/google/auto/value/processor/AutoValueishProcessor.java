@@ -31,17 +31,21 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toSet;
 import static javax.lang.model.util.ElementFilter.constructorsIn;
+import static javax.lang.model.util.ElementFilter.methodsIn;
 
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.common.Visibility;
 import com.google.auto.value.processor.MissingTypes.MissingTypeException;
+import com.google.auto.value.processor.ProcessorEvents.Span;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.Writer;
@@ -54,11 +58,16 @@ import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 import javax.annotation.processing.AbstractProcessor;
@@ -94,6 +103,14 @@ import javax.tools.JavaFileObject;
  * @author emcmanus@google.com (Éamonn McManus)
  */
 abstract class AutoValueishProcessor extends AbstractProcessor {
+  /**
+   * The number of threads to use to reformat generated source code. The default is 1, which means
+   * that each source is generated entirely on the compiler thread as soon as its type has been
+   * analyzed. Larger values mean that the sources for all the types in a round are generated at the
+   * end of the round, with their reformatting done in parallel.
+   */
+  static final String RENDERING_THREADS_OPTION = "com.google.auto.value.RenderingThreads";
+
   private final String annotationClassName;
   private final boolean appliesToInterfaces;
 
@@ -117,16 +134,67 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
 
   private ErrorReporter errorReporter;
 
+  /** Previously generated sources, if {@link GeneratedSourceCache#CACHE_OPTION} is set. */
+  private Optional<GeneratedSourceCache> sourceCache;
+
+  /**
+   * The number of threads that reformat source code at the end of each round, from {@link
+   * #RENDERING_THREADS_OPTION}. If it is 1, sources are generated as each type is processed.
+   */
+  private int renderingThreads;
+
+  /**
+   * Information about supertypes and packages shared by the types processed in the current round.
+   */
+  private TypeSimplifier.RoundCache typeSimplifierCache = new TypeSimplifier.RoundCache();
+
+  /** Nullability information shared by the types processed in the current round. */
+  private Nullables.RoundCache nullablesCache = new Nullables.RoundCache();
+
+  /** Sources to be generated at the end of the current round, if {@link #renderingThreads} > 1. */
+  private final List<PendingSource> pendingSources = new ArrayList<>();
+
   @Override
   public synchronized void init(ProcessingEnvironment processingEnv) {
     super.init(processingEnv);
     errorReporter = new ErrorReporter(processingEnv);
+    sourceCache = GeneratedSourceCache.create(processingEnv);
+    renderingThreads = renderingThreads(processingEnv);
     annotationType = elementUtils().getTypeElement(annotationClassName);
     if (annotationType != null) {
       simpleAnnotationName = annotationType.getSimpleName().toString();
     }
   }
 
+  private static int renderingThreads(ProcessingEnvironment processingEnv) {
+    String option = processingEnv.getOptions().get(RENDERING_THREADS_OPTION);
+    if (option == null) {
+      return 1;
+    }
+    Integer threads = Ints.tryParse(option.trim());
+    if (threads == null || threads < 1) {
+      processingEnv
+          .getMessager()
+          .printMessage(
+              Diagnostic.Kind.WARNING,
+              "Ignoring -A"
+                  + RENDERING_THREADS_OPTION
+                  + "="
+                  + option
+                  + " because it is not a positive integer");
+      return 1;
+    }
+    return threads;
+  }
+
+  /**
+   * Returns a {@link Nullables} for the given methods, reusing nullability information computed
+   * earlier in the round, possibly by another processor.
+   */
+  final Nullables nullablesFromMethods(Collection<ExecutableElement> methods) {
+    return Nullables.fromMethods(processingEnv, methods, nullablesCache);
+  }
+
   final ErrorReporter errorReporter() {
     return errorReporter;
   }
@@ -388,9 +456,11 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
     // is not guaranteed that it will be represented by the same TypeElement on the next round. We
     // save the name of the missing type for better diagnostics. (It may be empty.)
     deferredTypeNames.put(type.getQualifiedName().toString(), missingType);
+    ProcessorEvents.deferType(this, type, missingType);
   }
 
   @Override
+  @SuppressWarnings("try")
   public final boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
     if (annotationType == null) {
       // This should not happen. If the annotation type is not found, how did the processor get
@@ -435,8 +505,11 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
             .addAll(ElementFilter.typesIn(annotatedElements))
             .build();
     deferredTypeNames.clear();
+    sourceCache.ifPresent(GeneratedSourceCache::newRound);
+    typeSimplifierCache = new TypeSimplifier.RoundCache();
+    nullablesCache = Nullables.RoundCache.forRound(roundEnv);
     for (TypeElement type : types) {
-      try {
+      try (Span span = ProcessorEvents.processType(this, type)) {
         validateType(type);
         processType(type);
       } catch (AbortProcessingException e) {
@@ -448,19 +521,26 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
         // again and adding it back to the list).
         addDeferredType(type, e.getMessage());
       } catch (RuntimeException e) {
-        String trace = Throwables.getStackTraceAsString(e);
-        errorReporter.reportError(
-            type,
-            "[%sException] @%s processor threw an exception: %s",
-            simpleAnnotationName,
-            simpleAnnotationName,
-            trace);
+        reportException(type, e);
         throw e;
       }
     }
+    if (!pendingSources.isEmpty()) {
+      writePendingSources();
+    }
     return false; // never claim annotation, because who knows what other processors want?
   }
 
+  private void reportException(TypeElement type, RuntimeException e) {
+    String trace = Throwables.getStackTraceAsString(e);
+    errorReporter.reportError(
+        type,
+        "[%sException] @%s processor threw an exception: %s",
+        simpleAnnotationName,
+        simpleAnnotationName,
+        trace);
+  }
+
   /**
    * Validations common to all the subclasses. An {@code @AutoFoo} type must be a class, or possibly
    * an interface for {@code @AutoBuilder}. If it is a class then it must have a non-private no-arg
@@ -589,8 +669,16 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
     vars.actualTypes = TypeSimplifier.actualTypeParametersString(type);
     vars.wildcardTypes = wildcardTypeParametersString(type);
     vars.annotations = copiedClassAnnotations(type);
+    Set<ExecutableElement> candidateMethods = methods;
+    if (type.getKind().isInterface()) {
+      // The methods of an interface don't include the ones it inherits from Object. An interface
+      // can't have a concrete implementation of any of those, so we always generate them.
+      TypeElement javaLangObject = elementUtils().getTypeElement("java.lang.Object");
+      candidateMethods = new LinkedHashSet<>(methodsIn(javaLangObject.getEnclosedElements()));
+      candidateMethods.addAll(methods);
+    }
     Map<ObjectMethod, ExecutableElement> methodsToGenerate =
-        determineObjectMethodsToGenerate(methods);
+        determineObjectMethodsToGenerate(candidateMethods);
     vars.toString = methodsToGenerate.containsKey(ObjectMethod.TO_STRING);
     vars.equals = methodsToGenerate.containsKey(ObjectMethod.EQUALS);
     vars.hashCode = methodsToGenerate.containsKey(ObjectMethod.HASH_CODE);
@@ -1329,6 +1417,18 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
     return getAnnotationMirror(element, annotationName).isPresent();
   }
 
+  /**
+   * The ordinal of the first {@link SourceVersion} with records and sealed interfaces, which is
+   * {@code RELEASE_17}. We compare ordinals because this code must also run on earlier JDKs, where
+   * that constant doesn't exist.
+   */
+  static final int MIN_RECORDS_SOURCE_VERSION = 17;
+
+  /** True if the code being compiled can use records and sealed interfaces. */
+  final boolean recordsSupported() {
+    return processingEnv.getSourceVersion().ordinal() >= MIN_RECORDS_SOURCE_VERSION;
+  }
+
   /** True if the type is a class with a non-private no-arg constructor, or is an interface. */
   static boolean hasVisibleNoArgConstructor(TypeElement type) {
     return type.getKind().isInterface()
@@ -1337,8 +1437,143 @@ abstract class AutoValueishProcessor extends AbstractProcessor {
                 c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
   }
 
-  final void writeSourceFile(String className, String text, TypeElement originatingType) {
+  /**
+   * Generates the source code for {@code vars} and writes it as {@code className}: the result of
+   * evaluating the template, decoding the types in it relative to {@code pkg} and {@code
+   * baseType}, and reformatting it. If the {@link GeneratedSourceCache} is enabled, the source may
+   * come from a previous compilation of an identical type. If {@link #RENDERING_THREADS_OPTION} is
+   * greater than 1, the source is generated and written at the end of the round instead of now.
+   *
+   * @param extensions objects whose versions can affect the generated code, in addition to the
+   *     processor itself
+   */
+  final void writeGeneratedSource(
+      String className,
+      TemplateVars vars,
+      String pkg,
+      TypeMirror baseType,
+      Iterable<?> extensions,
+      TypeElement originatingType) {
+    Optional<String> fingerprint =
+        sourceCache.flatMap(
+            cache -> cache.fingerprint(vars, pkg, baseType, extensions, typeSimplifierCache));
+    Optional<String> cached = fingerprint.flatMap(f -> sourceCache.get().get(f));
+    if (cached.isPresent()) {
+      writeSourceFile(className, cached.get(), originatingType);
+      return;
+    }
+    PendingSource pendingSource =
+        new PendingSource(className, vars, pkg, baseType, originatingType, fingerprint);
+    if (renderingThreads > 1) {
+      pendingSources.add(pendingSource);
+    } else {
+      String text =
+          TypeEncoder.decode(vars.toText(), processingEnv, pkg, baseType, typeSimplifierCache);
+      writePendingSource(pendingSource, Reformatter.fixup(text));
+    }
+  }
+
+  /** A source file whose text has yet to be generated from its {@link TemplateVars}. */
+  private static final class PendingSource {
+    final String className;
+    final TemplateVars vars;
+    final String pkg;
+    final TypeMirror baseType;
+    final TypeElement originatingType;
+    final Optional<String> fingerprint;
+
+    PendingSource(
+        String className,
+        TemplateVars vars,
+        String pkg,
+        TypeMirror baseType,
+        TypeElement originatingType,
+        Optional<String> fingerprint) {
+      this.className = className;
+      this.vars = vars;
+      this.pkg = pkg;
+      this.baseType = baseType;
+      this.originatingType = originatingType;
+      this.fingerprint = fingerprint;
+    }
+  }
+
+  private void writePendingSource(PendingSource pendingSource, String text) {
+    pendingSource.fingerprint.ifPresent(f -> sourceCache.get().put(f, text));
+    writeSourceFile(pendingSource.className, text, pendingSource.originatingType);
+  }
+
+  /**
+   * Generates and writes the sources queued by {@link #writeGeneratedSource} during this round.
+   * Evaluating a template can call the compiler's model, for example through the {@link
+   * TypeMirror} of a property, and decoding types uses the compiler's {@link Elements} and {@link
+   * Types}. None of these are thread-safe, so both run on this thread, as does writing. Only
+   * reformatting, which works on the text alone, runs on a pool of {@link #renderingThreads}
+   * threads. Sources are written in the order they were queued, so the output does not depend on
+   * thread scheduling.
+   */
+  private void writePendingSources() {
+    ImmutableList<PendingSource> sources = ImmutableList.copyOf(pendingSources);
+    pendingSources.clear();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(renderingThreads, sources.size()),
+            runnable -> {
+              Thread thread = new Thread(runnable, simpleAnnotationName + " rendering");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<String>> formatted = new ArrayList<>();
+      for (PendingSource source : sources) {
+        Future<String> result = null;
+        try {
+          String text =
+              TypeEncoder.decode(
+                  source.vars.toText(),
+                  processingEnv,
+                  source.pkg,
+                  source.baseType,
+                  typeSimplifierCache);
+          result = executor.submit(() -> Reformatter.fixup(text));
+        } catch (MissingTypeException e) {
+          addDeferredType(source.originatingType, e.getMessage());
+        } catch (RuntimeException e) {
+          reportException(source.originatingType, e);
+          throw e;
+        }
+        formatted.add(result);
+      }
+      for (int i = 0; i < sources.size(); i++) {
+        PendingSource source = sources.get(i);
+        if (formatted.get(i) != null) {
+          String text;
+          try {
+            text = await(formatted.get(i));
+          } catch (RuntimeException e) {
+            reportException(source.originatingType, e);
+            throw e;
+          }
+          writePendingSource(source, text);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String await(Future<String> future) {
     try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @SuppressWarnings("try")
+  final void writeSourceFile(String className, String text, TypeElement originatingType) {
+    try (Span span = ProcessorEvents.writeSource(className, text.length())) {
       JavaFileObject sourceFile =
           processingEnv.getFiler().createSourceFile(className, originatingType);
       try (Writer writer = sourceFile.openWriter()) {
@@ -42,11 +42,19 @@ class ExtensionContext implements AutoValueExtension.Context {
   private final ImmutableMap<String, TypeMirror> propertyTypes;
   private final ImmutableSet<ExecutableElement> abstractMethods;
   private final ImmutableSet<ExecutableElement> builderAbstractMethods;
+  private final ExtensionContext aggregatingContext;
   private Optional<BuilderContext> builderContext = Optional.empty();
 
+  /**
+   * Creates a context. {@code aggregatingProcessingEnvironment} is the environment that extensions
+   * that are not isolating see, through {@link #aggregatingContext()}. It is the environment of
+   * {@link AutoValueAggregatingProcessor} if that is running, and otherwise the same as {@code
+   * processingEnvironment}.
+   */
   ExtensionContext(
       AutoValueProcessor autoValueProcessor,
       ProcessingEnvironment processingEnvironment,
+      ProcessingEnvironment aggregatingProcessingEnvironment,
       TypeElement autoValueClass,
       ImmutableMap<String, ExecutableElement> properties,
       ImmutableMap<ExecutableElement, TypeMirror> propertyMethodsAndTypes,
@@ -60,10 +68,36 @@ class ExtensionContext implements AutoValueExtension.Context {
         ImmutableMap.copyOf(Maps.transformValues(properties, propertyMethodsAndTypes::get));
     this.abstractMethods = abstractMethods;
     this.builderAbstractMethods = builderAbstractMethods;
+    this.aggregatingContext =
+        (aggregatingProcessingEnvironment == processingEnvironment)
+            ? this
+            : new ExtensionContext(this, aggregatingProcessingEnvironment);
+  }
+
+  private ExtensionContext(ExtensionContext original, ProcessingEnvironment processingEnvironment) {
+    this.autoValueProcessor = original.autoValueProcessor;
+    this.processingEnvironment = processingEnvironment;
+    this.autoValueClass = original.autoValueClass;
+    this.properties = original.properties;
+    this.propertyTypes = original.propertyTypes;
+    this.abstractMethods = original.abstractMethods;
+    this.builderAbstractMethods = original.builderAbstractMethods;
+    this.aggregatingContext = this;
   }
 
   void setBuilderContext(BuilderContext builderContext) {
     this.builderContext = Optional.of(builderContext);
+    if (aggregatingContext != this) {
+      aggregatingContext.setBuilderContext(builderContext);
+    }
+  }
+
+  /**
+   * Returns the context for extensions that are not isolating. It is the same as this one except
+   * for its {@link #processingEnvironment()}.
+   */
+  ExtensionContext aggregatingContext() {
+    return aggregatingContext;
   }
 
   @Override
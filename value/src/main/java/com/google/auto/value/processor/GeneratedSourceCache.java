@@ -0,0 +1,401 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A cache of generated source code, for compilers that run many times in the same JVM, such as
+ * Bazel persistent workers or the Gradle daemon, or that can share a cache directory between runs.
+ * It is enabled with {@code -Acom.google.auto.value.GeneratedSourceCache=memory}, which keeps the
+ * sources in memory, or with {@code -Acom.google.auto.value.GeneratedSourceCache=/some/directory},
+ * which also stores them in that directory.
+ *
+ * <p>The cache key is a fingerprint of everything that determines the generated code: the values
+ * of the {@link TemplateVars} fields, which are the resolved model of the type, together with the
+ * types whose names can conflict with imported names, the processor options, and the versions of
+ * the processor and of any extensions. When the fingerprint of a type matches one that was seen
+ * before, the processor writes the source text it generated then, without evaluating the template
+ * again or running {@link TypeEncoder#decode} and {@link Reformatter#fixup} over the result.
+ *
+ * <p>If some template variable has a value that we don't know how to fingerprint, the source is
+ * generated in the usual way and is not cached.
+ */
+final class GeneratedSourceCache {
+  static final String CACHE_OPTION = "com.google.auto.value.GeneratedSourceCache";
+
+  /** The value of {@link #CACHE_OPTION} that means that sources are only cached in memory. */
+  static final String MEMORY = "memory";
+
+  /**
+   * Increment this when the fingerprint computation changes in a way that could make the same
+   * fingerprint correspond to different generated code.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Sources cached in memory. This is static so that it survives from one compilation to the next
+   * when the processor class stays loaded, which is the common case for persistent workers. It is
+   * in a holder class so that it is only created if {@link #CACHE_OPTION} is actually used.
+   */
+  private static final class MemoryCache {
+    static final Cache<String, String> CACHE =
+        CacheBuilder.newBuilder().maximumSize(10_000).softValues().build();
+  }
+
+  private static final ConcurrentMap<Class<?>, String> classVersions = new ConcurrentHashMap<>();
+
+  private final ProcessingEnvironment processingEnv;
+  private final Optional<Path> directory;
+  private final String environment;
+
+  /**
+   * The simple names of the top-level types in each package, which affect how {@code java.lang}
+   * types are spelled. The set of types in a package does not change within a round.
+   */
+  private final Map<String, Set<String>> packageMemberNames = new HashMap<>();
+
+  private GeneratedSourceCache(ProcessingEnvironment processingEnv, Optional<Path> directory) {
+    this.processingEnv = processingEnv;
+    this.directory = directory;
+    this.environment = environment(processingEnv);
+  }
+
+  /**
+   * Returns a cache for the given environment, or empty if the {@link #CACHE_OPTION} option is not
+   * set.
+   */
+  static Optional<GeneratedSourceCache> create(ProcessingEnvironment processingEnv) {
+    String option = processingEnv.getOptions().get(CACHE_OPTION);
+    if (option == null || option.isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<Path> directory =
+        option.equals(MEMORY) ? Optional.empty() : Optional.of(Paths.get(option));
+    return Optional.of(new GeneratedSourceCache(processingEnv, directory));
+  }
+
+  /** Forgets information that is only valid within a round. */
+  void newRound() {
+    packageMemberNames.clear();
+  }
+
+  /**
+   * Returns the source previously cached with the given fingerprint, if any.
+   *
+   * @param fingerprint the result of {@link #fingerprint}
+   */
+  Optional<String> get(String fingerprint) {
+    String source = MemoryCache.CACHE.getIfPresent(fingerprint);
+    if (source == null && directory.isPresent()) {
+      source = read(directory.get().resolve(fingerprint + ".java"));
+      if (source != null) {
+        MemoryCache.CACHE.put(fingerprint, source);
+      }
+    }
+    return Optional.ofNullable(source);
+  }
+
+  /** Caches the source generated for the given fingerprint. */
+  void put(String fingerprint, String source) {
+    MemoryCache.CACHE.put(fingerprint, source);
+    directory.ifPresent(d -> write(d, fingerprint + ".java", source));
+  }
+
+  @VisibleForTesting
+  static void clearMemoryCache() {
+    MemoryCache.CACHE.invalidateAll();
+  }
+
+  /**
+   * Returns the fingerprint of the source that will be generated from {@code vars}, or empty if
+   * some template variable has a value that cannot be fingerprinted.
+   *
+   * @param vars the template variables, which must have all been set
+   * @param pkg the package of the generated class
+   * @param baseType the type whose nested types are in scope in the generated class
+   * @param extensions objects, such as {@code AutoValueExtension} instances, whose versions can
+   *     affect the generated code
+   * @param roundCache information about {@code baseType} computed during the current round
+   */
+  Optional<String> fingerprint(
+      TemplateVars vars,
+      String pkg,
+      TypeMirror baseType,
+      Iterable<?> extensions,
+      TypeSimplifier.RoundCache roundCache) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    putString(hasher, environment);
+    putString(hasher, vars.getClass().getName());
+    for (Object extension : extensions) {
+      putString(hasher, classVersion(extension.getClass()));
+    }
+    putString(hasher, pkg);
+    Set<String> scope = new TreeSet<>();
+    for (TypeElement type :
+        roundCache.nonPrivateDeclaredTypes(processingEnv.getTypeUtils(), baseType)) {
+      scope.add(type.getQualifiedName().toString());
+    }
+    putString(hasher, scope.toString());
+    putString(hasher, packageMemberNames.computeIfAbsent(pkg, this::memberNames).toString());
+    try {
+      new Fingerprinter(hasher).put(vars.toVars());
+    } catch (UnsupportedOperationException e) {
+      return Optional.empty();
+    }
+    return Optional.of(hasher.hash().toString());
+  }
+
+  private Set<String> memberNames(String pkg) {
+    Set<String> names = new TreeSet<>();
+    PackageElement packageElement = processingEnv.getElementUtils().getPackageElement(pkg);
+    if (packageElement != null) {
+      for (Element member : packageElement.getEnclosedElements()) {
+        names.add(member.getSimpleName().toString());
+      }
+    }
+    return names;
+  }
+
+  private static String environment(ProcessingEnvironment processingEnv) {
+    Map<String, String> options = new TreeMap<>(processingEnv.getOptions());
+    options.remove(CACHE_OPTION);
+    return FORMAT_VERSION
+        + "\n"
+        + processingEnv.getSourceVersion()
+        + "\n"
+        + classVersion(GeneratedSourceCache.class)
+        + "\n"
+        + options;
+  }
+
+  /**
+   * Returns a string that identifies the version of the given class: its name, together with the
+   * size and modification time of the jar or class file that it was loaded from.
+   */
+  private static String classVersion(Class<?> c) {
+    return classVersions.computeIfAbsent(
+        c,
+        k -> {
+          String name = k.getName();
+          URL url = k.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class");
+          Optional<BasicFileAttributes> attributes =
+              (url == null) ? Optional.empty() : SimpleServiceLoader.containingFileAttributes(url);
+          return name
+              + attributes
+                  .map(a -> " " + a.size() + " " + a.lastModifiedTime().toMillis())
+                  .orElse("");
+        });
+  }
+
+  private static String read(Path file) {
+    try {
+      return new String(Files.readAllBytes(file), UTF_8);
+    } catch (IOException e) {
+      // A missing or unreadable entry means that we will generate the source again.
+      return null;
+    }
+  }
+
+  private static void write(Path directory, String fileName, String source) {
+    // Write to a temporary file and then rename it, so that a concurrent compilation sharing the
+    // same directory never sees a partly-written entry.
+    try {
+      Files.createDirectories(directory);
+      Path temp = Files.createTempFile(directory, fileName, ".tmp");
+      Files.write(temp, source.getBytes(UTF_8));
+      try {
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // The cache is only an optimization, so failing to write it is not an error.
+    }
+  }
+
+  private static void putString(Hasher hasher, String s) {
+    hasher.putInt(s.length()).putString(s, UTF_8);
+  }
+
+  /**
+   * Feeds a template variable value into a {@link Hasher}. Values are strings and other simple
+   * values, collections of values, model objects like {@link TypeMirror}, and instances of classes
+   * in this package such as {@link AutoValueishProcessor.Property}, whose fields are fingerprinted
+   * in turn. Any other value causes {@link UnsupportedOperationException}, as does a function that
+   * throws when it is applied to a string.
+   */
+  @VisibleForTesting
+  static class Fingerprinter {
+    private static final String PACKAGE_PREFIX = GeneratedSourceCache.class.getPackage().getName();
+
+    /**
+     * A string that is passed to {@code Function<String, String>} values, which are used to spell
+     * copying expressions like {@code ImmutableList.copyOf(x)}.
+     */
+    private static final String FUNCTION_PROBE = "\u0000probe\u0000";
+
+    private final Hasher hasher;
+    private final Map<Object, Integer> seen = new IdentityHashMap<>();
+
+    Fingerprinter(Hasher hasher) {
+      this.hasher = hasher;
+    }
+
+    void put(Object value) {
+      if (value == null) {
+        tag("null");
+      } else if (value instanceof String
+          || value instanceof Boolean
+          || value instanceof Number
+          || value instanceof Character
+          || value instanceof Enum<?>) {
+        tag(value.getClass().getName());
+        putString(hasher, value.toString());
+      } else if (value instanceof Class<?>) {
+        tag("class");
+        putString(hasher, ((Class<?>) value).getName());
+      } else if (value instanceof Optional<?>) {
+        tag("optional");
+        put(((Optional<?>) value).orElse(null));
+      } else if (value instanceof Multimap<?, ?>) {
+        put(((Multimap<?, ?>) value).asMap());
+      } else if (value instanceof Map<?, ?>) {
+        tag("map");
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          put(entry.getKey());
+          put(entry.getValue());
+        }
+        tag("end");
+      } else if (value instanceof Iterable<?>) {
+        tag("iterable");
+        for (Object element : (Iterable<?>) value) {
+          put(element);
+        }
+        tag("end");
+      } else if (value instanceof TypeMirror) {
+        TypeMirror type = (TypeMirror) value;
+        if (type.getKind() == TypeKind.ERROR) {
+          throw new UnsupportedOperationException("Error type " + type);
+        }
+        tag("type");
+        putString(hasher, type.getKind() + " " + type);
+      } else if (value instanceof Element) {
+        Element element = (Element) value;
+        tag("element");
+        putString(hasher, element.getKind() + " " + element);
+        putString(hasher, String.valueOf(element.getEnclosingElement()));
+        putString(hasher, element.getModifiers().toString());
+        putString(hasher, element.asType().toString());
+        putString(hasher, element.getAnnotationMirrors().toString());
+      } else if (value instanceof AnnotationMirror) {
+        tag("annotation");
+        putString(hasher, value.toString());
+      } else if (value instanceof Function<?, ?>) {
+        tag("function");
+        @SuppressWarnings("unchecked") // We only expect functions from String to String here.
+        Function<Object, ?> function = (Function<Object, ?>) value;
+        Object result;
+        try {
+          result = function.apply(FUNCTION_PROBE);
+        } catch (RuntimeException e) {
+          // Probably a ClassCastException because the function does not accept strings.
+          throw new UnsupportedOperationException(e);
+        }
+        putString(hasher, String.valueOf(result));
+      } else if (value.getClass().getName().startsWith(PACKAGE_PREFIX + ".")
+          && !value.getClass().isSynthetic()) {
+        putFields(value);
+      } else {
+        throw new UnsupportedOperationException("Cannot fingerprint " + value.getClass());
+      }
+    }
+
+    private void putFields(Object value) {
+      Integer previous = seen.putIfAbsent(value, seen.size());
+      if (previous != null) {
+        tag("seen");
+        hasher.putInt(previous);
+        return;
+      }
+      tag(value.getClass().getName());
+      for (Class<?> c = value.getClass(); c != Object.class; c = c.getSuperclass()) {
+        for (Field field : sortedFields(c)) {
+          put(fieldValue(field, value));
+        }
+      }
+      tag("end");
+    }
+
+    private static Iterable<Field> sortedFields(Class<?> c) {
+      Map<String, Field> fields = new TreeMap<>();
+      for (Field field : c.getDeclaredFields()) {
+        if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
+          fields.put(field.getName(), field);
+        }
+      }
+      return Collections.unmodifiableCollection(fields.values());
+    }
+
+    private static Object fieldValue(Field field, Object container) {
+      try {
+        field.setAccessible(true);
+        return field.get(container);
+      } catch (IllegalAccessException | RuntimeException e) {
+        throw new UnsupportedOperationException(e);
+      }
+    }
+
+    private void tag(String tag) {
+      putString(hasher, tag);
+    }
+  }
+}
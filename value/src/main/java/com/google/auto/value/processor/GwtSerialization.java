@@ -20,7 +20,9 @@ import static java.util.stream.Collectors.toList;
 
 import com.google.auto.common.AnnotationMirrors;
 import com.google.auto.value.processor.AutoValueishProcessor.GetterProperty;
+import com.google.auto.value.processor.ProcessorEvents.Span;
 import com.google.auto.value.processor.PropertyBuilderClassifier.PropertyBuilder;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
 import com.google.escapevelocity.Template;
@@ -221,16 +223,17 @@ class GwtSerialization {
     /** A string that should change if any salient details of the serialized class change. */
     String classHashString;
 
-    private static final Template TEMPLATE = parsedTemplateForResource("gwtserializer.vm");
+    private static final Supplier<Template> TEMPLATE = lazyTemplateForResource("gwtserializer.vm");
 
     @Override
     Template parsedTemplate() {
-      return TEMPLATE;
+      return TEMPLATE.get();
     }
   }
 
+  @SuppressWarnings("try")
   private void writeSourceFile(String className, String text, TypeElement originatingType) {
-    try {
+    try (Span span = ProcessorEvents.writeSource(className, text.length())) {
       JavaFileObject sourceFile =
           processingEnv.getFiler().createSourceFile(className, originatingType);
       try (Writer writer = sourceFile.openWriter()) {
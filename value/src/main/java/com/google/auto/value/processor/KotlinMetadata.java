@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static com.google.auto.common.MoreStreams.toImmutableList;
+import static com.google.auto.common.MoreStreams.toImmutableMap;
+import static com.google.auto.common.MoreStreams.toImmutableSet;
+import static java.util.stream.Collectors.toMap;
+import static javax.lang.model.util.ElementFilter.constructorsIn;
+
+import com.google.auto.common.AnnotationMirrors;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import kotlinx.metadata.Flag;
+import kotlinx.metadata.KmClass;
+import kotlinx.metadata.KmConstructor;
+import kotlinx.metadata.KmValueParameter;
+import kotlinx.metadata.jvm.KotlinClassHeader;
+import kotlinx.metadata.jvm.KotlinClassMetadata;
+
+/**
+ * Uses Kotlin reflection to find which constructor parameters of a Kotlin class have default
+ * values. This is the only class that references kotlinx-metadata, so the (shaded) Kotlin classes
+ * are only loaded when an {@code @AutoBuilder} actually targets a Kotlin class.
+ *
+ * <p>Decoding the {@code kotlin.Metadata} annotation is relatively expensive, so the result is
+ * cached. The cache key is the contents of the annotation, which identifies the class file, so the
+ * same entry can be used for several {@code @AutoBuilder} types targeting the same class, and by
+ * later compilations in the same JVM, as happens with a persistent compiler worker.
+ */
+final class KotlinMetadata {
+  private KotlinMetadata() {}
+
+  private static final Cache<ImmutableList<Object>, ImmutableList<KotlinConstructor>> CACHE =
+      CacheBuilder.newBuilder().maximumSize(1_000).recordStats().build();
+
+  /** The parameter names of a Kotlin constructor, and which of them have default values. */
+  private static final class KotlinConstructor {
+    final ImmutableSet<String> all;
+    final ImmutableSet<String> optional;
+
+    KotlinConstructor(ImmutableSet<String> all, ImmutableSet<String> optional) {
+      this.all = all;
+      this.optional = optional;
+    }
+  }
+
+  /**
+   * Returns {@link Executable} instances for the constructors in {@code ofClass} that include
+   * information about which parameters have default values. {@code metadata} is the {@code
+   * kotlin.Metadata} annotation on {@code ofClass}.
+   */
+  static ImmutableList<Executable> kotlinConstructorsIn(
+      AnnotationMirror metadata, TypeElement ofClass) {
+    ImmutableMap<String, AnnotationValue> annotationValues =
+        AnnotationMirrors.getAnnotationValuesWithDefaults(metadata).entrySet().stream()
+            .collect(toImmutableMap(e -> e.getKey().getSimpleName().toString(), e -> e.getValue()));
+    ImmutableList<Object> cacheKey = cacheKey(annotationValues);
+    ImmutableList<KotlinConstructor> kotlinConstructors = CACHE.getIfPresent(cacheKey);
+    if (kotlinConstructors == null) {
+      kotlinConstructors = readConstructors(annotationValues);
+      CACHE.put(cacheKey, kotlinConstructors);
+    }
+    // We match the KmConstructor instances with the ExecutableElement instances based on the
+    // parameter names. We could possibly just assume that the constructors are in the same order.
+    Map<ImmutableSet<String>, ExecutableElement> map =
+        constructorsIn(ofClass.getEnclosedElements()).stream()
+            .collect(toMap(c -> parameterNames(c), c -> c, (a, b) -> a, LinkedHashMap::new));
+    ImmutableMap<ImmutableSet<String>, ExecutableElement> paramNamesToConstructor =
+        ImmutableMap.copyOf(map);
+    ImmutableList.Builder<Executable> kotlinConstructorsBuilder = ImmutableList.builder();
+    for (KotlinConstructor constructor : kotlinConstructors) {
+      ExecutableElement javaConstructor = paramNamesToConstructor.get(constructor.all);
+      if (javaConstructor != null) {
+        kotlinConstructorsBuilder.add(Executable.of(javaConstructor, constructor.optional));
+      }
+    }
+    return kotlinConstructorsBuilder.build();
+  }
+
+  private static ImmutableList<Object> cacheKey(
+      ImmutableMap<String, AnnotationValue> annotationValues) {
+    return ImmutableList.of(
+        annotationValues.get("k").getValue(),
+        ImmutableList.copyOf(stringArrayValue(annotationValues.get("d1"))),
+        ImmutableList.copyOf(stringArrayValue(annotationValues.get("d2"))),
+        ImmutableList.copyOf(listValue(annotationValues.get("mv"))),
+        annotationValues.get("xs").getValue(),
+        annotationValues.get("pn").getValue(),
+        annotationValues.get("xi").getValue());
+  }
+
+  private static ImmutableList<KotlinConstructor> readConstructors(
+      ImmutableMap<String, AnnotationValue> annotationValues) {
+    KotlinClassHeader header =
+        new KotlinClassHeader(
+            (Integer) annotationValues.get("k").getValue(),
+            intArrayValue(annotationValues.get("mv")),
+            stringArrayValue(annotationValues.get("d1")),
+            stringArrayValue(annotationValues.get("d2")),
+            (String) annotationValues.get("xs").getValue(),
+            (String) annotationValues.get("pn").getValue(),
+            (Integer) annotationValues.get("xi").getValue());
+    KotlinClassMetadata.Class classMetadata =
+        (KotlinClassMetadata.Class) KotlinClassMetadata.read(header);
+    KmClass kmClass = classMetadata.toKmClass();
+    ImmutableList.Builder<KotlinConstructor> kotlinConstructorsBuilder = ImmutableList.builder();
+    for (KmConstructor constructor : kmClass.getConstructors()) {
+      ImmutableSet.Builder<String> allBuilder = ImmutableSet.builder();
+      ImmutableSet.Builder<String> optionalBuilder = ImmutableSet.builder();
+      for (KmValueParameter param : constructor.getValueParameters()) {
+        String name = param.getName();
+        allBuilder.add(name);
+        if (Flag.ValueParameter.DECLARES_DEFAULT_VALUE.invoke(param.getFlags())) {
+          optionalBuilder.add(name);
+        }
+      }
+      kotlinConstructorsBuilder.add(
+          new KotlinConstructor(allBuilder.build(), optionalBuilder.build()));
+    }
+    return kotlinConstructorsBuilder.build();
+  }
+
+  @VisibleForTesting
+  static CacheStats cacheStats() {
+    return CACHE.stats();
+  }
+
+  @VisibleForTesting
+  static void clearCache() {
+    CACHE.invalidateAll();
+  }
+
+  private static List<Object> listValue(AnnotationValue value) {
+    @SuppressWarnings("unchecked")
+    List<AnnotationValue> list = (List<AnnotationValue>) value.getValue();
+    return list.stream().map(AnnotationValue::getValue).collect(toImmutableList());
+  }
+
+  private static int[] intArrayValue(AnnotationValue value) {
+    return listValue(value).stream().mapToInt(v -> (int) v).toArray();
+  }
+
+  private static String[] stringArrayValue(AnnotationValue value) {
+    return listValue(value).stream().toArray(String[]::new);
+  }
+
+  private static ImmutableSet<String> parameterNames(ExecutableElement executableElement) {
+    return executableElement.getParameters().stream()
+        .map(v -> v.getSimpleName().toString())
+        .collect(toImmutableSet());
+  }
+}
@@ -22,11 +22,17 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.WeakHashMap;
 import java.util.stream.Stream;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
@@ -68,6 +74,17 @@ class Nullables {
    */
   static Nullables fromMethods(
       /* @Nullable */ ProcessingEnvironment processingEnv, Collection<ExecutableElement> methods) {
+    return fromMethods(processingEnv, methods, new RoundCache());
+  }
+
+  /**
+   * Like {@link #fromMethods(ProcessingEnvironment, Collection)}, but reusing results that were
+   * already computed during the current round.
+   */
+  static Nullables fromMethods(
+      /* @Nullable */ ProcessingEnvironment processingEnv,
+      Collection<ExecutableElement> methods,
+      RoundCache roundCache) {
     Optional<AnnotationMirror> nullableTypeAnnotation =
         methods.stream()
             .flatMap(
@@ -75,13 +92,52 @@ class Nullables {
                     Stream.concat(
                         Stream.of(method.getReturnType()),
                         method.getParameters().stream().map(Element::asType)))
-            .map(Nullables::nullableIn)
+            .map(roundCache::nullableIn)
             .filter(Optional::isPresent)
             .findFirst()
-            .orElseGet(() -> defaultNullableTypeAnnotation(processingEnv));
+            .orElseGet(() -> roundCache.defaultNullableTypeAnnotation(processingEnv));
     return new Nullables(nullableTypeAnnotation);
   }
 
+  /**
+   * Nullability information computed during one round. Many {@code @AutoValue} (etc) types have
+   * properties of the same types, or inherit the same methods, and the {@code TypeMirror} objects
+   * for those are the same objects each time, so each is only examined once. The default
+   * {@code @Nullable} type annotation is also only looked up once.
+   *
+   * <p>The instance for a round is obtained with {@link #forRound}, so that it is shared by the
+   * AutoValue, AutoBuilder, and AutoOneOf processors, which all see the same {@link
+   * RoundEnvironment}. It must only be used on the compiler thread.
+   */
+  static final class RoundCache {
+    private static final Map<RoundEnvironment, RoundCache> roundCaches =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /** Returns the cache for the given round, creating it if this is the first request. */
+    static RoundCache forRound(RoundEnvironment roundEnv) {
+      return roundCaches.computeIfAbsent(roundEnv, unused -> new RoundCache());
+    }
+
+    // Keyed by identity, since TypeMirror.equals does not compare type annotations.
+    private final Map<TypeMirror, Optional<AnnotationMirror>> nullableIn = new IdentityHashMap<>();
+    private final Map<String, Optional<AnnotationMirror>> defaultNullableTypeAnnotations =
+        new HashMap<>();
+
+    Optional<AnnotationMirror> nullableIn(TypeMirror type) {
+      return nullableIn.computeIfAbsent(type, Nullables::nullableIn);
+    }
+
+    Optional<AnnotationMirror> defaultNullableTypeAnnotation(
+        /* @Nullable */ ProcessingEnvironment processingEnv) {
+      if (processingEnv == null) {
+        return Optional.empty();
+      }
+      return defaultNullableTypeAnnotations.computeIfAbsent(
+          nullableOption(processingEnv),
+          option -> Nullables.defaultNullableTypeAnnotation(processingEnv, option));
+    }
+  }
+
   /**
    * Returns a list that is either empty or contains a single element that is an appropriate
    * {@code @Nullable} type-annotation.
@@ -90,15 +146,14 @@ class Nullables {
     return nullableTypeAnnotation.map(ImmutableList::of).orElse(ImmutableList.of());
   }
 
-  private static Optional<AnnotationMirror> defaultNullableTypeAnnotation(
-      /* @Nullable */ ProcessingEnvironment processingEnv) {
-    if (processingEnv == null) {
-      return Optional.empty();
-    }
+  private static String nullableOption(ProcessingEnvironment processingEnv) {
     // -Afoo without `=` sets "foo" to null in the getOptions() map.
-    String nullableOption =
-        Strings.nullToEmpty(
-            processingEnv.getOptions().getOrDefault(NULLABLE_OPTION, DEFAULT_NULLABLE));
+    return Strings.nullToEmpty(
+        processingEnv.getOptions().getOrDefault(NULLABLE_OPTION, DEFAULT_NULLABLE));
+  }
+
+  private static Optional<AnnotationMirror> defaultNullableTypeAnnotation(
+      ProcessingEnvironment processingEnv, String nullableOption) {
     return (!nullableOption.isEmpty()
             && processingEnv.getSourceVersion().ordinal() >= SourceVersion.RELEASE_8.ordinal())
         ? Optional.ofNullable(processingEnv.getElementUtils().getTypeElement(nullableOption))
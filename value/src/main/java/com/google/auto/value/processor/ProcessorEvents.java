@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events that describe what the AutoValue family of processors is doing, so
+ * that processor cost shows up in JFR recordings of the compiler. The events are:
+ *
+ * <ul>
+ *   <li>{@code com.google.auto.value.ProcessType}, for each {@code @AutoValue}, {@code @AutoOneOf},
+ *       {@code @AutoBuilder} type or {@code @AutoAnnotation} method processed;
+ *   <li>{@code com.google.auto.value.InvokeExtension}, for each call to an {@code
+ *       AutoValueExtension} that can do significant work;
+ *   <li>{@code com.google.auto.value.RenderTemplate}, for each evaluation of a Velocity template;
+ *   <li>{@code com.google.auto.value.WriteSource}, for each source file written through the {@code
+ *       Filer};
+ *   <li>{@code com.google.auto.value.DeferType}, when a type is deferred to a later round because
+ *       it references a type that does not exist yet.
+ * </ul>
+ *
+ * <p>The methods here return quickly without allocating when the corresponding event is not being
+ * recorded, and do nothing at all when the {@code jdk.jfr} API is absent, as it is in JDK 8
+ * releases before 8u262.
+ */
+final class ProcessorEvents {
+  private ProcessorEvents() {}
+
+  /** An operation being timed. Closing it ends the operation and commits its event, if any. */
+  interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_SPAN = () -> {};
+
+  private static final boolean JFR_AVAILABLE = jfrAvailable();
+
+  private static boolean jfrAvailable() {
+    try {
+      Class.forName("jdk.jfr.Event", false, ProcessorEvents.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Starts timing the processing of {@code target}, which is the annotated type or method.
+   * The {@code toString()} of the arguments is only called if the event is being recorded.
+   */
+  static Span processType(Object processor, Object target) {
+    return JFR_AVAILABLE ? Recorder.processType(processor, target) : NO_SPAN;
+  }
+
+  /** Starts timing a call to the {@code operation} method of {@code extension}. */
+  static Span invokeExtension(Object extension, String operation, Object type) {
+    return JFR_AVAILABLE ? Recorder.invokeExtension(extension, operation, type) : NO_SPAN;
+  }
+
+  /** Starts timing the evaluation of the template for {@code vars}. */
+  static Span renderTemplate(TemplateVars vars) {
+    return JFR_AVAILABLE ? Recorder.renderTemplate(vars) : NO_SPAN;
+  }
+
+  /** Starts timing the writing of the source file for {@code className}. */
+  static Span writeSource(String className, int length) {
+    return JFR_AVAILABLE ? Recorder.writeSource(className, length) : NO_SPAN;
+  }
+
+  /** Records that {@code type} was deferred because {@code missingType} was undefined. */
+  static void deferType(Object processor, Object type, String missingType) {
+    if (JFR_AVAILABLE) {
+      Recorder.deferType(processor, type, missingType);
+    }
+  }
+
+  /**
+   * Creates and commits the events. This class is only loaded if {@link #JFR_AVAILABLE}, so that
+   * the event classes, which extend {@link Event}, are never loaded when that class does not exist.
+   */
+  private static final class Recorder {
+    static Span processType(Object processor, Object target) {
+      ProcessTypeEvent event = new ProcessTypeEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.processor = className(processor);
+      event.target = String.valueOf(target);
+      event.begin();
+      return event::commit;
+    }
+
+    static Span invokeExtension(Object extension, String operation, Object type) {
+      InvokeExtensionEvent event = new InvokeExtensionEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.extension = className(extension);
+      event.operation = operation;
+      event.type = String.valueOf(type);
+      event.begin();
+      return event::commit;
+    }
+
+    static Span renderTemplate(TemplateVars vars) {
+      RenderTemplateEvent event = new RenderTemplateEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.templateVars = vars.getClass().getSimpleName();
+      event.begin();
+      return event::commit;
+    }
+
+    static Span writeSource(String className, int length) {
+      WriteSourceEvent event = new WriteSourceEvent();
+      if (!event.isEnabled()) {
+        return NO_SPAN;
+      }
+      event.className = className;
+      event.length = length;
+      event.begin();
+      return event::commit;
+    }
+
+    static void deferType(Object processor, Object type, String missingType) {
+      DeferTypeEvent event = new DeferTypeEvent();
+      if (event.isEnabled()) {
+        event.processor = className(processor);
+        event.type = String.valueOf(type);
+        event.missingType = missingType;
+        event.commit();
+      }
+    }
+
+    private static String className(Object object) {
+      return object.getClass().getName();
+    }
+  }
+
+  @Name("com.google.auto.value.ProcessType")
+  @Label("Process Type")
+  @Category({"Annotation Processing", "AutoValue"})
+  @Description("Processing of one annotated type or method, from analysis to writing its sources")
+  static final class ProcessTypeEvent extends Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("Target")
+    String target;
+  }
+
+  @Name("com.google.auto.value.InvokeExtension")
+  @Label("Invoke Extension")
+  @Category({"Annotation Processing", "AutoValue"})
+  @Description("A call to an AutoValueExtension for one @AutoValue type")
+  static final class InvokeExtensionEvent extends Event {
+    @Label("Extension")
+    String extension;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Type")
+    String type;
+  }
+
+  @Name("com.google.auto.value.RenderTemplate")
+  @Label("Render Template")
+  @Category({"Annotation Processing", "AutoValue"})
+  @Description("Evaluation of a Velocity template to produce generated source code")
+  static final class RenderTemplateEvent extends Event {
+    @Label("Template Variables")
+    String templateVars;
+  }
+
+  @Name("com.google.auto.value.WriteSource")
+  @Label("Write Source")
+  @Category({"Annotation Processing", "AutoValue"})
+  @Description("Creation of a generated source file through the Filer")
+  static final class WriteSourceEvent extends Event {
+    @Label("Class Name")
+    String className;
+
+    @Label("Length")
+    @Description("The number of characters written")
+    int length;
+  }
+
+  @Name("com.google.auto.value.DeferType")
+  @Label("Defer Type")
+  @Category({"Annotation Processing", "AutoValue"})
+  @Description("A type whose processing was deferred to a later round because of a missing type")
+  static final class DeferTypeEvent extends Event {
+    @Label("Processor")
+    String processor;
+
+    @Label("Type")
+    String type;
+
+    @Label("Missing Type")
+    String missingType;
+  }
+}
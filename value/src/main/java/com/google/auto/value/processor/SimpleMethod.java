@@ -69,7 +69,10 @@ public final class SimpleMethod {
     }
   }
 
-  private static String throwsString(ExecutableElement method) {
+  /**
+   * Returns the {@code throws} clause of the given method, or the empty string if it has none.
+   */
+  static String throwsString(ExecutableElement method) {
     if (method.getThrownTypes().isEmpty()) {
       return "";
     }
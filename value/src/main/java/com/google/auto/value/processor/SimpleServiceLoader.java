@@ -15,9 +15,11 @@
  */
 package com.google.auto.value.processor;
 
+import static com.google.auto.common.MoreStreams.toImmutableList;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.base.Ascii;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
@@ -25,12 +27,20 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceConfigurationError;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 /**
@@ -39,12 +49,44 @@ import java.util.regex.Pattern;
  * implementations in one list. It makes sure that {@link URLConnection#setUseCaches} is called to
  * turn off jar caching, since that tends to lead to problems in versions before JDK 9.
  *
+ * <p>The class names read from each {@code META-INF/services} resource in a jar or directory are
+ * remembered for as long as this class is loaded, along with the size and modification time of the
+ * jar or resource file. In a persistent compiler worker or daemon, where the same processor path is
+ * typically used for many compilations, later loads can then skip reading the resource unless the
+ * file has changed. Classes are still loaded and instantiated through the given {@link
+ * ClassLoader} every time.
+ *
  * @see <a href="https://github.com/google/auto/issues/718">Issue #718</a>
  * @see <a href="https://bugs.openjdk.java.net/browse/JDK-8156014">JDK-8156014</a>
  */
 public final class SimpleServiceLoader {
   private SimpleServiceLoader() {}
 
+  /**
+   * The class names listed in {@code META-INF/services} resources, keyed by the resource URL. There
+   * is only ever one entry per URL, so the size of this map is bounded by the number of distinct
+   * service resources seen, even if jars are rebuilt repeatedly.
+   */
+  private static final ConcurrentMap<String, CachedClassNames> classNamesCache =
+      new ConcurrentHashMap<>();
+
+  /** The class names read from a resource, and the attributes of the file they were read from. */
+  private static final class CachedClassNames {
+    final long size;
+    final FileTime lastModified;
+    final ImmutableList<String> classNames;
+
+    CachedClassNames(BasicFileAttributes attributes, ImmutableList<String> classNames) {
+      this.size = attributes.size();
+      this.lastModified = attributes.lastModifiedTime();
+      this.classNames = classNames;
+    }
+
+    boolean isValidFor(BasicFileAttributes attributes) {
+      return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+    }
+  }
+
   public static <T> ImmutableList<T> load(Class<? extends T> service, ClassLoader loader) {
     return load(service, loader, Optional.empty());
   }
@@ -86,19 +128,7 @@ public final class SimpleServiceLoader {
       Optional<Pattern> allowedMissingClasses)
       throws IOException {
     ImmutableSet.Builder<Class<? extends T>> providerClasses = ImmutableSet.builder();
-    URLConnection urlConnection = resourceUrl.openConnection();
-    urlConnection.setUseCaches(false);
-    List<String> lines;
-    try (InputStream in = urlConnection.getInputStream();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8))) {
-      lines = reader.lines().collect(toList());
-    }
-    List<String> classNames =
-        lines.stream()
-            .map(SimpleServiceLoader::parseClassName)
-            .flatMap(Streams::stream)
-            .collect(toList());
-    for (String className : classNames) {
+    for (String className : classNamesFromUrl(resourceUrl)) {
       Class<?> c;
       try {
         c = Class.forName(className, false, loader);
@@ -118,6 +148,66 @@ public final class SimpleServiceLoader {
     return providerClasses.build();
   }
 
+  private static ImmutableList<String> classNamesFromUrl(URL resourceUrl) throws IOException {
+    String key = resourceUrl.toString();
+    Optional<BasicFileAttributes> attributes = containingFileAttributes(resourceUrl);
+    if (attributes.isPresent()) {
+      CachedClassNames cached = classNamesCache.get(key);
+      if (cached != null && cached.isValidFor(attributes.get())) {
+        return cached.classNames;
+      }
+    }
+    ImmutableList<String> classNames = readClassNames(resourceUrl);
+    // We read the attributes before the contents, so if the file changes in between, the next
+    // lookup will see different attributes and read it again.
+    attributes.ifPresent(a -> classNamesCache.put(key, new CachedClassNames(a, classNames)));
+    return classNames;
+  }
+
+  private static ImmutableList<String> readClassNames(URL resourceUrl) throws IOException {
+    URLConnection urlConnection = resourceUrl.openConnection();
+    urlConnection.setUseCaches(false);
+    List<String> lines;
+    try (InputStream in = urlConnection.getInputStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+      lines = reader.lines().collect(toList());
+    }
+    return lines.stream()
+        .map(SimpleServiceLoader::parseClassName)
+        .flatMap(Streams::stream)
+        .collect(toImmutableList());
+  }
+
+  /**
+   * Returns the attributes of the file that contains the resource at {@code resourceUrl}, which is
+   * either the resource file itself or the jar that it is an entry in. Returns empty if the
+   * resource is not in a local file, or the attributes cannot be read, in which case the resource
+   * contents are not cached.
+   */
+  static Optional<BasicFileAttributes> containingFileAttributes(URL resourceUrl) {
+    String url = resourceUrl.toString();
+    String fileUrl;
+    if (Ascii.equalsIgnoreCase(resourceUrl.getProtocol(), "jar")) {
+      // Jar URLs look like this: jar:file:/path/to/file.jar!/entry/within/jar
+      int bang = url.lastIndexOf("!/");
+      if (bang < 0) {
+        return Optional.empty();
+      }
+      fileUrl = url.substring("jar:".length(), bang);
+    } else {
+      fileUrl = url;
+    }
+    try {
+      URI fileUri = new URI(fileUrl);
+      if (!Ascii.equalsIgnoreCase(String.valueOf(fileUri.getScheme()), "file")) {
+        return Optional.empty();
+      }
+      return Optional.of(Files.readAttributes(Paths.get(fileUri), BasicFileAttributes.class));
+    } catch (URISyntaxException | IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
   private static Optional<String> parseClassName(String line) {
     int hash = line.indexOf('#');
     if (hash >= 0) {
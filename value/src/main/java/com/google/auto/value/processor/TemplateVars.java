@@ -18,6 +18,8 @@ package com.google.auto.value.processor;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Ascii;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
@@ -95,12 +97,15 @@ abstract class TemplateVars {
    * Returns the result of substituting the variables defined by the fields of this class (a
    * concrete subclass of TemplateVars) into the template returned by {@link #parsedTemplate()}.
    */
+  @SuppressWarnings("try")
   String toText() {
     ImmutableMap<String, Object> vars = toVars();
-    return parsedTemplate().evaluate(vars);
+    try (ProcessorEvents.Span span = ProcessorEvents.renderTemplate(this)) {
+      return parsedTemplate().evaluate(vars);
+    }
   }
 
-  private ImmutableMap<String, Object> toVars() {
+  ImmutableMap<String, Object> toVars() {
     Map<String, Object> vars = new TreeMap<>();
     for (Field field : fields) {
       Object value = fieldValue(field, this);
@@ -120,6 +125,15 @@ abstract class TemplateVars {
     return getClass().getSimpleName() + toVars();
   }
 
+  /**
+   * Returns a supplier of the parsed template in the given resource. The template is parsed the
+   * first time the supplier is called, which is when the first source is rendered from it. Types
+   * whose source comes from {@link GeneratedSourceCache} never need the template at all.
+   */
+  static Supplier<Template> lazyTemplateForResource(String resourceName) {
+    return Suppliers.memoize(() -> parsedTemplateForResource(resourceName));
+  }
+
   static Template parsedTemplateForResource(String resourceName) {
     try {
       return Template.parseFrom(resourceName, TemplateVars::readerFromUrl);
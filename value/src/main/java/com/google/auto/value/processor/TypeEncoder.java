@@ -164,9 +164,33 @@ final class TypeEncoder {
         text, processingEnv.getElementUtils(), processingEnv.getTypeUtils(), packageName, baseType);
   }
 
+  /**
+   * Like {@link #decode(String, ProcessingEnvironment, String, TypeMirror)}, but reusing
+   * information about {@code baseType} and {@code packageName} that was already computed for other
+   * types in the same round.
+   */
+  static String decode(
+      String text,
+      ProcessingEnvironment processingEnv,
+      String packageName,
+      TypeMirror baseType,
+      TypeSimplifier.RoundCache roundCache) {
+    TypeRewriter typeRewriter =
+        new TypeRewriter(
+            text,
+            processingEnv.getElementUtils(),
+            processingEnv.getTypeUtils(),
+            packageName,
+            baseType,
+            roundCache);
+    return typeRewriter.rewrite();
+  }
+
   static String decode(
       String text, Elements elementUtils, Types typeUtils, String pkg, TypeMirror baseType) {
-    TypeRewriter typeRewriter = new TypeRewriter(text, elementUtils, typeUtils, pkg, baseType);
+    TypeRewriter typeRewriter =
+        new TypeRewriter(
+            text, elementUtils, typeUtils, pkg, baseType, new TypeSimplifier.RoundCache());
     return typeRewriter.rewrite();
   }
 
@@ -435,9 +459,15 @@ final class TypeEncoder {
     private final Types typeUtils;
     private final String packageName;
     private final TypeMirror baseType;
+    private final TypeSimplifier.RoundCache roundCache;
 
     TypeRewriter(
-        String text, Elements elementUtils, Types typeUtils, String pkg, TypeMirror baseType) {
+        String text,
+        Elements elementUtils,
+        Types typeUtils,
+        String pkg,
+        TypeMirror baseType,
+        TypeSimplifier.RoundCache roundCache) {
       this.text = text;
       this.textLength = text.length();
       this.scanner = new JavaScanner(text);
@@ -445,6 +475,7 @@ final class TypeEncoder {
       this.typeUtils = typeUtils;
       this.packageName = pkg;
       this.baseType = baseType;
+      this.roundCache = roundCache;
     }
 
     String rewrite() {
@@ -452,7 +483,8 @@ final class TypeEncoder {
       Set<TypeMirror> referencedClasses = findReferencedClasses();
       // Make a type simplifier based on these referenced types.
       TypeSimplifier typeSimplifier =
-          new TypeSimplifier(elementUtils, typeUtils, packageName, referencedClasses, baseType);
+          new TypeSimplifier(
+              elementUtils, typeUtils, packageName, referencedClasses, baseType, roundCache);
 
       StringBuilder output = new StringBuilder();
       int copyStart;
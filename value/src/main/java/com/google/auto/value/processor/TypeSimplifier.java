@@ -22,15 +22,16 @@ import static javax.lang.model.element.Modifier.PRIVATE;
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.value.processor.MissingTypes.MissingTypeException;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.NestingKind;
-import javax.lang.model.element.QualifiedNameable;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.type.ArrayType;
@@ -90,13 +91,84 @@ final class TypeSimplifier {
       String packageName,
       Set<TypeMirror> types,
       TypeMirror base) {
+    this(elementUtils, typeUtils, packageName, types, base, new RoundCache());
+  }
+
+  /**
+   * Makes a new simplifier for the given package and set of types, reusing information about
+   * supertypes and packages from {@code roundCache}.
+   */
+  TypeSimplifier(
+      Elements elementUtils,
+      Types typeUtils,
+      String packageName,
+      Set<TypeMirror> types,
+      TypeMirror base,
+      RoundCache roundCache) {
     Set<TypeMirror> typesPlusBase = new TypeMirrorSet(types);
     if (base != null) {
       typesPlusBase.add(base);
     }
     Set<TypeMirror> topLevelTypes = topLevelTypes(typeUtils, typesPlusBase);
-    Set<TypeMirror> defined = nonPrivateDeclaredTypes(typeUtils, base);
-    this.imports = findImports(elementUtils, typeUtils, packageName, topLevelTypes, defined);
+    Set<TypeElement> defined = roundCache.nonPrivateDeclaredTypes(typeUtils, base);
+    this.imports =
+        findImports(elementUtils, typeUtils, packageName, topLevelTypes, defined, roundCache);
+  }
+
+  /**
+   * Information that {@link TypeSimplifier} computes from the compiler model and that is the same
+   * for all the types processed in a round. Many {@code @AutoValue} classes in a module can extend
+   * the same base classes or implement the same interfaces, and those supertypes can have many
+   * nested types. Without this cache, each of them would be scanned again for every subclass.
+   *
+   * <p>An instance must only be used within a single round, since later rounds can see new types,
+   * and only from the compiler thread.
+   */
+  static final class RoundCache {
+    private final Map<TypeElement, ImmutableSet<TypeElement>> declaredTypes = new HashMap<>();
+    private final Map<String, Boolean> typeExists = new HashMap<>();
+
+    /**
+     * Returns all the types that are declared with non-private visibility by the given type, any
+     * class in its superclass chain, or any interface it implements, including the type itself.
+     * Only the names of these types matter, so they are represented by their elements.
+     */
+    Set<TypeElement> nonPrivateDeclaredTypes(Types typeUtils, TypeMirror type) {
+      if (type == null) {
+        return ImmutableSet.of();
+      }
+      if (type.getKind() == TypeKind.ERROR) {
+        throw new MissingTypeException(MoreTypes.asError(type));
+      }
+      TypeElement typeElement = MoreElements.asType(typeUtils.asElement(type));
+      ImmutableSet<TypeElement> declared = declaredTypes.get(typeElement);
+      if (declared == null) {
+        ImmutableSet.Builder<TypeElement> builder = ImmutableSet.builder();
+        builder.add(typeElement);
+        for (TypeElement nestedType : ElementFilter.typesIn(typeElement.getEnclosedElements())) {
+          if (!nestedType.getModifiers().contains(PRIVATE)) {
+            builder.add(nestedType);
+          }
+        }
+        for (TypeMirror supertype : typeUtils.directSupertypes(type)) {
+          builder.addAll(nonPrivateDeclaredTypes(typeUtils, supertype));
+        }
+        declared = builder.build();
+        // Not computeIfAbsent, since the recursive calls above modify the map.
+        declaredTypes.put(typeElement, declared);
+      }
+      return declared;
+    }
+
+    /** Returns true if a type with the given canonical name exists. */
+    private boolean typeExists(Elements elementUtils, String name) {
+      Boolean exists = typeExists.get(name);
+      if (exists == null) {
+        exists = elementUtils.getTypeElement(name) != null;
+        typeExists.put(name, exists);
+      }
+      return exists;
+    }
   }
 
   /**
@@ -204,12 +276,18 @@ final class TypeSimplifier {
       Types typeUtils,
       String codePackageName,
       Set<TypeMirror> referenced,
-      Set<TypeMirror> defined) {
+      Set<TypeElement> defined,
+      RoundCache roundCache) {
     Map<String, Spelling> imports = new HashMap<>();
-    Set<TypeMirror> typesInScope = new TypeMirrorSet();
-    typesInScope.addAll(referenced);
+    Set<TypeElement> typesInScope = new LinkedHashSet<>();
+    for (TypeMirror type : referenced) {
+      if (type.getKind() == TypeKind.ERROR) {
+        throw new MissingTypeException(MoreTypes.asError(type));
+      }
+      typesInScope.add(MoreElements.asType(typeUtils.asElement(type)));
+    }
     typesInScope.addAll(defined);
-    Set<String> ambiguous = ambiguousNames(typeUtils, typesInScope);
+    Set<String> ambiguous = ambiguousNames(typesInScope);
     for (TypeMirror type : referenced) {
       TypeElement typeElement = (TypeElement) typeUtils.asElement(type);
       String fullName = typeElement.getQualifiedName().toString();
@@ -222,7 +300,7 @@ final class TypeSimplifier {
         spelling = fullName;
       } else if (pkg.equals("java.lang")) {
         importIt = false;
-        spelling = javaLangSpelling(elementUtils, codePackageName, typeElement);
+        spelling = javaLangSpelling(elementUtils, codePackageName, typeElement, roundCache);
       } else if (pkg.equals(codePackageName)) {
         importIt = false;
         spelling = fullName.substring(pkg.isEmpty() ? 0 : pkg.length() + 1);
@@ -245,13 +323,16 @@ final class TypeSimplifier {
    * is not enough. We have to look to see if the class exists.
    */
   private static String javaLangSpelling(
-      Elements elementUtils, String codePackageName, TypeElement typeElement) {
+      Elements elementUtils,
+      String codePackageName,
+      TypeElement typeElement,
+      RoundCache roundCache) {
     // If this is java.lang.Thread.State or the like, we have to look for a clash with Thread.
     TypeElement topLevelType = topLevelType(typeElement);
-    TypeElement clash =
-        elementUtils.getTypeElement(codePackageName + "." + topLevelType.getSimpleName());
+    boolean clash =
+        roundCache.typeExists(elementUtils, codePackageName + "." + topLevelType.getSimpleName());
     String fullName = typeElement.getQualifiedName().toString();
-    return (clash == null) ? fullName.substring("java.lang.".length()) : fullName;
+    return clash ? fullName : fullName.substring("java.lang.".length());
   }
 
   /**
@@ -269,44 +350,17 @@ final class TypeSimplifier {
         .collect(toCollection(TypeMirrorSet::new));
   }
 
-  /**
-   * Finds all types that are declared with non private visibility by the given {@code TypeMirror},
-   * any class in its superclass chain, or any interface it implements.
-   */
-  private static Set<TypeMirror> nonPrivateDeclaredTypes(Types typeUtils, TypeMirror type) {
-    if (type == null) {
-      return new TypeMirrorSet();
-    } else {
-      Set<TypeMirror> declared = new TypeMirrorSet();
-      declared.add(type);
-      List<TypeElement> nestedTypes =
-          ElementFilter.typesIn(typeUtils.asElement(type).getEnclosedElements());
-      for (TypeElement nestedType : nestedTypes) {
-        if (!nestedType.getModifiers().contains(PRIVATE)) {
-          declared.add(nestedType.asType());
-        }
-      }
-      for (TypeMirror supertype : typeUtils.directSupertypes(type)) {
-        declared.addAll(nonPrivateDeclaredTypes(typeUtils, supertype));
-      }
-      return declared;
-    }
-  }
-
-  private static Set<String> ambiguousNames(Types typeUtils, Set<TypeMirror> types) {
+  private static Set<String> ambiguousNames(Set<TypeElement> types) {
     Set<String> ambiguous = new HashSet<>();
     Map<String, Name> simpleNamesToQualifiedNames = new HashMap<>();
-    for (TypeMirror type : types) {
-      if (type.getKind() == TypeKind.ERROR) {
-        throw new MissingTypeException(MoreTypes.asError(type));
-      }
-      String simpleName = typeUtils.asElement(type).getSimpleName().toString();
+    for (TypeElement type : types) {
+      String simpleName = type.getSimpleName().toString();
       /*
        * Compare by qualified names, because in Eclipse JDT, if Java 8 type annotations are used,
-       * the same (unannotated) type may appear multiple times in the Set<TypeMirror>.
+       * the same (unannotated) type may appear multiple times in the set.
        * TODO(emcmanus): investigate further, because this might cause problems elsewhere.
        */
-      Name qualifiedName = ((QualifiedNameable) typeUtils.asElement(type)).getQualifiedName();
+      Name qualifiedName = type.getQualifiedName();
       Name previous = simpleNamesToQualifiedNames.put(simpleName, qualifiedName);
       if (previous != null && !previous.equals(qualifiedName)) {
         ambiguous.add(simpleName);
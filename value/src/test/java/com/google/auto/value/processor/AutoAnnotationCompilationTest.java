@@ -83,12 +83,15 @@ public class AutoAnnotationCompilationTest {
             "  private static final long serialVersionUID = -7473814294717163169L;",
             "  private final MyEnum value;",
             "  private static final int defaultedValue = 23;",
+            "  private transient int hashCode;",
+            "  private transient String toString;",
             "",
             "  AutoAnnotation_AnnotationFactory_newMyAnnotation(MyEnum value) {",
             "    if (value == null) {",
             "      throw new NullPointerException(\"Null value\");",
             "    }",
             "    this.value = value;",
+            "    hashCode();",
             "  }",
             "",
             "  @Override public Class<? extends MyAnnotation> annotationType() {",
@@ -104,9 +107,15 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public String toString() {",
+            "    String result$ = toString;",
+            "    if (result$ != null) {",
+            "      return result$;",
+            "    }",
             "    StringBuilder sb = new StringBuilder(\"@com.example.annotations.MyAnnotation(\");",
             "    sb.append(value);",
-            "    return sb.append(')').toString();",
+            "    result$ = sb.append(')').toString();",
+            "    toString = result$;",
+            "    return result$;",
             "  }",
             "",
             "  @Override public boolean equals(Object o) {",
@@ -122,10 +131,16 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public int hashCode() {",
-            "    return ",
+            "    int h$ = hashCode;",
+            "    if (h$ != 0) {",
+            "      return h$;",
+            "    }",
+            "    h$ = ",
             "        " + invariableHash,
             "        + (" + 127 * "value".hashCode() + " ^ value.hashCode())",
             "    ;",
+            "    hashCode = h$;",
+            "    return h$;",
             "  }",
             "}");
     Compilation compilation =
@@ -167,6 +182,7 @@ public class AutoAnnotationCompilationTest {
             "final class AutoAnnotation_AnnotationFactory_newMyAnnotation",
             "    implements MyAnnotation, Serializable {",
             "  private static final long serialVersionUID = 0L;",
+            "  private transient String toString;",
             "  AutoAnnotation_AnnotationFactory_newMyAnnotation() {",
             "  }",
             "",
@@ -175,8 +191,14 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public String toString() {",
+            "    String result$ = toString;",
+            "    if (result$ != null) {",
+            "      return result$;",
+            "    }",
             "    StringBuilder sb = new StringBuilder(\"@MyAnnotation(\");",
-            "    return sb.append(')').toString();",
+            "    result$ = sb.append(')').toString();",
+            "    toString = result$;",
+            "    return result$;",
             "  }",
             "",
             "  @Override public boolean equals(Object o) {",
@@ -252,12 +274,15 @@ public class AutoAnnotationCompilationTest {
                 + " Serializable {",
             "  private static final long serialVersionUID = -8116050813861599066L;",
             "  private final int[] value;",
+            "  private transient int hashCode;",
+            "  private transient String toString;",
             "",
             "  AutoAnnotation_AnnotationFactory_newMyAnnotation(int[] value) {",
             "    if (value == null) {",
             "      throw new NullPointerException(\"Null value\");",
             "    }",
             "    this.value = Arrays.copyOf(value, value.length);",
+            "    hashCode();",
             "  }",
             "",
             "  @Override public Class<? extends MyAnnotation> annotationType() {",
@@ -269,9 +294,15 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public String toString() {",
+            "    String result$ = toString;",
+            "    if (result$ != null) {",
+            "      return result$;",
+            "    }",
             "    StringBuilder sb = new StringBuilder(\"@com.example.annotations.MyAnnotation(\");",
             "    sb.append(Arrays.toString(value));",
-            "    return sb.append(')').toString();",
+            "    result$ = sb.append(')').toString();",
+            "    toString = result$;",
+            "    return result$;",
             "  }",
             "",
             "  @Override public boolean equals(Object o) {",
@@ -289,8 +320,14 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public int hashCode() {",
-            "    return ",
+            "    int h$ = hashCode;",
+            "    if (h$ != 0) {",
+            "      return h$;",
+            "    }",
+            "    h$ = ",
             "        + (" + 127 * "value".hashCode() + " ^ Arrays.hashCode(value));",
+            "    hashCode = h$;",
+            "    return h$;",
             "  }",
             "}");
     Compilation compilation =
@@ -365,6 +402,8 @@ public class AutoAnnotationCompilationTest {
             "  private static final long serialVersionUID = -2102364343628921304L;",
             "  private final int[] value;",
             "  private final MyEnum[] enums;",
+            "  private transient int hashCode;",
+            "  private transient String toString;",
             "",
             "  AutoAnnotation_AnnotationFactory_newMyAnnotation(",
             "      List<Integer> value,",
@@ -377,6 +416,7 @@ public class AutoAnnotationCompilationTest {
             "      throw new NullPointerException(\"Null enums\");",
             "    }",
             "    this.enums = enums.toArray(new MyEnum[0]);",
+            "    hashCode();",
             "  }",
             "",
             "  @Override public Class<? extends MyAnnotation> annotationType() {",
@@ -392,13 +432,19 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public String toString() {",
+            "    String result$ = toString;",
+            "    if (result$ != null) {",
+            "      return result$;",
+            "    }",
             "    StringBuilder sb = new StringBuilder(\"@com.example.annotations.MyAnnotation(\");",
             "    sb.append(\"value=\");",
             "    sb.append(Arrays.toString(value));",
             "    sb.append(\", \");",
             "    sb.append(\"enums=\");",
             "    sb.append(Arrays.toString(enums));",
-            "    return sb.append(')').toString();",
+            "    result$ = sb.append(')').toString();",
+            "    toString = result$;",
+            "    return result$;",
             "  }",
             "",
             "  @Override public boolean equals(Object o) {",
@@ -420,9 +466,15 @@ public class AutoAnnotationCompilationTest {
             "  }",
             "",
             "  @Override public int hashCode() {",
-            "    return ",
+            "    int h$ = hashCode;",
+            "    if (h$ != 0) {",
+            "      return h$;",
+            "    }",
+            "    h$ = ",
             "        + (" + 127 * "value".hashCode() + " ^ Arrays.hashCode(value))",
             "        + (" + 127 * "enums".hashCode() + " ^ Arrays.hashCode(enums));",
+            "    hashCode = h$;",
+            "    return h$;",
             "  }",
             "",
             "  private static int[] intArrayFromCollection(Collection<Integer> c) {",
@@ -446,6 +498,134 @@ public class AutoAnnotationCompilationTest {
         .hasSourceEquivalentTo(expectedOutput);
   }
 
+  @Test
+  public void testCacheSize() {
+    JavaFileObject myAnnotationJavaFile =
+        JavaFileObjects.forSourceLines(
+            "com.example.annotations.MyAnnotation",
+            "package com.example.annotations;",
+            "",
+            "public @interface MyAnnotation {",
+            "  Class<?> value();",
+            "}");
+    JavaFileObject annotationFactoryJavaFile =
+        JavaFileObjects.forSourceLines(
+            "com.example.factories.AnnotationFactory",
+            "package com.example.factories;",
+            "",
+            "import com.google.auto.value.AutoAnnotation;",
+            "import com.example.annotations.MyAnnotation;",
+            "",
+            "public class AnnotationFactory {",
+            "  @AutoAnnotation(cacheSize = 100)",
+            "  public static MyAnnotation newMyAnnotation(Class<?> value) {",
+            "    return AutoAnnotation_AnnotationFactory_newMyAnnotation.intern(value);",
+            "  }",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "com.example.factories.AutoAnnotation_AnnotationFactory_newMyAnnotation",
+            "package com.example.factories;",
+            "",
+            "import com.example.annotations.MyAnnotation;",
+            "import java.io.Serializable;",
+            "import java.util.concurrent.ConcurrentHashMap;",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"" + AutoAnnotationProcessor.class.getName() + "\")",
+            "final class AutoAnnotation_AnnotationFactory_newMyAnnotation",
+            "     implements MyAnnotation, Serializable {",
+            "  private static final long serialVersionUID = 4631529382932450860L;",
+            "  private final Class<?> value;",
+            "  private transient int hashCode;",
+            "  private transient String toString;",
+            "",
+            "  AutoAnnotation_AnnotationFactory_newMyAnnotation(Class<?> value) {",
+            "    if (value == null) {",
+            "      throw new NullPointerException(\"Null value\");",
+            "    }",
+            "    this.value = value;",
+            "    hashCode();",
+            "  }",
+            "",
+            "  private static final ConcurrentHashMap<",
+            "          Object, AutoAnnotation_AnnotationFactory_newMyAnnotation>",
+            "      CACHE =",
+            "          new ConcurrentHashMap<",
+            "              Object, AutoAnnotation_AnnotationFactory_newMyAnnotation>();",
+            "",
+            "  static AutoAnnotation_AnnotationFactory_newMyAnnotation intern(Class<?> value) {",
+            "    if (value == null) {",
+            "      throw new NullPointerException(\"Null value\");",
+            "    }",
+            "    AutoAnnotation_AnnotationFactory_newMyAnnotation cached$ = CACHE.get(value);",
+            "    if (cached$ != null) {",
+            "      return cached$;",
+            "    }",
+            "    AutoAnnotation_AnnotationFactory_newMyAnnotation instance$ =",
+            "        new AutoAnnotation_AnnotationFactory_newMyAnnotation(value);",
+            "    if (CACHE.size() >= 100) {",
+            "      return instance$;",
+            "    }",
+            "    cached$ = CACHE.putIfAbsent(value, instance$);",
+            "    return (cached$ == null) ? instance$ : cached$;",
+            "  }",
+            "",
+            "  @Override public Class<? extends MyAnnotation> annotationType() {",
+            "    return MyAnnotation.class;",
+            "  }",
+            "",
+            "  @Override public Class<?> value() {",
+            "    return value;",
+            "  }",
+            "",
+            "  @Override public String toString() {",
+            "    String result$ = toString;",
+            "    if (result$ != null) {",
+            "      return result$;",
+            "    }",
+            "    StringBuilder sb = new StringBuilder(\"@com.example.annotations.MyAnnotation(\");",
+            "    sb.append(value);",
+            "    result$ = sb.append(')').toString();",
+            "    toString = result$;",
+            "    return result$;",
+            "  }",
+            "",
+            "  @Override public boolean equals(Object o) {",
+            "    if (o == this) {",
+            "      return true;",
+            "    }",
+            "    if (o instanceof MyAnnotation) {",
+            "      MyAnnotation that = (MyAnnotation) o;",
+            "      return value.equals(that.value());",
+            "    }",
+            "    return false;",
+            "  }",
+            "",
+            "  @Override public int hashCode() {",
+            "    int h$ = hashCode;",
+            "    if (h$ != 0) {",
+            "      return h$;",
+            "    }",
+            "    h$ = ",
+            "        + (" + 127 * "value".hashCode() + " ^ value.hashCode())",
+            "    ;",
+            "    hashCode = h$;",
+            "    return h$;",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoAnnotationProcessor())
+            .withOptions("-A" + Nullables.NULLABLE_OPTION + "=")
+            .compile(annotationFactoryJavaFile, myAnnotationJavaFile);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile(
+            "com.example.factories.AutoAnnotation_AnnotationFactory_newMyAnnotation")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
   @Test
   public void testMissingClass() {
     // Test that referring to an undefined annotation does not trigger @AutoAnnotation processing.
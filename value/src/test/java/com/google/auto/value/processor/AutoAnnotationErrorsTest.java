@@ -359,4 +359,28 @@ public class AutoAnnotationErrorsTest {
         javac().withProcessors(new AutoAnnotationProcessor()).compile(annotationSource, testSource);
     assertThat(compilation).hadErrorContaining("variable value$ is already defined in constructor");
   }
+
+  @Test
+  public void testNegativeCacheSize() {
+    JavaFileObject testSource =
+        JavaFileObjects.forSourceLines(
+            "com.foo.Test",
+            "package com.foo;",
+            "",
+            "import com.example.TestAnnotation;",
+            "import com.google.auto.value.AutoAnnotation;",
+            "",
+            "class Test {",
+            "  @AutoAnnotation(cacheSize = -1)",
+            "  static TestAnnotation newTestAnnotation(int value) {",
+            "    return AutoAnnotation_Test_newTestAnnotation.intern(value);",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(new AutoAnnotationProcessor()).compile(TEST_ANNOTATION, testSource);
+    assertThat(compilation)
+        .hadErrorContaining("@AutoAnnotation cacheSize cannot be negative")
+        .inFile(testSource)
+        .onLineContaining("cacheSize = -1");
+  }
 }
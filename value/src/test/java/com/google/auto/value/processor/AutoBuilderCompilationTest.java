@@ -22,6 +22,8 @@ import static com.google.testing.compile.Compiler.javac;
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.joining;
 
+import com.google.common.cache.CacheStats;
+import com.google.common.truth.Truth;
 import com.google.testing.compile.Compilation;
 import com.google.testing.compile.JavaFileObjects;
 import javax.tools.JavaFileObject;
@@ -1001,6 +1003,43 @@ public final class AutoBuilderCompilationTest {
         .onLineContaining("interface Builder");
   }
 
+  @Test
+  public void kotlinMetadataCached() {
+    // kotlin.ranges.IntRange comes from the Kotlin runtime on the test classpath. It has a
+    // constructor IntRange(start: Int, endInclusive: Int).
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoBuilder;",
+            "import kotlin.ranges.IntRange;",
+            "",
+            "class Baz {",
+            "  @AutoBuilder(ofClass = IntRange.class)",
+            "  interface RangeBuilder {",
+            "    RangeBuilder start(int x);",
+            "    RangeBuilder endInclusive(int x);",
+            "    IntRange build();",
+            "  }",
+            "",
+            "  @AutoBuilder(ofClass = IntRange.class)",
+            "  interface OtherRangeBuilder {",
+            "    OtherRangeBuilder start(int x);",
+            "    OtherRangeBuilder endInclusive(int x);",
+            "    IntRange build();",
+            "  }",
+            "}");
+    KotlinMetadata.clearCache();
+    CacheStats before = KotlinMetadata.cacheStats();
+    Compilation compilation =
+        javac().withProcessors(new AutoBuilderProcessor()).compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    CacheStats stats = KotlinMetadata.cacheStats().minus(before);
+    Truth.assertThat(stats.missCount()).isEqualTo(1);
+    Truth.assertThat(stats.hitCount()).isEqualTo(1);
+  }
+
   private static String sorted(String... imports) {
     return stream(imports).sorted().collect(joining("\n"));
   }
@@ -15,6 +15,8 @@
  */
 package com.google.auto.value.processor;
 
+import static com.google.common.base.StandardSystemProperty.JAVA_SPECIFICATION_VERSION;
+import static com.google.common.truth.TruthJUnit.assume;
 import static com.google.testing.compile.CompilationSubject.assertThat;
 import static com.google.testing.compile.Compiler.javac;
 
@@ -334,6 +336,503 @@ public class AutoOneOfCompilationTest {
         .hasSourceEquivalentTo(expectedOutput);
   }
 
+  @Test
+  public void compact() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Result",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "import java.io.Serializable;",
+            "import java.util.List;",
+            "",
+            "@AutoOneOf(value = Result.Kind.class, compact = true)",
+            "public abstract class Result<T> implements Serializable {",
+            "  private static final long serialVersionUID = 1234L;",
+            "",
+            "  public enum Kind {COUNT, RATIO, VALUES, NONE}",
+            "  public abstract Kind getKind();",
+            "",
+            "  public abstract int count();",
+            "  public abstract double ratio();",
+            "  public abstract List<T> values();",
+            "  public abstract void none();",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.AutoOneOf_Result",
+            "package foo.bar;",
+            "",
+            "import java.util.List;",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"com.google.auto.value.processor.AutoOneOfProcessor\")",
+            "final class AutoOneOf_Result {",
+            "  private AutoOneOf_Result() {} // There are no instances of this type.",
+            "",
+            "  static <T> Result<T> count(int count) {",
+            "    return new Impl<T>(Result.Kind.COUNT, null, count);",
+            "  }",
+            "",
+            "  static <T> Result<T> ratio(double ratio) {",
+            "    return new Impl<T>(Result.Kind.RATIO, null, Double.doubleToLongBits(ratio));",
+            "  }",
+            "",
+            "  static <T> Result<T> values(List<T> values) {",
+            "    if (values == null) {",
+            "      throw new NullPointerException();",
+            "    }",
+            "    return new Impl<T>(Result.Kind.VALUES, values, 0);",
+            "  }",
+            "",
+            "  @SuppressWarnings(\"unchecked\") // type parameters are unused in void instances",
+            "  static <T> Result<T> none() {",
+            "    return (Result<T>) Impl.INSTANCE_none;",
+            "  }",
+            "",
+            "  // The single implementation class, which records the kind of each instance in a"
+                + " field.",
+            "  private static final class Impl<T> extends Result<T> {",
+            "    private static final long serialVersionUID = 1234L;",
+            "",
+            "    // The only instance whose kind is NONE.",
+            "    static final Impl<?> INSTANCE_none = new Impl<>(Result.Kind.NONE, null, 0);",
+            "",
+            "    private final Result.Kind kind;",
+            "    private final Object object;",
+            "    private final long bits;",
+            "",
+            "    Impl(Result.Kind kind, Object object, long bits) {",
+            "      this.kind = kind;",
+            "      this.object = object;",
+            "      this.bits = bits;",
+            "    }",
+            "",
+            "    @Override",
+            "    public Result.Kind getKind() {",
+            "      return kind;",
+            "    }",
+            "",
+            "    @Override",
+            "    public int count() {",
+            "      if (kind != Result.Kind.COUNT) {",
+            "        throw new UnsupportedOperationException(kind.toString());",
+            "      }",
+            "      return (int) bits;",
+            "    }",
+            "",
+            "    @Override",
+            "    public double ratio() {",
+            "      if (kind != Result.Kind.RATIO) {",
+            "        throw new UnsupportedOperationException(kind.toString());",
+            "      }",
+            "      return Double.longBitsToDouble(bits);",
+            "    }",
+            "",
+            "    @Override",
+            "    @SuppressWarnings(\"unchecked\")",
+            "    public List<T> values() {",
+            "      if (kind != Result.Kind.VALUES) {",
+            "        throw new UnsupportedOperationException(kind.toString());",
+            "      }",
+            "      return (List<T>) object;",
+            "    }",
+            "",
+            "    @Override",
+            "    public void none() {",
+            "      if (kind != Result.Kind.NONE) {",
+            "        throw new UnsupportedOperationException(kind.toString());",
+            "      }",
+            "    }",
+            "",
+            "    private Object readResolve() {",
+            "      if (kind == Result.Kind.NONE) {",
+            "        return INSTANCE_none;",
+            "      }",
+            "      return this;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      if (kind == Result.Kind.COUNT) {",
+            "        return \"Result{count=\" + count() + \"}\";",
+            "      }",
+            "      if (kind == Result.Kind.RATIO) {",
+            "        return \"Result{ratio=\" + ratio() + \"}\";",
+            "      }",
+            "      if (kind == Result.Kind.VALUES) {",
+            "        return \"Result{values=\" + values() + \"}\";",
+            "      }",
+            "      if (kind == Result.Kind.NONE) {",
+            "        return \"Result{none}\";",
+            "      }",
+            "      throw new AssertionError(kind);",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof Impl) {",
+            "        Impl<?> that = (Impl<?>) x;",
+            "        if (kind != that.kind) {",
+            "          return false;",
+            "        }",
+            "        return bits == that.bits",
+            "            && (object == that.object || object.equals(that.object));",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      if (kind == Result.Kind.COUNT) {",
+            "        return (int) bits;",
+            "      }",
+            "      if (kind == Result.Kind.RATIO) {",
+            "        return (int) ((bits >>> 32) ^ bits);",
+            "      }",
+            "      if (kind == Result.Kind.VALUES) {",
+            "        return object.hashCode();",
+            "      }",
+            "      if (kind == Result.Kind.NONE) {",
+            "        return System.identityHashCode(this);",
+            "      }",
+            "      throw new AssertionError(kind);",
+            "    }",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoOneOfProcessor())
+            .withOptions(
+                "-Xlint:-processing", "-implicit:none", "-A" + Nullables.NULLABLE_OPTION + "=")
+            .compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("foo.bar.AutoOneOf_Result")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
+  @Test
+  public void acceptMethod() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.StringOrInt",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(StringOrInt.Kind.class)",
+            "abstract class StringOrInt {",
+            "  enum Kind {STRING, INTEGER}",
+            "  abstract Kind kind();",
+            "",
+            "  abstract String string();",
+            "  abstract int integer();",
+            "",
+            "  interface Visitor<R> {",
+            "    R string(String s);",
+            "    R integer(int i);",
+            "  }",
+            "",
+            "  abstract <R> R accept(Visitor<R> visitor);",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.AutoOneOf_StringOrInt",
+            "package foo.bar;",
+            "",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"com.google.auto.value.processor.AutoOneOfProcessor\")",
+            "final class AutoOneOf_StringOrInt {",
+            "  private AutoOneOf_StringOrInt() {} // There are no instances of this type.",
+            "",
+            "  static StringOrInt string(String string) {",
+            "    if (string == null) {",
+            "      throw new NullPointerException();",
+            "    }",
+            "    return new Impl_string(string);",
+            "  }",
+            "",
+            "  static StringOrInt integer(int integer) {",
+            "    return new Impl_integer(integer);",
+            "  }",
+            "",
+            "  // Parent class that each implementation will inherit from.",
+            "  private abstract static class Parent_ extends StringOrInt {",
+            "    @Override",
+            "    String string() {",
+            "      throw new UnsupportedOperationException(kind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    int integer() {",
+            "      throw new UnsupportedOperationException(kind().toString());",
+            "    }",
+            "  }",
+            "",
+            "  // Implementation when the contained property is \"string\".",
+            "  private static final class Impl_string extends Parent_ {",
+            "    private final String string;",
+            "",
+            "    Impl_string(String string) {",
+            "      this.string = string;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String string() {",
+            "      return string;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"StringOrInt{string=\" + this.string + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof StringOrInt) {",
+            "        StringOrInt that = (StringOrInt) x;",
+            "        return this.kind() == that.kind()",
+            "            && this.string.equals(that.string());",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return string.hashCode();",
+            "    }",
+            "",
+            "    @Override",
+            "    public <R> R accept(StringOrInt.Visitor<R> visitor) {",
+            "      return visitor.string(this.string);",
+            "    }",
+            "",
+            "    @Override",
+            "    public StringOrInt.Kind kind() {",
+            "      return StringOrInt.Kind.STRING;",
+            "    }",
+            "  }",
+            "",
+            "  // Implementation when the contained property is \"integer\".",
+            "  private static final class Impl_integer extends Parent_ {",
+            "    private final int integer;",
+            "",
+            "    Impl_integer(int integer) {",
+            "      this.integer = integer;",
+            "    }",
+            "",
+            "    @Override",
+            "    public int integer() {",
+            "      return integer;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"StringOrInt{integer=\" + this.integer + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof StringOrInt) {",
+            "        StringOrInt that = (StringOrInt) x;",
+            "        return this.kind() == that.kind()",
+            "            && this.integer == that.integer();",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return integer;",
+            "    }",
+            "",
+            "    @Override",
+            "    public <R> R accept(StringOrInt.Visitor<R> visitor) {",
+            "      return visitor.integer(this.integer);",
+            "    }",
+            "",
+            "    @Override",
+            "    public StringOrInt.Kind kind() {",
+            "      return StringOrInt.Kind.INTEGER;",
+            "    }",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoOneOfProcessor())
+            .withOptions(
+                "-Xlint:-processing", "-implicit:none", "-A" + Nullables.NULLABLE_OPTION + "=")
+            .compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("foo.bar.AutoOneOf_StringOrInt")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
+  @Test
+  public void cacheInstances() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Signal",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Signal.Kind.class)",
+            "@AutoOneOf.CacheInstances(low = 0, high = 15)",
+            "abstract class Signal {",
+            "  enum Kind {ON, LEVEL}",
+            "  abstract Kind kind();",
+            "",
+            "  abstract boolean on();",
+            "  abstract int level();",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.AutoOneOf_Signal",
+            "package foo.bar;",
+            "",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"com.google.auto.value.processor.AutoOneOfProcessor\")",
+            "final class AutoOneOf_Signal {",
+            "  private AutoOneOf_Signal() {} // There are no instances of this type.",
+            "",
+            "  static Signal on(boolean on) {",
+            "    return on ? Impl_on.TRUE : Impl_on.FALSE;",
+            "  }",
+            "",
+            "  static Signal level(int level) {",
+            "    if (level >= 0 && level <= 15) {",
+            "      return Impl_level.CACHE[level];",
+            "    }",
+            "    return new Impl_level(level);",
+            "  }",
+            "",
+            "  // Parent class that each implementation will inherit from.",
+            "  private abstract static class Parent_ extends Signal {",
+            "    @Override",
+            "    boolean on() {",
+            "      throw new UnsupportedOperationException(kind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    int level() {",
+            "      throw new UnsupportedOperationException(kind().toString());",
+            "    }",
+            "  }",
+            "",
+            "  // Implementation when the contained property is \"on\".",
+            "  private static final class Impl_on extends Parent_ {",
+            "    private final boolean on;",
+            "",
+            "    Impl_on(boolean on) {",
+            "      this.on = on;",
+            "    }",
+            "",
+            "    // Cached instances for the on property, returned by its factory method.",
+            "    static final Impl_on TRUE = new Impl_on(true);",
+            "    static final Impl_on FALSE = new Impl_on(false);",
+            "",
+            "    @Override",
+            "    public boolean on() {",
+            "      return on;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"Signal{on=\" + this.on + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof Signal) {",
+            "        Signal that = (Signal) x;",
+            "        return this.kind() == that.kind()",
+            "            && this.on == that.on();",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return on ? 1231 : 1237;",
+            "    }",
+            "",
+            "    @Override",
+            "    public Signal.Kind kind() {",
+            "      return Signal.Kind.ON;",
+            "    }",
+            "  }",
+            "",
+            "  // Implementation when the contained property is \"level\".",
+            "  private static final class Impl_level extends Parent_ {",
+            "    private final int level;",
+            "",
+            "    Impl_level(int level) {",
+            "      this.level = level;",
+            "    }",
+            "",
+            "    // Cached instances for the level property, returned by its factory method.",
+            "    static final Impl_level[] CACHE = new Impl_level[16];",
+            "",
+            "    static {",
+            "      for (int i = 0; i < CACHE.length; i++) {",
+            "        CACHE[i] = new Impl_level(i);",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int level() {",
+            "      return level;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"Signal{level=\" + this.level + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof Signal) {",
+            "        Signal that = (Signal) x;",
+            "        return this.kind() == that.kind()",
+            "            && this.level == that.level();",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return level;",
+            "    }",
+            "",
+            "    @Override",
+            "    public Signal.Kind kind() {",
+            "      return Signal.Kind.LEVEL;",
+            "    }",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoOneOfProcessor())
+            .withOptions(
+                "-Xlint:-processing", "-implicit:none", "-A" + Nullables.NULLABLE_OPTION + "=")
+            .compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("foo.bar.AutoOneOf_Signal")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
   @Test
   public void noKindGetter() {
     JavaFileObject javaFileObject =
@@ -466,7 +965,310 @@ public class AutoOneOfCompilationTest {
   }
 
   @Test
-  public void mustBeClass() {
+  public void visitorMissingMethod() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Pet",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Pet.Kind.class)",
+            "public abstract class Pet {",
+            "  public enum Kind {DOG, CAT}",
+            "  public abstract Kind getKind();",
+            "  public abstract String dog();",
+            "  public abstract String cat();",
+            "",
+            "  public interface Visitor {",
+            "    void dog(String dog);",
+            "    void kitten(String cat);",
+            "  }",
+            "",
+            "  public abstract void accept(Visitor visitor);",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(new AutoOneOfProcessor()).compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining("Method kitten of Visitor does not correspond to any property")
+        .inFile(javaFileObject)
+        .onLineContaining("void accept");
+    assertThat(compilation)
+        .hadErrorContaining("Visitor has no method corresponding to property 'cat'")
+        .inFile(javaFileObject)
+        .onLineContaining("void accept");
+  }
+
+  @Test
+  public void visitorWrongType() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Pet",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Pet.Kind.class)",
+            "public abstract class Pet {",
+            "  public enum Kind {DOG, CAT}",
+            "  public abstract Kind getKind();",
+            "  public abstract String dog();",
+            "  public abstract void cat();",
+            "",
+            "  public interface Visitor {",
+            "    String dog(Integer dog);",
+            "    void cat();",
+            "  }",
+            "",
+            "  public abstract String accept(Visitor visitor);",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(new AutoOneOfProcessor()).compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining(
+            "Method dog of Visitor must accept a parameter of type java.lang.String and return a"
+                + " result compatible with java.lang.String")
+        .inFile(javaFileObject)
+        .onLineContaining("String accept");
+    assertThat(compilation)
+        .hadErrorContaining(
+            "Method cat of Visitor must accept no parameters and return a result compatible with"
+                + " java.lang.String")
+        .inFile(javaFileObject)
+        .onLineContaining("String accept");
+  }
+
+  @Test
+  public void interfaceRecords() {
+    double version = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
+    assume().that(version).isAtLeast(17.0);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Shape",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Shape.Kind.class)",
+            "public interface Shape {",
+            "  enum Kind {CIRCLE, LABEL, EMPTY}",
+            "  Kind getKind();",
+            "",
+            "  int circle();",
+            "  String label();",
+            "  void empty();",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.AutoOneOf_Shape",
+            "package foo.bar;",
+            "",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"com.google.auto.value.processor.AutoOneOfProcessor\")",
+            "final class AutoOneOf_Shape {",
+            "  private AutoOneOf_Shape() {} // There are no instances of this type.",
+            "",
+            "  static Shape circle(int circle) {",
+            "    return new CircleCase(circle);",
+            "  }",
+            "",
+            "  static Shape label(String label) {",
+            "    if (label == null) {",
+            "      throw new NullPointerException();",
+            "    }",
+            "    return new LabelCase(label);",
+            "  }",
+            "",
+            "  static Shape empty() {",
+            "    return EmptyCase.INSTANCE;",
+            "  }",
+            "",
+            "  // The sealed interface that the record for each property implements.",
+            "  sealed interface Alternative extends Shape {}",
+            "",
+            "  // The alternative where the contained property is \"circle\".",
+            "  record CircleCase(int circle) implements Alternative {",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"Shape{circle=\" + this.circle + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof Shape) {",
+            "        Shape that = (Shape) x;",
+            "        return this.getKind() == that.getKind()",
+            "            && this.circle == that.circle();",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return circle;",
+            "    }",
+            "",
+            "    @Override",
+            "    public int circle() {",
+            "      return circle;",
+            "    }",
+            "",
+            "    @Override",
+            "    public String label() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public void empty() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public Shape.Kind getKind() {",
+            "      return Shape.Kind.CIRCLE;",
+            "    }",
+            "  }",
+            "",
+            "  // The alternative where the contained property is \"label\".",
+            "  record LabelCase(String label) implements Alternative {",
+            "    LabelCase {",
+            "      if (label == null) {",
+            "        throw new NullPointerException();",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"Shape{label=\" + this.label + \"}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public boolean equals(Object x) {",
+            "      if (x instanceof Shape) {",
+            "        Shape that = (Shape) x;",
+            "        return this.getKind() == that.getKind()",
+            "            && this.label.equals(that.label());",
+            "      } else {",
+            "        return false;",
+            "      }",
+            "    }",
+            "",
+            "    @Override",
+            "    public int hashCode() {",
+            "      return label.hashCode();",
+            "    }",
+            "",
+            "    @Override",
+            "    public int circle() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public String label() {",
+            "      return label;",
+            "    }",
+            "",
+            "    @Override",
+            "    public void empty() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public Shape.Kind getKind() {",
+            "      return Shape.Kind.LABEL;",
+            "    }",
+            "  }",
+            "",
+            "  // The alternative where the contained property is \"empty\".",
+            "  record EmptyCase() implements Alternative {",
+            "    // The only instance that the factory method returns.",
+            "    static final EmptyCase INSTANCE = new EmptyCase();",
+            "",
+            "    @Override",
+            "    public String toString() {",
+            "      return \"Shape{empty}\";",
+            "    }",
+            "",
+            "    @Override",
+            "    public int circle() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public String label() {",
+            "      throw new UnsupportedOperationException(getKind().toString());",
+            "    }",
+            "",
+            "    @Override",
+            "    public void empty() {}",
+            "",
+            "    @Override",
+            "    public Shape.Kind getKind() {",
+            "      return Shape.Kind.EMPTY;",
+            "    }",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoOneOfProcessor())
+            .withOptions("-Xlint:-processing", "-implicit:none")
+            .compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("foo.bar.AutoOneOf_Shape")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
+  @Test
+  public void cacheInstancesBadRange() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Signal",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Signal.Kind.class)",
+            "@AutoOneOf.CacheInstances(low = 10, high = 0)",
+            "abstract class Signal {",
+            "  enum Kind {LEVEL}",
+            "  abstract Kind kind();",
+            "  abstract int level();",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(new AutoOneOfProcessor()).compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining("@CacheInstances must have low <= high")
+        .inFile(javaFileObject)
+        .onLineContaining("class Signal");
+  }
+
+  @Test
+  public void mustBeClassOrInterface() {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Pet",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Pet.class)",
+            "public enum Pet {",
+            "  DOG,",
+            "  CAT,",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(new AutoOneOfProcessor()).compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining("@AutoOneOf only applies to classes and interfaces")
+        .inFile(javaFileObject)
+        .onLineContaining("enum Pet");
+  }
+
+  @Test
+  public void interfaceNeedsRecords() {
     JavaFileObject javaFileObject =
         JavaFileObjects.forSourceLines(
             "foo.bar.Pet",
@@ -484,10 +1286,42 @@ public class AutoOneOfCompilationTest {
             "  String dog();",
             "  String cat();",
             "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoOneOfProcessor())
+            .withOptions("-source", "8", "-Xlint:-options")
+            .compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining("@AutoOneOf interface is implemented with records")
+        .inFile(javaFileObject)
+        .onLineContaining("interface Pet");
+  }
+
+  @Test
+  public void interfaceCantBeCompact() {
+    double version = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
+    assume().that(version).isAtLeast(17.0);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Pet",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(value = Pet.Kind.class, compact = true)",
+            "public interface Pet {",
+            "  public enum Kind {",
+            "    DOG,",
+            "    CAT,",
+            "  }",
+            "  Kind getKind();",
+            "  String dog();",
+            "  String cat();",
+            "}");
     Compilation compilation =
         javac().withProcessors(new AutoOneOfProcessor()).compile(javaFileObject);
     assertThat(compilation)
-        .hadErrorContaining("@AutoOneOf only applies to classes")
+        .hadErrorContaining("cannot have compact = true")
         .inFile(javaFileObject)
         .onLineContaining("interface Pet");
   }
@@ -564,7 +564,7 @@ public class AutoValueCompilationTest {
   }
 
   @Test
-  public void autoValueMustBeClass() {
+  public void interfaceNeedsRecords() {
     JavaFileObject javaFileObject =
         JavaFileObjects.forSourceLines(
             "foo.bar.Baz",
@@ -577,13 +577,102 @@ public class AutoValueCompilationTest {
             "  String buh();",
             "}");
     Compilation compilation =
-        javac().withProcessors(new AutoValueProcessor()).compile(javaFileObject);
+        javac()
+            .withProcessors(new AutoValueProcessor())
+            .withOptions("-source", "8", "-Xlint:-options")
+            .compile(javaFileObject);
     assertThat(compilation)
-        .hadErrorContaining("@AutoValue only applies to classes")
+        .hadErrorContaining("@AutoValue interface is implemented with a record")
         .inFile(javaFileObject)
         .onLineContaining("interface Baz");
   }
 
+  @Test
+  public void interfaceRecord() {
+    double version = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
+    assume().that(version).isAtLeast(17.0);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "public interface Baz {",
+            "  long id();",
+            "  String name();",
+            "}");
+    JavaFileObject expectedOutput =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.AutoValue_Baz",
+            "package foo.bar;",
+            "",
+            GeneratedImport.importGeneratedAnnotationType(),
+            "",
+            "@Generated(\"com.google.auto.value.processor.AutoValueProcessor\")",
+            "record AutoValue_Baz(",
+            "    long id,",
+            "    String name) implements Baz {",
+            "",
+            "  AutoValue_Baz {",
+            "    if (name == null) {",
+            "      throw new NullPointerException(\"Null name\");",
+            "    }",
+            "  }",
+            "",
+            "  @Override",
+            "  public long id() {",
+            "    return id;",
+            "  }",
+            "",
+            "  @Override",
+            "  public String name() {",
+            "    return name;",
+            "  }",
+            "",
+            "  @Override",
+            "  public String toString() {",
+            "    return \"Baz{\"",
+            "        + \"id=\" + id + \", \"",
+            "        + \"name=\" + name",
+            "        + \"}\";",
+            "  }",
+            "",
+            "  @Override",
+            "  public boolean equals(Object o) {",
+            "    if (o == this) {",
+            "      return true;",
+            "    }",
+            "    if (o instanceof Baz) {",
+            "      Baz that = (Baz) o;",
+            "      return this.id == that.id()",
+            "          && this.name.equals(that.name());",
+            "    }",
+            "    return false;",
+            "  }",
+            "",
+            "  @Override",
+            "  public int hashCode() {",
+            "    int h$ = 1;",
+            "    h$ *= 1000003;",
+            "    h$ ^= (int) ((id >>> 32) ^ id);",
+            "    h$ *= 1000003;",
+            "    h$ ^= name.hashCode();",
+            "    return h$;",
+            "  }",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoValueProcessor())
+            .withOptions("-Xlint:-processing", "-implicit:none")
+            .compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(compilation)
+        .generatedSourceFile("foo.bar.AutoValue_Baz")
+        .hasSourceEquivalentTo(expectedOutput);
+  }
+
   @Test
   public void autoValueMustNotBeFinal() {
     JavaFileObject javaFileObject =
@@ -787,25 +876,6 @@ public class AutoValueCompilationTest {
         .onLineContaining("String[] strings()");
   }
 
-  @Test
-  public void annotationOnInterface() {
-    JavaFileObject javaFileObject =
-        JavaFileObjects.forSourceLines(
-            "foo.bar.Baz",
-            "package foo.bar;",
-            "",
-            "import com.google.auto.value.AutoValue;",
-            "",
-            "@AutoValue",
-            "public interface Baz {}");
-    Compilation compilation =
-        javac().withProcessors(new AutoValueProcessor()).compile(javaFileObject);
-    assertThat(compilation)
-        .hadErrorContaining("AutoValue only applies to classes")
-        .inFile(javaFileObject)
-        .onLineContaining("interface Baz");
-  }
-
   @Test
   public void annotationOnEnum() {
     JavaFileObject javaFileObject =
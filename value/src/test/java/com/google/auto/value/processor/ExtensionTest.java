@@ -15,9 +15,11 @@
  */
 package com.google.auto.value.processor;
 
+import static com.google.common.base.StandardSystemProperty.JAVA_SPECIFICATION_VERSION;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
 import static com.google.testing.compile.CompilationSubject.assertThat;
 import static com.google.testing.compile.Compiler.javac;
 
@@ -38,6 +40,7 @@ import java.io.Writer;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceConfigurationError;
@@ -104,6 +107,31 @@ public class ExtensionTest {
         .hasSourceEquivalentTo(expectedExtensionOutput);
   }
 
+  @Test
+  public void testInterfaceCantUseExtensions() {
+    double version = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
+    assume().that(version).isAtLeast(17.0);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "public interface Baz {",
+            "  String foo();",
+            "}");
+    Compilation compilation =
+        javac()
+            .withProcessors(new AutoValueProcessor(ImmutableList.of(new FooExtension())))
+            .compile(javaFileObject);
+    assertThat(compilation)
+        .hadErrorContaining("@AutoValue interface is implemented with a record")
+        .inFile(javaFileObject)
+        .onLineContaining("interface Baz");
+  }
+
   @Test
   public void testExtensionConsumesProperties() {
     JavaFileObject javaFileObject =
@@ -592,6 +620,64 @@ public class ExtensionTest {
         .onLineContaining("public abstract class Baz");
   }
 
+  @Test
+  public void testTriggersSkipExtension() {
+    JavaFileObject triggerFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Trigger",
+            "package foo.bar;",
+            "",
+            "public @interface Trigger {}");
+    JavaFileObject annotatedFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Annotated",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "public abstract class Annotated {",
+            "  @Trigger abstract String foo();",
+            "}");
+    JavaFileObject serializableFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Implementing",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "import java.io.Serializable;",
+            "",
+            "@AutoValue",
+            "public abstract class Implementing implements Serializable {",
+            "  abstract String foo();",
+            "}");
+    JavaFileObject plainFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Plain",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "public abstract class Plain {",
+            "  abstract String foo();",
+            "}");
+    TriggeredExtension triggeredExtension = new TriggeredExtension();
+    NonFinalExtension untriggeredExtension = new NonFinalExtension();
+    Compilation compilation =
+        javac()
+            .withProcessors(
+                new AutoValueProcessor(ImmutableList.of(triggeredExtension, untriggeredExtension)))
+            .compile(
+                triggerFileObject, annotatedFileObject, serializableFileObject, plainFileObject);
+    assertThat(compilation).succeeded();
+    assertThat(triggeredExtension.applicableTo).containsExactly("Annotated", "Implementing");
+    assertThat(compilation).generatedSourceFile("foo.bar.$AutoValue_Annotated");
+    assertThat(compilation).generatedSourceFile("foo.bar.$AutoValue_Plain");
+    assertThat(compilation).generatedSourceFile("foo.bar.$$AutoValue_Annotated");
+    assertThat(compilation).generatedSourceFile("foo.bar.$$AutoValue_Implementing");
+  }
+
   @Test
   public void testNonFinalThenFinal() {
     JavaFileObject javaFileObject =
@@ -981,6 +1067,26 @@ public class ExtensionTest {
     }
   }
 
+  private static class TriggeredExtension extends NonFinalExtension {
+    final Set<String> applicableTo = new LinkedHashSet<>();
+
+    @Override
+    public Set<String> triggerAnnotations() {
+      return ImmutableSet.of("foo.bar.Trigger");
+    }
+
+    @Override
+    public Set<String> triggerInterfaces() {
+      return ImmutableSet.of("java.io.Serializable");
+    }
+
+    @Override
+    public boolean applicable(Context context) {
+      applicableTo.add(context.autoValueClass().getSimpleName().toString());
+      return true;
+    }
+  }
+
   private static class SideFileExtension extends AutoValueExtension {
     @Override
     public boolean applicable(Context context) {
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.tools.JavaFileObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link GeneratedSourceCache}. */
+@RunWith(JUnit4.class)
+public class GeneratedSourceCacheTest {
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final JavaFileObject BAZ =
+      JavaFileObjects.forSourceLines(
+          "foo.bar.Baz",
+          "package foo.bar;",
+          "",
+          "import com.google.auto.value.AutoValue;",
+          "import com.google.common.collect.ImmutableList;",
+          "",
+          "@AutoValue",
+          "public abstract class Baz {",
+          "  public abstract int anInt();",
+          "  public abstract ImmutableList<String> strings();",
+          "",
+          "  public static Builder builder() {",
+          "    return new AutoValue_Baz.Builder();",
+          "  }",
+          "",
+          "  @AutoValue.Builder",
+          "  public abstract static class Builder {",
+          "    public abstract Builder anInt(int x);",
+          "    public abstract Builder strings(Iterable<String> x);",
+          "    public abstract Baz build();",
+          "  }",
+          "}");
+
+  private static final JavaFileObject CHANGED_BAZ =
+      JavaFileObjects.forSourceLines(
+          "foo.bar.Baz",
+          "package foo.bar;",
+          "",
+          "import com.google.auto.value.AutoValue;",
+          "",
+          "@AutoValue",
+          "public abstract class Baz {",
+          "  public abstract long aLong();",
+          "}");
+
+  private static final JavaFileObject BUILDER =
+      JavaFileObjects.forSourceLines(
+          "foo.bar.PointBuilder",
+          "package foo.bar;",
+          "",
+          "import com.google.auto.value.AutoBuilder;",
+          "",
+          "@AutoBuilder(ofClass = Point.class)",
+          "public interface PointBuilder {",
+          "  PointBuilder x(int x);",
+          "  PointBuilder y(int y);",
+          "  Point build();",
+          "}");
+
+  private static final JavaFileObject POINT =
+      JavaFileObjects.forSourceLines(
+          "foo.bar.Point",
+          "package foo.bar;",
+          "",
+          "public class Point {",
+          "  public Point(int x, int y) {}",
+          "}");
+
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws IOException {
+    GeneratedSourceCache.clearMemoryCache();
+    cacheDir = temporaryFolder.newFolder("cache");
+  }
+
+  @Test
+  public void cachedSourceIsReused() throws IOException {
+    Compilation compilation = compile(BAZ);
+    assertThat(compilation).succeededWithoutWarnings();
+    Path entry = onlyCacheEntry();
+    assertThat(new String(Files.readAllBytes(entry), UTF_8))
+        .isEqualTo(generatedSource(compilation, "foo.bar.AutoValue_Baz"));
+
+    // Mark the cached source so that we can tell whether it was used. The same type must produce
+    // the marked source from the cache, whether from memory or from the directory.
+    String marked = "// cached\n" + new String(Files.readAllBytes(entry), UTF_8);
+    Files.write(entry, marked.getBytes(UTF_8));
+    GeneratedSourceCache.clearMemoryCache();
+    compilation = compile(BAZ);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(generatedSource(compilation, "foo.bar.AutoValue_Baz")).isEqualTo(marked);
+    compilation = compile(BAZ);
+    assertThat(generatedSource(compilation, "foo.bar.AutoValue_Baz")).isEqualTo(marked);
+  }
+
+  @Test
+  public void changedTypeIsRegenerated() throws IOException {
+    assertThat(compile(BAZ)).succeededWithoutWarnings();
+    Compilation compilation = compile(CHANGED_BAZ);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(generatedSource(compilation, "foo.bar.AutoValue_Baz")).contains("aLong");
+    assertThat(cacheEntries()).hasSize(2);
+  }
+
+  @Test
+  public void autoBuilderCached() throws IOException {
+    Compilation compilation = compile(BUILDER, POINT);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(new String(Files.readAllBytes(onlyCacheEntry()), UTF_8))
+        .isEqualTo(generatedSource(compilation, "foo.bar.AutoBuilder_PointBuilder"));
+  }
+
+  @Test
+  public void noCacheWithoutOption() {
+    Compilation compilation = javac().withProcessors(new AutoValueProcessor()).compile(BAZ);
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(cacheDir.list()).isEmpty();
+  }
+
+  @Test
+  public void functionThatRejectsStringsNotFingerprinted() {
+    GeneratedSourceCache.Fingerprinter fingerprinter =
+        new GeneratedSourceCache.Fingerprinter(Hashing.sha256().newHasher());
+    Function<Integer, Integer> function = x -> x + 1;
+    assertThrows(UnsupportedOperationException.class, () -> fingerprinter.put(function));
+  }
+
+  private Compilation compile(JavaFileObject... sources) {
+    return javac()
+        .withProcessors(new AutoValueProcessor(), new AutoBuilderProcessor())
+        .withOptions("-A" + GeneratedSourceCache.CACHE_OPTION + "=" + cacheDir)
+        .compile(sources);
+  }
+
+  private Path onlyCacheEntry() throws IOException {
+    ImmutableList<Path> entries = cacheEntries();
+    assertThat(entries).hasSize(1);
+    return entries.get(0);
+  }
+
+  private ImmutableList<Path> cacheEntries() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDir.toPath())) {
+      return files.collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  private static String generatedSource(Compilation compilation, String className)
+      throws IOException {
+    return compilation.generatedSourceFile(className).get().getCharContent(false).toString();
+  }
+}
@@ -15,8 +15,12 @@
  */
 package com.google.auto.value.processor;
 
+import static com.google.auto.value.processor.ClassNames.AUTO_VALUE_NAME;
 import static com.google.common.truth.Correspondence.transforming;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.auto.value.extension.AutoValueExtension;
 import com.google.auto.value.extension.AutoValueExtension.IncrementalExtensionType;
@@ -24,7 +28,20 @@ import com.google.auto.value.extension.memoized.processor.MemoizeExtension;
 import com.google.auto.value.extension.serializable.processor.SerializableAutoValueExtension;
 import com.google.auto.value.extension.toprettystring.processor.ToPrettyStringExtension;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.tools.JavaFileObject;
 import net.ltgt.gradle.incap.IncrementalAnnotationProcessorType;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -91,6 +108,157 @@ public class IncrementalExtensionTest {
         .contains(IncrementalAnnotationProcessorType.ISOLATING.getProcessorOption());
   }
 
+  @Test
+  public void aggregatingExtensionsUseAggregatingProcessor() {
+    RecordingExtension isolatingExtension =
+        new RecordingExtension(IncrementalExtensionType.ISOLATING);
+    RecordingExtension aggregatingExtension =
+        new RecordingExtension(IncrementalExtensionType.AGGREGATING);
+    ImmutableList<AutoValueExtension> extensions =
+        ImmutableList.of(isolatingExtension, aggregatingExtension);
+    AutoValueAggregatingProcessor aggregatingProcessor =
+        new WrappedAggregatingProcessor(extensions);
+    AutoValueProcessor processor = new AutoValueProcessor(extensions);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "abstract class Baz {",
+            "  abstract int anInt();",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(aggregatingProcessor, processor).compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+
+    // Gradle gives each processor its own wrapper of the ProcessingEnvironment. Here the
+    // aggregating processor has a proxy, so we can tell which environment each extension saw.
+    assertThat(isolatingExtension.environments).isNotEmpty();
+    assertThat(isolatingExtension.environments.stream().anyMatch(Proxy::isProxyClass)).isFalse();
+    assertThat(aggregatingExtension.environments).isNotEmpty();
+    assertThat(aggregatingExtension.environments.stream().allMatch(Proxy::isProxyClass)).isTrue();
+
+    assertThat(processor.getSupportedOptions())
+        .contains(IncrementalAnnotationProcessorType.ISOLATING.getProcessorOption());
+    assertThat(aggregatingProcessor.getSupportedOptions())
+        .containsExactly(IncrementalAnnotationProcessorType.AGGREGATING.getProcessorOption());
+  }
+
+  @Test
+  public void aggregatingProcessorInitializedLate() {
+    RecordingExtension aggregatingExtension =
+        new RecordingExtension(IncrementalExtensionType.AGGREGATING);
+    ImmutableList<AutoValueExtension> extensions = ImmutableList.of(aggregatingExtension);
+    AutoValueAggregatingProcessor aggregatingProcessor =
+        new WrappedAggregatingProcessor(extensions);
+    AutoValueProcessor processor = new AutoValueProcessor(extensions);
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "abstract class Baz {",
+            "  abstract int anInt();",
+            "}");
+    Compilation compilation =
+        javac().withProcessors(processor, aggregatingProcessor).compile(javaFileObject);
+    assertThat(compilation).succeededWithoutWarnings();
+
+    // AutoValueProcessor was initialized first, so for the whole compilation it runs the
+    // aggregating extension with its own environment, and declares itself aggregating.
+    assertThat(aggregatingExtension.environments).isNotEmpty();
+    assertThat(aggregatingExtension.environments.stream().anyMatch(Proxy::isProxyClass)).isFalse();
+    assertThat(processor.getSupportedOptions())
+        .contains(IncrementalAnnotationProcessorType.AGGREGATING.getProcessorOption());
+  }
+
+  @Test
+  public void servicesFileListsAggregatingProcessorFirst() throws IOException {
+    // Other versions of AutoValue might be on the classpath too, so use the file next to this
+    // processor.
+    String servicesFile = "META-INF/services/" + Processor.class.getName();
+    String location =
+        AutoValueProcessor.class.getProtectionDomain().getCodeSource().getLocation().toString();
+    ImmutableList<String> processors = ImmutableList.of();
+    for (URL url : Collections.list(getClass().getClassLoader().getResources(servicesFile))) {
+      if (url.toString().contains(location)) {
+        processors = ImmutableList.copyOf(Resources.readLines(url, UTF_8));
+      }
+    }
+    assertThat(processors)
+        .containsAtLeast(
+            AutoValueAggregatingProcessor.class.getName(), AutoValueProcessor.class.getName())
+        .inOrder();
+  }
+
+  @Test
+  public void aggregatingProcessorIsolatingWithIsolatingExtensions() {
+    AutoValueAggregatingProcessor aggregatingProcessor =
+        new AutoValueAggregatingProcessor(
+            AutoValueProcessor.extensionsFromLoader(AutoValueProcessor.class.getClassLoader()));
+    Compilation compilation =
+        javac()
+            .withProcessors(aggregatingProcessor)
+            .compile(
+                JavaFileObjects.forSourceLines("foo.bar.Baz", "package foo.bar;", "class Baz {}"));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(aggregatingProcessor.getSupportedOptions())
+        .containsExactly(IncrementalAnnotationProcessorType.ISOLATING.getProcessorOption());
+  }
+
+  /** Initializes the aggregating processor with a proxy, like the one that Gradle would supply. */
+  @SupportedAnnotationTypes(AUTO_VALUE_NAME)
+  private static class WrappedAggregatingProcessor extends AutoValueAggregatingProcessor {
+    WrappedAggregatingProcessor(Iterable<? extends AutoValueExtension> extensions) {
+      super(extensions);
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+      InvocationHandler handler = (proxy, method, args) -> method.invoke(processingEnv, args);
+      super.init(
+          (ProcessingEnvironment)
+              Proxy.newProxyInstance(
+                  ProcessingEnvironment.class.getClassLoader(),
+                  new Class<?>[] {ProcessingEnvironment.class},
+                  handler));
+    }
+  }
+
+  /** Records the processing environment that it sees in its context. */
+  private static class RecordingExtension extends AutoValueExtension {
+    private final IncrementalExtensionType incrementalType;
+    final List<Class<?>> environments = new ArrayList<>();
+
+    RecordingExtension(IncrementalExtensionType incrementalType) {
+      this.incrementalType = incrementalType;
+    }
+
+    @Override
+    public IncrementalExtensionType incrementalType(ProcessingEnvironment processingEnvironment) {
+      return incrementalType;
+    }
+
+    @Override
+    public boolean applicable(Context context) {
+      environments.add(context.processingEnvironment().getClass());
+      return true;
+    }
+
+    @Override
+    public String generateClass(
+        Context context, String className, String classToExtend, boolean isFinal) {
+      environments.add(context.processingEnvironment().getClass());
+      return null;
+    }
+  }
+
   // Extensions are "UNKNOWN" by default.
   private static class NonIsolatingExtension extends AutoValueExtension {
     @Override
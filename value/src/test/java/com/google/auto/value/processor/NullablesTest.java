@@ -35,6 +35,7 @@ import java.lang.annotation.Target;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
@@ -106,7 +107,7 @@ public class NullablesTest {
     // Some versions do, some don't. So skip the test unless we are on at least JDK 9.
     double javaVersion = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
     assume().that(javaVersion).isAtLeast(9.0);
-    NullableProcessor processor = new NullableProcessor(expect);
+    NullableProcessor processor = new NullableProcessor(expect, /* useRoundCache= */ false);
     Compilation compilation =
         Compiler.javac()
             .withProcessors(processor)
@@ -116,14 +117,29 @@ public class NullablesTest {
     // If any `expect` calls failed then the test will fail now because of the Expect rule.
   }
 
+  @Test
+  public void nullableMentionedInMethodsWithRoundCache() {
+    double javaVersion = Double.parseDouble(JAVA_SPECIFICATION_VERSION.value());
+    assume().that(javaVersion).isAtLeast(9.0);
+    NullableProcessor processor = new NullableProcessor(expect, /* useRoundCache= */ true);
+    Compilation compilation =
+        Compiler.javac()
+            .withProcessors(processor)
+            .compile(JavaFileObjects.forSourceLines("foo.bar.Methods", METHOD_LINES));
+    assertThat(compilation).succeededWithoutWarnings();
+    assertThat(processor.ran).isTrue();
+  }
+
   @SupportedAnnotationTypes("*")
   private static class NullableProcessor extends AbstractProcessor {
 
     private final Expect expect;
+    private final boolean useRoundCache;
     boolean ran;
 
-    NullableProcessor(Expect expect) {
+    NullableProcessor(Expect expect, boolean useRoundCache) {
       this.expect = expect;
+      this.useRoundCache = useRoundCache;
     }
 
     @Override
@@ -146,9 +162,20 @@ public class NullablesTest {
         List<ExecutableElement> nullableMethods = partitionedMethods.get(true);
         List<ExecutableElement> notNullableMethods = partitionedMethods.get(false);
 
-        expect
-            .that(Nullables.fromMethods(null, notNullableMethods).nullableTypeAnnotations())
-            .isEmpty();
+        // With useRoundCache, the same cache is used for every call, so the results for the
+        // methods without @Nullable are reused each time round the loop below.
+        Nullables.RoundCache roundCache =
+            useRoundCache ? Nullables.RoundCache.forRound(roundEnv) : null;
+        if (useRoundCache) {
+          expect.that(Nullables.RoundCache.forRound(roundEnv)).isSameInstanceAs(roundCache);
+        }
+        Function<List<ExecutableElement>, Nullables> fromMethods =
+            methodList ->
+                useRoundCache
+                    ? Nullables.fromMethods(null, methodList, roundCache)
+                    : Nullables.fromMethods(null, methodList);
+
+        expect.that(fromMethods.apply(notNullableMethods).nullableTypeAnnotations()).isEmpty();
 
         TypeElement nullableElement =
             processingEnv.getElementUtils().getTypeElement(Nullable.class.getCanonicalName());
@@ -165,7 +192,8 @@ public class NullablesTest {
           expect
               .withMessage("method %s should have @Nullable", nullableMethod)
               .that(
-                  Nullables.fromMethods(null, notNullablePlusNullable)
+                  fromMethods
+                      .apply(notNullablePlusNullable)
                       .nullableTypeAnnotations()
                       .stream()
                       .map(AnnotationMirror::getAnnotationType)
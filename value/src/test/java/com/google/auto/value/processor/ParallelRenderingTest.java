@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link AutoValueishProcessor#RENDERING_THREADS_OPTION}. */
+@RunWith(JUnit4.class)
+public class ParallelRenderingTest {
+  private static final String OPTION = "-A" + AutoValueishProcessor.RENDERING_THREADS_OPTION;
+
+  @Test
+  public void sameOutputAsSerial() throws IOException {
+    ImmutableList<JavaFileObject> sources = sources();
+    Compilation serial = compile(sources);
+    Compilation parallel = compile(sources, OPTION + "=4");
+    assertThat(serial).succeededWithoutWarnings();
+    assertThat(parallel).succeededWithoutWarnings();
+    assertThat(generatedSources(parallel)).containsExactlyEntriesIn(generatedSources(serial));
+    assertThat(generatedSources(parallel)).hasSize(sources.size() - 1);
+  }
+
+  @Test
+  public void invalidOption() {
+    Compilation compilation = compile(sources(), OPTION + "=lots");
+    assertThat(compilation).succeeded();
+    assertThat(compilation)
+        .hadWarningContaining("Ignoring " + OPTION + "=lots because it is not a positive integer");
+  }
+
+  private static ImmutableList<JavaFileObject> sources() {
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "foo.bar.Value" + i,
+              "package foo.bar;",
+              "",
+              "import com.google.auto.value.AutoValue;",
+              "import java.util.List;",
+              "",
+              "@AutoValue",
+              "public abstract class Value" + i + " {",
+              "  public abstract int anInt();",
+              "  public abstract List<String> strings();",
+              "",
+              "  public abstract Builder toBuilder();",
+              "",
+              "  @AutoValue.Builder",
+              "  public abstract static class Builder {",
+              "    public abstract Builder anInt(int x);",
+              "    public abstract Builder strings(List<String> x);",
+              "    public abstract Value" + i + " build();",
+              "  }",
+              "}"));
+    }
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Pet",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoOneOf;",
+            "",
+            "@AutoOneOf(Pet.Kind.class)",
+            "public abstract class Pet {",
+            "  public enum Kind {DOG, CAT}",
+            "  public abstract Kind getKind();",
+            "  public abstract String dog();",
+            "  public abstract String cat();",
+            "}"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "foo.bar.PointBuilder",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoBuilder;",
+            "",
+            "@AutoBuilder(ofClass = Point.class)",
+            "public interface PointBuilder {",
+            "  PointBuilder x(int x);",
+            "  PointBuilder y(int y);",
+            "  Point build();",
+            "}"));
+    sources.add(
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Point",
+            "package foo.bar;",
+            "",
+            "public class Point {",
+            "  public Point(int x, int y) {}",
+            "}"));
+    return ImmutableList.copyOf(sources);
+  }
+
+  private static Compilation compile(ImmutableList<JavaFileObject> sources, String... options) {
+    return javac()
+        .withProcessors(
+            new AutoValueProcessor(), new AutoOneOfProcessor(), new AutoBuilderProcessor())
+        .withOptions((Object[]) options)
+        .compile(sources);
+  }
+
+  private static ImmutableMap<String, String> generatedSources(Compilation compilation)
+      throws IOException {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    for (JavaFileObject file : compilation.generatedSourceFiles()) {
+      builder.put(file.getName(), file.getCharContent(false).toString());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.auto.value.processor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.auto.value.extension.AutoValueExtension;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.tools.JavaFileObject;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that the processors emit the JFR events defined in {@link ProcessorEvents}. */
+@RunWith(JUnit4.class)
+public class ProcessorEventsTest {
+  private static final ImmutableList<String> EVENT_NAMES =
+      ImmutableList.of(
+          "com.google.auto.value.ProcessType",
+          "com.google.auto.value.InvokeExtension",
+          "com.google.auto.value.RenderTemplate",
+          "com.google.auto.value.WriteSource",
+          "com.google.auto.value.DeferType");
+
+  @Test
+  public void eventsRecorded() throws Exception {
+    JavaFileObject javaFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Baz",
+            "package foo.bar;",
+            "",
+            "import com.google.auto.value.AutoValue;",
+            "",
+            "@AutoValue",
+            "public abstract class Baz {",
+            "  public abstract int buh();",
+            "  public abstract BarFoo barFoo();",
+            "}");
+    JavaFileObject barFileObject =
+        JavaFileObjects.forSourceLines(
+            "foo.bar.Bar",
+            "package foo.bar;",
+            "",
+            "@" + AutoValueCompilationTest.Foo.class.getCanonicalName(),
+            "public abstract class Bar {}");
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      EVENT_NAMES.forEach(recording::enable);
+      recording.start();
+      Compilation compilation =
+          javac()
+              .withProcessors(
+                  new AutoValueProcessor(ImmutableList.of(new NotApplicableExtension())),
+                  new AutoValueCompilationTest.FooProcessor())
+              .compile(javaFileObject, barFileObject);
+      recording.stop();
+      assertThat(compilation).succeededWithoutWarnings();
+      Path recordingFile = Files.createTempFile("processor-events", ".jfr");
+      try {
+        recording.dump(recordingFile);
+        events = RecordingFile.readAllEvents(recordingFile);
+      } finally {
+        Files.delete(recordingFile);
+      }
+    }
+
+    ImmutableSet<String> eventNames =
+        events.stream().map(e -> e.getEventType().getName()).collect(ImmutableSet.toImmutableSet());
+    assertThat(eventNames).containsExactlyElementsIn(EVENT_NAMES);
+    ImmutableMap<String, RecordedEvent> eventsByName =
+        events.stream()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    e -> e.getEventType().getName(), e -> e, (a, b) -> a));
+    RecordedEvent deferType = eventsByName.get("com.google.auto.value.DeferType");
+    assertThat(deferType.getString("type")).isEqualTo("foo.bar.Baz");
+    assertThat(deferType.getString("processor")).isEqualTo(AutoValueProcessor.class.getName());
+    RecordedEvent invokeExtension = eventsByName.get("com.google.auto.value.InvokeExtension");
+    assertThat(invokeExtension.getString("extension"))
+        .isEqualTo(NotApplicableExtension.class.getName());
+    assertThat(invokeExtension.getString("operation")).isEqualTo("applicable");
+  }
+
+  private static class NotApplicableExtension extends AutoValueExtension {
+    @Override
+    public boolean applicable(Context context) {
+      return false;
+    }
+
+    @Override
+    public String generateClass(
+        Context context, String className, String classToExtend, boolean isFinal) {
+      throw new AssertionError();
+    }
+  }
+}
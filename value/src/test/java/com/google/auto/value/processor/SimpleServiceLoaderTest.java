@@ -28,6 +28,8 @@ import java.io.PrintWriter;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
@@ -133,6 +135,43 @@ public final class SimpleServiceLoaderTest {
     assertThat(classes2).containsExactlyElementsIn(classes1).inOrder();
   }
 
+  @Test
+  public void cachedWhileJarUnchanged() throws Exception {
+    File jar = jarWithEntries(Object.class.getName(), String.class.getName());
+    ClassLoader loader1 = loaderForResourcesIn(jar);
+    ImmutableList<Object> providers1 = SimpleServiceLoader.load(Object.class, loader1);
+    assertThat(providers1).containsExactly("");
+
+    // Overwrite the jar with garbage of the same size, and put back its modification time. The
+    // service file should not be read again, so we should not notice that the jar is corrupt.
+    FileTime lastModified = Files.getLastModifiedTime(jar.toPath());
+    Files.write(jar.toPath(), new byte[(int) jar.length()]);
+    Files.setLastModifiedTime(jar.toPath(), lastModified);
+    ClassLoader loader2 = loaderForResourcesIn(jar);
+    ImmutableList<Object> providers2 = SimpleServiceLoader.load(Object.class, loader2);
+    assertThat(providers2).containsExactly("");
+  }
+
+  @Test
+  public void rereadWhenJarChanges() throws Exception {
+    File jar = jarWithEntries(CharSequence.class.getName(), String.class.getName());
+    ImmutableList<CharSequence> providers1 =
+        SimpleServiceLoader.load(CharSequence.class, loaderForResourcesIn(jar));
+    assertThat(providers1.stream().map(Object::getClass).collect(toList()))
+        .containsExactly(String.class);
+
+    FileTime lastModified = Files.getLastModifiedTime(jar.toPath());
+    writeJarWithEntries(
+        jar, CharSequence.class.getName(), String.class.getName(), StringBuilder.class.getName());
+    Files.setLastModifiedTime(
+        jar.toPath(), FileTime.fromMillis(lastModified.toMillis() + 10_000));
+    ImmutableList<CharSequence> providers2 =
+        SimpleServiceLoader.load(CharSequence.class, loaderForResourcesIn(jar));
+    assertThat(providers2.stream().map(Object::getClass).collect(toList()))
+        .containsExactly(String.class, StringBuilder.class)
+        .inOrder();
+  }
+
   @Test
   public void noProviders() throws Exception {
     ClassLoader loader = loaderForJarWithEntries(CharSequence.class.getName());
@@ -205,8 +244,32 @@ public final class SimpleServiceLoaderTest {
   }
 
   private static URL urlForJarWithEntries(String service, String... lines) throws IOException {
+    return jarWithEntries(service, lines).toURI().toURL();
+  }
+
+  /**
+   * Returns a loader that finds resources in the given jar, but delegates class loading to the
+   * loader of this test, so it does not keep the jar open.
+   */
+  private static ClassLoader loaderForResourcesIn(File jar) {
+    return new ClassLoader(SimpleServiceLoaderTest.class.getClassLoader()) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        URL url = new URL("jar:" + jar.toURI() + "!/" + name);
+        return Collections.enumeration(ImmutableList.of(url));
+      }
+    };
+  }
+
+  private static File jarWithEntries(String service, String... lines) throws IOException {
     File jar = File.createTempFile("SimpleServiceLoaderTest", "jar");
     jar.deleteOnExit();
+    writeJarWithEntries(jar, service, lines);
+    return jar;
+  }
+
+  private static void writeJarWithEntries(File jar, String service, String... lines)
+      throws IOException {
     try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
       JarEntry jarEntry = new JarEntry("META-INF/services/" + service);
       out.putNextEntry(jarEntry);
@@ -218,6 +281,5 @@ public final class SimpleServiceLoaderTest {
       }
       writer.flush();
     }
-    return jar.toURI().toURL();
   }
 }
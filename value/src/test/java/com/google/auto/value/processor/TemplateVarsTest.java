@@ -18,6 +18,7 @@ package com.google.auto.value.processor;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.escapevelocity.Template;
 import java.io.IOException;
@@ -158,4 +159,17 @@ public class TemplateVarsTest {
     } catch (IllegalArgumentException expected) {
     }
   }
+
+  @Test
+  public void testLazyTemplate() {
+    // The resource is not read until the template is needed.
+    Supplier<Template> template = TemplateVars.lazyTemplateForResource("nonexistent.vm");
+    try {
+      template.get();
+      fail("Did not get expected exception");
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected).hasMessageThat().contains("nonexistent.vm");
+    }
+    assertThat(TemplateVars.lazyTemplateForResource("autovalue.vm").get()).isNotNull();
+  }
 }
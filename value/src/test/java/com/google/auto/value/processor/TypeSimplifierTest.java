@@ -85,6 +85,41 @@ public class TypeSimplifierTest {
     abstract <T extends V, U extends T, V> Map<? extends T, ? super U> two();
   }
 
+  private static class Base {
+    static class Visible {}
+
+    private static class Hidden {}
+  }
+
+  private abstract static class Sub extends Base implements Comparable<Sub> {
+    interface Nested {}
+  }
+
+  /**
+   * Shows that {@link TypeSimplifier.RoundCache#nonPrivateDeclaredTypes} finds the non-private
+   * nested types of the type and its supertypes, and only computes them once.
+   */
+  @Test
+  public void testRoundCacheNonPrivateDeclaredTypes() {
+    TypeSimplifier.RoundCache roundCache = new TypeSimplifier.RoundCache();
+    TypeMirror sub = typeElementOf(Sub.class).asType();
+    Set<TypeElement> declared = roundCache.nonPrivateDeclaredTypes(typeUtils, sub);
+    assertThat(declared)
+        .containsExactly(
+            typeElementOf(Sub.class),
+            typeElementOf(Sub.Nested.class),
+            typeElementOf(Base.class),
+            typeElementOf(Base.Visible.class),
+            typeElementOf(Object.class),
+            typeElementOf(Comparable.class));
+    assertThat(roundCache.nonPrivateDeclaredTypes(typeUtils, sub)).isSameInstanceAs(declared);
+    assertThat(roundCache.nonPrivateDeclaredTypes(typeUtils, typeElementOf(Base.class).asType()))
+        .containsExactly(
+            typeElementOf(Base.class),
+            typeElementOf(Base.Visible.class),
+            typeElementOf(Object.class));
+  }
+
   /**
    * This test shows why we need to have TypeMirrorSet. The mirror of java.lang.Object obtained from
    * {@link Elements#getTypeElement Elements.getTypeElement("java.lang.Object")} does not compare